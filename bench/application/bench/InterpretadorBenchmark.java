@@ -0,0 +1,69 @@
+package application.bench;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import application.compiler.Compiler;
+import application.compiler.Resolution;
+import application.compiler.Resolver;
+import application.interpreter.Interpretador;
+import application.interpreter.Program;
+import application.lexer.Lexer;
+import application.lexer.TokenBuffer;
+import application.parser.Ast;
+import application.parser.Parser;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpretadorBenchmark {
+
+	@Param({ "small", "medium", "huge" })
+	public String size;
+
+	private Program program;
+	private PrintStream out;
+
+	@Setup(Level.Trial)
+	public void compile() {
+		Lexer lexer = new Lexer(ScriboSources.forSize(size));
+		TokenBuffer tokens = lexer.scanBuffer();
+		Parser parser = new Parser(tokens);
+		Ast ast = parser.parse();
+		Resolver resolver = new Resolver(ast);
+		Resolution resolution = resolver.resolve();
+		Compiler compiler = new Compiler(ast, resolution);
+		program = compiler.compile();
+		if (lexer.hadError() || parser.hadError() || resolver.hadError() || compiler.hadError()) {
+			throw new IllegalStateException("O programa gerado para '" + size + "' não compila");
+		}
+		out = new PrintStream(OutputStream.nullOutputStream());
+	}
+
+	// Só a execução, sobre o programa já compilado; a saída vai para um stream que descarta tudo
+	@Benchmark
+	public Interpretador execute() {
+		Interpretador interpretador = new Interpretador(out, new BufferedReader(new StringReader("")));
+		interpretador.executar(program);
+		return interpretador;
+	}
+}
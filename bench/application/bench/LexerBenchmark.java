@@ -0,0 +1,76 @@
+package application.bench;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import application.lexer.Lexer;
+import application.lexer.ParallelLexer;
+import application.lexer.StreamingLexer;
+import application.lexer.TokenBuffer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+	@Param({ "small", "medium", "huge" })
+	public String size;
+
+	private String source;
+	private Lexer editedLexer;
+	private int editOffset;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		source = ScriboSources.forSize(size);
+		editOffset = source.indexOf('\n', source.length() / 2) + 1;
+	}
+
+	@Setup(Level.Invocation)
+	public void prepareEdit() {
+		// Lexer já analisado, para medir só a reanálise depois de uma edição
+		editedLexer = new Lexer(source);
+		editedLexer.scanBuffer();
+		editedLexer.edit(editOffset, 0, "int novo := 1;\n");
+	}
+
+	@Benchmark
+	public TokenBuffer scanTokens() {
+		return new Lexer(source).scanBuffer();
+	}
+
+	@Benchmark
+	public TokenBuffer rescanAfterEdit() {
+		return editedLexer.scanBuffer();
+	}
+
+	@Benchmark
+	public TokenBuffer parallelScan() {
+		return new ParallelLexer(source).scanBuffer();
+	}
+
+	@Benchmark
+	public void streamingScan(Blackhole blackhole) {
+		StreamingLexer stream = new StreamingLexer(new StringReader(source));
+		while (stream.hasNext()) {
+			blackhole.consume(stream.next());
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package application.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import application.lexer.Lexer;
+import application.lexer.TokenBuffer;
+import application.parser.Ast;
+import application.parser.Parser;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Param({ "small", "medium", "huge" })
+	public String size;
+
+	private String source;
+	private TokenBuffer tokens;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		source = ScriboSources.forSize(size);
+		tokens = new Lexer(source).scanBuffer();
+	}
+
+	// Só o parser, sobre tokens já prontos
+	@Benchmark
+	public Ast parse() {
+		return new Parser(tokens).parse();
+	}
+
+	@Benchmark
+	public Ast lexAndParse() {
+		return new Parser(new Lexer(source).scanBuffer()).parse();
+	}
+}
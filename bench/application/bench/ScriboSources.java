@@ -0,0 +1,148 @@
+package application.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Gera programas Scribo representativos para os benchmarks, com tamanho controlado. O programa
+// gerado passa por todas as etapas e executa até o fim: cada variável é declarada uma vez antes
+// de ser usada, as contas não misturam tipos e os totais ficam limitados pelo resto da divisão.
+public final class ScriboSources {
+
+	private static final String[] TYPES = { "int", "double", "string", "long", "short" };
+	private static final int TOTALS = 17;
+	private static final int LIMIT = 100_003;
+
+	private ScriboSources() {
+	}
+
+	public static String forSize(String size) {
+		switch (size) {
+			case "small": return generate(50);
+			case "medium": return generate(5_000);
+			case "huge": return generate(200_000);
+			default: throw new IllegalArgumentException("Tamanho desconhecido: " + size);
+		}
+	}
+
+	public static String generate(int lines) {
+		Random random = new Random(42);
+		StringBuilder source = new StringBuilder(lines * 28);
+		// Funções e acumuladores declarados no início, usados pelas linhas abaixo
+		source.append("func int passo(int a, int b) {\n")
+				.append("\tretornar (a * 31 + b) % ").append(LIMIT).append(";\n")
+				.append("}\n")
+				.append("func double media(double a, double b) {\n")
+				.append("\tretornar (a + b) / 2.0;\n")
+				.append("}\n");
+		for (int i = 0; i < TOTALS; i++) {
+			source.append("int total").append(i).append(" := 0;\n");
+		}
+		source.append("long maior := 0;\n")
+				.append("double soma := 0.0;\n")
+				.append("string texto := \"\";\n")
+				.append("short curto := 0;\n");
+		int line = 6 + TOTALS + 4;
+
+		// Variáveis já declaradas de cada tipo, pelo número do nome
+		List<List<Integer>> declared = new ArrayList<>();
+		for (int i = 0; i < TYPES.length; i++) {
+			declared.add(new ArrayList<>());
+		}
+		int next = 0;
+		while (line < lines) {
+			int kind = random.nextInt(12);
+			int n = random.nextInt(1000);
+			String total = "total" + n % TOTALS;
+			switch (kind) {
+				case 0:
+					source.append("#[ bloco de comentario\n   com duas linhas ]#\n");
+					line += 2;
+					break;
+				case 1:
+					source.append("# comentario de linha ").append(n).append('\n');
+					line++;
+					break;
+				case 2:
+				case 3:
+				case 4: {
+					int type = random.nextInt(TYPES.length);
+					int name = next++;
+					source.append(TYPES[type]).append(" valor").append(name).append(" := ");
+					switch (TYPES[type]) {
+						case "double": source.append(n).append('.').append(random.nextInt(100)); break;
+						case "string": source.append("\"texto ").append(n).append('"'); break;
+						default: source.append(n); break;
+					}
+					source.append(";\n");
+					declared.get(type).add(name);
+					line++;
+					break;
+				}
+				case 5:
+				case 6: {
+					// Cada tipo só entra na conta do acumulador do mesmo tipo
+					int type = random.nextInt(TYPES.length);
+					List<Integer> names = declared.get(type);
+					String value = names.isEmpty() ? null : "valor" + names.get(random.nextInt(names.size()));
+					switch (TYPES[type]) {
+						case "int":
+							source.append(total).append(" := (").append(total).append(" + ")
+									.append(value != null ? value : String.valueOf(n)).append(" * ")
+									.append(random.nextInt(9) + 1).append(") % ").append(LIMIT).append(";\n");
+							break;
+						case "long":
+							source.append("maior := maior + ").append(value != null ? value : String.valueOf(n)).append(";\n");
+							break;
+						case "double":
+							source.append("soma := media(soma, ").append(value != null ? value : n + ".5").append(");\n");
+							break;
+						case "string":
+							source.append("texto := ").append(value != null ? value : "\"texto\"").append(" + \"!\";\n");
+							break;
+						default:
+							source.append("curto := ").append(value != null ? value : String.valueOf(n)).append(";\n");
+							break;
+					}
+					line++;
+					break;
+				}
+				case 7:
+					source.append(total).append(" := passo(").append(total).append(", ").append(n).append(");\n");
+					line++;
+					break;
+				case 8:
+					source.append("se (").append(total).append(" > ").append(n).append(") {\n")
+							.append('\t').append(total).append(" := ").append(total).append(" - ").append(n).append(";\n")
+							.append("} senao {\n")
+							.append('\t').append(total).append(" := ").append(total).append(" + 1;\n")
+							.append("}\n");
+					line += 5;
+					break;
+				case 9: {
+					String counter = "contador" + next++;
+					source.append("int ").append(counter).append(" := 0;\n")
+							.append("enquanto (").append(counter).append(" < 5) {\n")
+							.append('\t').append(total).append(" := passo(").append(total).append(", ").append(counter).append(");\n")
+							.append('\t').append(counter).append("++;\n")
+							.append("}\n");
+					line += 5;
+					break;
+				}
+				default:
+					source.append("para (int j := 0; j < 4; j++) {\n")
+							.append('\t').append(total).append(" := (").append(total).append(" + j * ").append(n)
+							.append(") % ").append(LIMIT).append(";\n")
+							.append("}\n");
+					line += 3;
+					break;
+			}
+		}
+		source.append("mostrar(");
+		for (int i = 0; i < TOTALS; i++) {
+			source.append("total").append(i).append(", \" \", ");
+		}
+		source.append("maior, \" \", soma, \" \", texto, \" \", curto);\n");
+		return source.toString();
+	}
+}
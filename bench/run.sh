@@ -0,0 +1,29 @@
+#!/bin/sh
+# Compila e executa os benchmarks JMH sem o JavaFX.
+# Uso: JMH_LIB=/caminho/para/jars ./bench/run.sh [argumentos do JMH]
+# JMH_LIB deve conter jmh-core, jmh-generator-annprocess, jopt-simple e commons-math3.
+set -e
+cd "$(dirname "$0")/.."
+
+if [ -z "$JMH_LIB" ]; then
+	echo "Defina JMH_LIB com a pasta dos jars do JMH" >&2
+	exit 1
+fi
+
+CP="$(ls "$JMH_LIB"/*.jar | tr '\n' ':')"
+OUT=build/bench
+rm -rf "$OUT"
+mkdir -p "$OUT"
+
+# Só os pacotes que não dependem do JavaFX; analysis, console, editor e explorer são da
+# interface e ficam de fora
+CORE="lexer parser compiler interpreter diagnostics io"
+javac -encoding UTF-8 -d "$OUT" -cp "$CP" -processorpath "$CP" \
+	$(for pkg in $CORE; do find "src/application/$pkg" -name '*.java'; done) \
+	$(find bench/application -name '*.java')
+
+# Padrão: vazão e alocação por operação (profiler gc)
+if [ $# -eq 0 ]; then
+	set -- -prof gc
+fi
+java -cp "$OUT:$CP" org.openjdk.jmh.Main "$@"
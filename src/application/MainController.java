@@ -3,25 +3,58 @@ package application;
 import javafx.fxml.FXML;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import javafx.application.Platform;
 import javafx.scene.control.TextInputDialog;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextFormatter;
 import application.lexer.Lexer;
-import application.lexer.Token;
-import java.io.ByteArrayOutputStream;
+import application.lexer.LineIndex;
+import application.lexer.TokenBuffer;
+import application.parser.Ast;
+import application.parser.Parser;
+import application.compiler.Compiler;
+import application.compiler.Resolution;
+import application.compiler.Resolver;
+import application.interpreter.ExecutionControl;
+import application.interpreter.Interpretador;
+import application.interpreter.Program;
+import application.interpreter.RuntimeError;
+import application.diagnostics.Diagnostic;
+import application.diagnostics.DiagnosticCollector;
+import application.analysis.AnalysisScheduler;
+import application.console.ConsoleSink;
+import application.console.ConsoleView;
+import application.editor.HighlightOverlay;
+import application.editor.MinimapRenderer;
+import application.editor.MinimapView;
+import application.explorer.WorkspaceExplorer;
+import application.io.CharsetSniffer;
+import application.io.EditJournal;
+import application.io.PagedFile;
+import application.io.TextFormat;
+import application.io.TextLoader;
+import application.io.TextSaver;
+import application.editor.SyntaxHighlighter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.control.Alert;
@@ -33,6 +66,8 @@ import javafx.scene.control.ListView;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TreeView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Window;
 
@@ -44,7 +79,7 @@ public class MainController {
 	private TabPane editorTabs;
 
 	@FXML
-	private TextArea saidaConsole;
+	private ListView<String> saidaConsole;
 
 	@FXML
 	private VBox consoleContainer;
@@ -78,71 +113,128 @@ public class MainController {
 
 	@FXML
 	private Button minimapMenuButton;
+
+	@FXML
+	private MinimapView minimapView;
+	
+	// Tamanho (MB) a partir do qual os arquivos abrem em páginas
+	private static final int DEFAULT_PAGED_MEGABYTES = 16;
 	
 	private Map<Tab, File> tabFiles = new HashMap<>();
 	private Map<Tab, TextArea> tabEditors = new HashMap<>();
+	private Map<Tab, Lexer> tabLexers = new HashMap<>();
+	private Map<Tab, MinimapRenderer> tabMinimaps = new HashMap<>();
+	// Formato (codificação, separador de linha) de cada arquivo aberto, usado ao salvar
+	private Map<Tab, TextFormat> tabFormats = new HashMap<>();
+	// Abas de arquivos grandes, abertos em páginas e sem edição
+	private Map<Tab, PagedFile> tabPages = new HashMap<>();
+	// Diário de edições não salvas de cada aba
+	private Map<Tab, EditJournal> tabJournals = new HashMap<>();
+	private final Path journalDirectory = EditJournal.defaultDirectory();
+	private WorkspaceExplorer workspaceExplorer;
+	private final AtomicInteger loadingPercent = new AtomicInteger(-1);
+	// Altura em pixels de cada linha no minimapa
+	private int minimapScale = 2;
 	private PrintStream consoleStream;
+	private PrintStream consoleMessages;
+	private ConsoleView consoleView;
+	// Análises ao vivo (uma por aba, pela chave do lexer) e execuções (chave 'execution')
+	private final AnalysisScheduler analysis = new AnalysisScheduler();
+	private final Object execution = new Object();
+	// Limites e pedido de parada da execução em andamento
+	private ExecutionControl runningControl;
 	private long executionStartTime;
 
 	@FXML
 	public void initialize() {
+	    workspaceExplorer = new WorkspaceExplorer(fileExplorer, this::openFile, this::updateStatus);
 	    setupContextMenus();
 	    setupConsoleRedirect();
+	    openWorkspace(WorkspaceExplorer.defaultWorkspace());
 	    
 	    // Adicionar listener para atualizar o label de linha/coluna quando a aba mudar
 	    editorTabs.getSelectionModel().selectedItemProperty().addListener((_, _, newTab) -> {
+	        if (newTab != null) updateEncodingLabel(newTab);
 	        if (newTab != null && tabEditors.containsKey(newTab)) {
-	            updateLineColumnInfo(tabEditors.get(newTab));
+	            HighlightOverlay overlay = (HighlightOverlay) newTab.getContent();
+	            updateLineColumnInfo(tabEditors.get(newTab), overlay.lineIndex());
+	            minimapView.show(tabMinimaps.get(newTab), overlay);
+	        } else {
+	            minimapView.show(null, null);
 	        }
 	    });
+	    
+	    recoverJournals();
 	};
 	
 	private void setupContextMenus() {
 		// Menu de contexto do Explorer
 		ContextMenu explorerMenu = new ContextMenu();
+		MenuItem openFolder = new MenuItem("Abrir Pasta...");
 		MenuItem refreshExplorer = new MenuItem("Atualizar Explorer");
 		MenuItem collapseAll = new MenuItem("Recolher Tudo");
 		MenuItem expandAll = new MenuItem("Expandir Tudo");
 		
+		openFolder.setOnAction(_ -> {
+			DirectoryChooser directoryChooser = new DirectoryChooser();
+			directoryChooser.setTitle("Abrir Pasta");
+			Path current = workspaceExplorer.workspace();
+			if (current != null) directoryChooser.setInitialDirectory(current.toFile());
+			File directory = directoryChooser.showDialog(getWindow());
+			if (directory != null) openWorkspace(directory.toPath());
+		});
+		
 		refreshExplorer.setOnAction(_ -> {
-			// Implementar atualização do explorer
+			// Relê só as pastas abertas; o resto chega pelos eventos do sistema de arquivos
+			workspaceExplorer.refresh();
 			updateStatus("Explorer atualizado");
 		});
 		
 		collapseAll.setOnAction(_ -> {
-			// Implementar recolher todos os itens
+			workspaceExplorer.collapseAll();
 			updateStatus("Todos os itens recolhidos");
 		});
 		
 		expandAll.setOnAction(_ -> {
-			// Implementar expandir todos os itens
+			workspaceExplorer.expandAll();
 			updateStatus("Todos os itens expandidos");
 		});
 		
-		explorerMenu.getItems().addAll(refreshExplorer, collapseAll, expandAll);
+		explorerMenu.getItems().addAll(openFolder, refreshExplorer, collapseAll, expandAll);
 		explorerMenuButton.setOnAction(_ -> explorerMenu.show(explorerMenuButton, explorerMenuButton.getLayoutX(), explorerMenuButton.getLayoutY()));
 
 		// Menu de contexto do Terminal
 		ContextMenu terminalMenu = new ContextMenu();
 		MenuItem clearTerminal = new MenuItem("Limpar Terminal");
 		MenuItem copyOutput = new MenuItem("Copiar Saída");
+		MenuItem searchTerminal = new MenuItem("Buscar no Terminal");
 		MenuItem toggleWordWrap = new MenuItem("Alternar Quebra de Linha");
 		
 		clearTerminal.setOnAction(_ -> {
-			saidaConsole.clear();
+			consoleView.clear();
 			updateStatus("Terminal limpo");
 		});
 		
 		copyOutput.setOnAction(_ -> {
-			// Implementar cópia da saída
-			updateStatus("Saída copiada");
+			int copied = consoleView.copy();
+			updateStatus(copied + " linhas copiadas");
+		});
+		
+		searchTerminal.setOnAction(_ -> {
+			TextInputDialog dialog = new TextInputDialog();
+			dialog.setTitle("Buscar no Terminal");
+			dialog.setHeaderText("Buscar na saída do programa");
+			dialog.setContentText("Texto:");
+			dialog.showAndWait().ifPresent(text -> {
+				updateStatus(consoleView.find(text) ? "Encontrado: " + text : "Não encontrado: " + text);
+			});
 		});
 		
 		toggleWordWrap.setOnAction(_ -> {
-			updateStatus("Quebra de linha " + (saidaConsole.isWrapText() ? "ativada" : "desativada"));
+			updateStatus("Quebra de linha " + (consoleView.toggleWrap() ? "ativada" : "desativada"));
 		});
 		
-		terminalMenu.getItems().addAll(clearTerminal, copyOutput, toggleWordWrap);
+		terminalMenu.getItems().addAll(clearTerminal, copyOutput, searchTerminal, toggleWordWrap);
 		terminalMenuButton.setOnAction(_ -> terminalMenu.show(terminalMenuButton, terminalMenuButton.getLayoutX(), terminalMenuButton.getLayoutY()));
 
 		// Menu de contexto do Minimapa
@@ -154,8 +246,14 @@ public class MainController {
 		toggleMinimap.setOnAction(_ -> handleToggleMinimap());
 		
 		changeScale.setOnAction(_ -> {
-			// Implementar mudança de escala
-			updateStatus("Escala alterada");
+			// Alterna entre 1 e 4 pixels por linha; cada minimapa é redesenhado por inteiro
+			minimapScale = minimapScale % 4 + 1;
+			for (Tab tab : tabMinimaps.keySet()) {
+				MinimapRenderer renderer = tabMinimaps.get(tab);
+				renderer.setScale(minimapScale);
+				renderMinimap(tabLexers.get(tab), renderer);
+			}
+			updateStatus("Escala do minimapa: " + minimapScale + " px por linha");
 		});
 		
 		showLineNumbers.setOnAction(_ -> {
@@ -168,29 +266,19 @@ public class MainController {
 	}
 	
 	private void setupConsoleRedirect() {
-	    ByteArrayOutputStream consoleOutput = new ByteArrayOutputStream();
-	    consoleStream = new PrintStream(consoleOutput) {
-	        @Override
-	        public void write(byte[] buf, int off, int len) {
-	            super.write(buf, off, len);
-	            String text = new String(buf, off, len);
-	            Platform.runLater(() -> {
-	                saidaConsole.appendText(text);
-	            });
-	        }
-	        
-	        @Override
-	        public void write(int b) {
-	            super.write(b);
-	            char c = (char) b;
-	            Platform.runLater(() -> {
-	                saidaConsole.appendText(String.valueOf(c));
-	            });
-	        }
-	    };
-	    
-	    // Redirecionar System.err
-	    System.setErr(consoleStream);
+	    // A saída passa por um buffer circular esvaziado uma vez por pulso da interface
+	    // e fica guardada em blocos; o ListView só desenha as linhas visíveis
+	    ConsoleSink sink = new ConsoleSink();
+	    consoleView = new ConsoleView(sink, saidaConsole,
+	            Integer.getInteger("scribo.console.linhas", ConsoleView.DEFAULT_MAX_LINES),
+	            Long.getLong("scribo.console.caracteres", ConsoleView.DEFAULT_MAX_CHARS));
+	    consoleView.start();
+	    consoleStream = new PrintStream(sink, false, StandardCharsets.UTF_8);
+	    // Mensagens da thread do JavaFX têm um PrintStream próprio: o do programa pode estar
+	    // travado esperando espaço no buffer, e só a thread do JavaFX o esvazia
+	    consoleMessages = new PrintStream(sink, false, StandardCharsets.UTF_8);
+	    // System.err fica no terminal de origem: exceções da própria interface não disputam
+	    // o buffer com a saída do programa
 	}
 	
 	// Menu File
@@ -204,12 +292,8 @@ public class MainController {
 		    Optional<String> result = dialog.showAndWait();
 		    result.ifPresent(fileName -> {
 		        Tab newTab = new Tab(fileName);
-		        TextArea codeEditor = createCodeEditor();
-		        newTab.setContent(codeEditor);
-		        editorTabs.getTabs().add(newTab);
-		        editorTabs.getSelectionModel().select(newTab);
-		        
-		        tabEditors.put(newTab, codeEditor);
+		        createEditorTab(newTab, null);
+		        tabJournals.get(newTab).start(null, fileName, 0, 0);
 		        updateStatus("Novo arquivo criado: " + fileName);
 		    });
 	}
@@ -229,41 +313,213 @@ public class MainController {
 	    }
 	}
 	
+	// A pasta é lida aos poucos, conforme as pastas são expandidas
+	private void openWorkspace(Path directory) {
+	    try {
+	        workspaceExplorer.open(directory);
+	        updateStatus("Workspace: " + directory);
+	    } catch (IOException e) {
+	        updateStatus("Não foi possível abrir o workspace " + directory + ": " + e.getMessage());
+	    }
+	}
+	
+	// A leitura roda fora da thread do JavaFX; arquivos acima do limite abrem em páginas
 	private void openFile(File file) {
-	    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-	        StringBuilder content = new StringBuilder();
-	        String line;
-	        while ((line = reader.readLine()) != null) {
-	            content.append(line).append("\n");
+	    Tab newTab = new Tab(file.getName());
+	    long threshold = Integer.getInteger("scribo.arquivo.paginado", DEFAULT_PAGED_MEGABYTES) * 1024L * 1024L;
+	    if (file.length() > threshold) {
+	        openPaged(file, newTab);
+	    } else {
+	        openStreamed(file, newTab, List.of());
+	    }
+	    
+	    // Adicionar à lista de arquivos recentes
+	    if (!recentFilesList.getItems().contains(file.getAbsolutePath())) {
+	        recentFilesList.getItems().add(0, file.getAbsolutePath());
+	    }
+	}
+	
+	// O texto entra no editor em pedaços conforme é decodificado; até o fim fica só leitura.
+	// 'recovered' são edições não salvas da sessão anterior, reaplicadas depois da leitura
+	private void openStreamed(File file, Tab newTab, List<EditJournal.Edit> recovered) {
+	    TextArea codeEditor = createEditorTab(newTab, file);
+	    codeEditor.setEditable(false);
+	    
+	    long size = file.length();
+	    analysis.submit(newTab, () -> TextLoader.load(file.toPath(),
+	            chunk -> Platform.runLater(() -> codeEditor.appendText(chunk)),
+	            read -> reportProgress(file, read, size)), format -> {
+	        tabFormats.put(newTab, format);
+	        updateEncodingLabel(newTab);
+	        // O diário começa da versão lida; as edições recuperadas entram nele de novo
+	        tabJournals.get(newTab).start(file.toPath(), file.getName(), file.length(), file.lastModified());
+	        int replayed = replay(codeEditor, recovered);
+	        codeEditor.setEditable(true);
+	        codeEditor.positionCaret(0);
+	        updateStatus("Arquivo aberto: " + file.getName()
+	                + (replayed > 0 ? " (" + replayed + " alterações não salvas recuperadas)" : ""));
+	    }, e -> failOpen(newTab, e));
+	}
+	
+	// Editor, lexer, minimapa e diário de uma aba de edição nova
+	private TextArea createEditorTab(Tab newTab, File file) {
+	    Lexer lexer = new Lexer("");
+	    MinimapRenderer minimap = new MinimapRenderer(minimapScale);
+	    EditJournal journal = new EditJournal(journalDirectory);
+	    HighlightOverlay overlay = createCodeEditor(lexer, minimap, journal);
+	    TextArea codeEditor = overlay.editor();
+	    newTab.setContent(overlay);
+	    
+	    if (file != null) tabFiles.put(newTab, file);
+	    tabEditors.put(newTab, codeEditor);
+	    tabLexers.put(newTab, lexer);
+	    tabMinimaps.put(newTab, minimap);
+	    tabJournals.put(newTab, journal);
+	    closeWithTab(newTab);
+	    
+	    editorTabs.getTabs().add(newTab);
+	    editorTabs.getSelectionModel().select(newTab);
+	    return codeEditor;
+	}
+	
+	// Reaplica as edições enquanto couberem no texto; devolve quantas foram aplicadas
+	private int replay(TextArea codeEditor, List<EditJournal.Edit> edits) {
+	    int applied = 0;
+	    for (EditJournal.Edit edit : edits) {
+	        int end = edit.offset() + edit.removed();
+	        if (edit.offset() < 0 || edit.removed() < 0 || end > codeEditor.getLength()) break;
+	        codeEditor.replaceText(edit.offset(), end, edit.text());
+	        applied++;
+	    }
+	    return applied;
+	}
+	
+	// Documentos com alterações não salvas quando a sessão anterior terminou
+	private void recoverJournals() {
+	    List<EditJournal.Recovered> journals;
+	    try {
+	        journals = EditJournal.recover(journalDirectory);
+	    } catch (IOException e) {
+	        updateStatus("Não foi possível ler o diário de edições: " + e.getMessage());
+	        return;
+	    }
+	    for (EditJournal.Recovered journal : journals) {
+	        File file = journal.document() != null ? journal.document().toFile() : null;
+	        if (journal.edits().isEmpty() || (file != null && !journal.matches(file))) {
+	            // Nada a recuperar, ou o arquivo mudou fora do editor desde então
+	            try {
+	                Files.deleteIfExists(journal.journal());
+	            } catch (IOException e) {
+	                updateStatus("Não foi possível apagar o diário " + journal.journal() + ": " + e.getMessage());
+	            }
+	            continue;
 	        }
-	        
-	        Tab newTab = new Tab(file.getName());
-	        TextArea codeEditor = createCodeEditor();
-	        codeEditor.setText(content.toString());
-	        newTab.setContent(codeEditor);
-	        
-	        editorTabs.getTabs().add(newTab);
-	        editorTabs.getSelectionModel().select(newTab);
-	        
-	        tabFiles.put(newTab, file);
-	        tabEditors.put(newTab, codeEditor);
-	        
-	        // Adicionar à lista de arquivos recentes
-	        if (!recentFilesList.getItems().contains(file.getAbsolutePath())) {
-	            recentFilesList.getItems().add(0, file.getAbsolutePath());
+	        Tab newTab = new Tab(journal.name());
+	        if (file != null) {
+	            openStreamed(file, newTab, journal.edits());
+	        } else {
+	            TextArea codeEditor = createEditorTab(newTab, null);
+	            EditJournal restored = tabJournals.get(newTab);
+	            restored.start(null, journal.name(), 0, 0);
+	            int replayed = replay(codeEditor, journal.edits());
+	            if (!journal.journal().equals(restored.file())) {
+	                try {
+	                    Files.deleteIfExists(journal.journal());
+	                } catch (IOException e) {
+	                    updateStatus("Não foi possível apagar o diário " + journal.journal() + ": " + e.getMessage());
+	                }
+	            }
+	            updateStatus("Arquivo novo recuperado: " + journal.name() + " (" + replayed + " alterações)");
 	        }
-	        
-	        updateStatus("Arquivo aberto: " + file.getName());
-	    } catch (IOException e) {
-	        showAlert(AlertType.ERROR, "Erro", "Erro ao abrir arquivo", 
-	                 "Não foi possível abrir o arquivo: " + e.getMessage());
 	    }
 	}
+	
+	// Arquivo grande: o índice de páginas é montado fora da thread do JavaFX e só a página
+	// mostrada fica na memória, sem edição
+	private void openPaged(File file, Tab newTab) {
+	    TextArea pageEditor = new TextArea();
+	    pageEditor.getStyleClass().add("code-editor");
+	    pageEditor.setEditable(false);
+	    LineIndex lineIndex = new LineIndex();
+	    HighlightOverlay overlay = new HighlightOverlay(pageEditor, new SyntaxHighlighter(), lineIndex);
+	    
+	    Button previous = new Button("◀");
+	    Button next = new Button("▶");
+	    Label pageLabel = new Label();
+	    HBox pager = new HBox(8, previous, pageLabel, next);
+	    pager.getStyleClass().add("page-bar");
+	    BorderPane content = new BorderPane(overlay);
+	    content.setBottom(pager);
+	    newTab.setContent(content);
+	    closeWithTab(newTab);
+	    
+	    editorTabs.getTabs().add(newTab);
+	    editorTabs.getSelectionModel().select(newTab);
+	    
+	    int[] current = { 0 };
+	    Runnable[] show = new Runnable[1];
+	    show[0] = () -> {
+	        PagedFile pages = tabPages.get(newTab);
+	        int index = current[0];
+	        analysis.submit(newTab, () -> pages.page(index), text -> {
+	            lineIndex.edit(0, lineIndex.length(), text);
+	            pageEditor.setText(text);
+	            pageEditor.positionCaret(0);
+	            pageLabel.setText("Página " + (index + 1) + " de " + pages.pageCount());
+	            previous.setDisable(index == 0);
+	            next.setDisable(index + 1 >= pages.pageCount());
+	        }, e -> failOpen(newTab, e));
+	    };
+	    previous.setOnAction(_ -> {
+	        current[0]--;
+	        show[0].run();
+	    });
+	    next.setOnAction(_ -> {
+	        current[0]++;
+	        show[0].run();
+	    });
+	    previous.setDisable(true);
+	    next.setDisable(true);
+	    
+	    long size = file.length();
+	    analysis.submit(newTab, () -> PagedFile.index(file.toPath(),
+	            read -> reportProgress(file, read, size)), pages -> {
+	        tabPages.put(newTab, pages);
+	        updateEncodingLabel(newTab);
+	        show[0].run();
+	        updateStatus("Arquivo grande aberto em " + pages.pageCount() + " páginas, somente leitura: " + file.getName());
+	    }, e -> failOpen(newTab, e));
+	}
+	
+	// Chamado na thread de leitura; só o último valor pendente chega à barra de status
+	private void reportProgress(File file, long read, long size) {
+	    int percent = size == 0 ? 100 : (int) (read * 100 / size);
+	    if (loadingPercent.getAndSet(percent) == percent) return;
+	    Platform.runLater(() -> updateStatus("Abrindo " + file.getName() + ": " + loadingPercent.get() + "%"));
+	}
+	
+	private void updateEncodingLabel(Tab tab) {
+	    if (tab != editorTabs.getSelectionModel().getSelectedItem()) return;
+	    PagedFile pages = tabPages.get(tab);
+	    TextFormat format = pages != null ? pages.getFormat() : tabFormats.getOrDefault(tab, TextFormat.DEFAULT);
+	    encodingLabel.setText(" | " + CharsetSniffer.label(format));
+	}
+	
+	private void failOpen(Tab tab, Exception e) {
+	    forgetTab(tab);
+	    editorTabs.getTabs().remove(tab);
+	    showAlert(AlertType.ERROR, "Erro", "Erro ao abrir arquivo", 
+	             "Não foi possível abrir o arquivo: " + e.getMessage());
+	}
 
 	@FXML
 	private void handleSaveFile() {
 		 Tab currentTab = editorTabs.getSelectionModel().getSelectedItem();
 		    if (currentTab == null) return;
+		    if (tabPages.containsKey(currentTab)) {
+		        updateStatus("Arquivos grandes são abertos somente para leitura");
+		        return;
+		    }
 		    
 		    File file = tabFiles.get(currentTab);
 		    if (file == null) {
@@ -276,7 +532,7 @@ public class MainController {
 	@FXML
 	private void handleSaveFileAs() {
 		 Tab currentTab = editorTabs.getSelectionModel().getSelectedItem();
-		    if (currentTab == null) return;
+		    if (currentTab == null || tabPages.containsKey(currentTab)) return;
 		    
 		    FileChooser fileChooser = new FileChooser();
 		    fileChooser.setTitle("Salvar Arquivo Como");
@@ -297,13 +553,35 @@ public class MainController {
 	    TextArea codeEditor = tabEditors.get(tab);
 	    if (codeEditor == null) return;
 	    
-	    try (FileWriter writer = new FileWriter(file)) {
-	        writer.write(codeEditor.getText());
-	        updateStatus("Arquivo salvo: " + file.getName());
-	    } catch (IOException e) {
+	    // O arquivo volta com a codificação, o BOM e o separador de linha que tinha
+	    TextFormat format = tabFormats.getOrDefault(tab, TextFormat.DEFAULT);
+	    String text = codeEditor.getText();
+	    String note = "";
+	    if (!TextSaver.canEncode(text, format)) {
+	        format = new TextFormat(StandardCharsets.UTF_8, false, format.getLineSeparator());
+	        note = " (convertido para UTF-8: o texto tem caracteres fora de ISO-8859-1)";
+	    }
+	    
+	    // A gravação roda fora da thread do JavaFX sobre a cópia do texto; o diário guarda à parte
+	    // as edições feitas enquanto isso
+	    EditJournal journal = tabJournals.get(tab);
+	    journal.mark();
+	    TextFormat savedFormat = format;
+	    String savedNote = note;
+	    updateStatus("Salvando " + file.getName() + "...");
+	    analysis.submit(journal, () -> {
+	        TextSaver.save(file.toPath(), text, savedFormat);
+	        return new long[] { file.length(), file.lastModified() };
+	    }, saved -> {
+	        journal.commit(file.toPath(), file.getName(), saved[0], saved[1]);
+	        tabFormats.put(tab, savedFormat);
+	        updateEncodingLabel(tab);
+	        updateStatus("Arquivo salvo: " + file.getName() + savedNote);
+	    }, e -> {
+	        journal.abort();
 	        showAlert(AlertType.ERROR, "Erro", "Erro ao salvar arquivo", 
 	                 "Não foi possível salvar o arquivo: " + e.getMessage());
-	    }
+	    });
 	}
 
 	@FXML
@@ -390,8 +668,8 @@ public class MainController {
 		  Tab currentTab = editorTabs.getSelectionModel().getSelectedItem();
 		    if (currentTab == null) return;
 		    
-		    TextArea codeEditor = tabEditors.get(currentTab);
-		    if (codeEditor == null) return;
+		    Lexer lexer = tabLexers.get(currentTab);
+		    if (lexer == null) return;
 		    
 		    // Tornar o terminal visível se estiver oculto
 		    if (!consoleContainer.isVisible()) {
@@ -399,62 +677,222 @@ public class MainController {
 		        updateStatus("Terminal ativado");
 		    }
 		    
-		    // Limpar o terminal antes de executar
-		    saidaConsole.clear();
+		    // Uma nova execução substitui a anterior: ela é parada e esta só começa depois
+		    if (runningControl != null) runningControl.requestStop();
+		    ExecutionControl control = new ExecutionControl(
+		            Long.getLong("scribo.limite.instrucoes", 0),
+		            Long.getLong("scribo.limite.tempo", 0),
+		            Long.getLong("scribo.limite.memoria", 0) * 1024 * 1024);
+		    runningControl = control;
+		    consoleView.clear();
 		    updateStatus("Executando código...");
 		    executionStartTime = System.currentTimeMillis();
 		    
-		    // Executar o lexer em uma thread separada para não congelar a UI
-		    new Thread(() -> {
-		        try {
-		            String code = codeEditor.getText();
-		            Lexer lexer = new Lexer(code);
-		            List<Token> tokens = lexer.scanTokens();
-		            
-		            // Calcular tempo de execução
-		            long executionTime = System.currentTimeMillis() - executionStartTime;
-		            
-		            // Mostrar tokens no console
-		            consoleStream.println("Análise léxica concluída em " + executionTime + "ms");
-		            consoleStream.println("Total de tokens: " + tokens.size());
-		            
-		            if (!lexer.hadError()) {
-		                consoleStream.println("\nTokens encontrados:");
-		                for (Token token : tokens) {
-		                    consoleStream.println(token);
-		                }
-		                
-		                Platform.runLater(() -> {
-		                    executionTimeLabel.setText(" | " + executionTime + "ms");
-		                    updateStatus("Código executado com sucesso");
-		                });
-		            } else {
-		                Platform.runLater(() -> {
-		                    executionTimeLabel.setText(" | " + executionTime + "ms");
-		                    updateStatus("Execução concluída com erros");
-		                });
-		            }
-		        } catch (Exception e) {
-		            StringWriter sw = new StringWriter();
-		            e.printStackTrace(new PrintWriter(sw));
-		            final String stackTrace = sw.toString();
-		            
-		            Platform.runLater(() -> {
-		                consoleStream.println("Erro durante a execução:");
-		                consoleStream.println(stackTrace);
-		                updateStatus("Erro na execução do código");
-		            });
-		        }
-		    }).start();
+		    // Compilar e executar numa thread virtual para não congelar a UI
+		    analysis.submit(execution, () -> executar(lexer, control), hadError -> {
+		        if (runningControl == control) runningControl = null;
+		        long executionTime = System.currentTimeMillis() - executionStartTime;
+		        executionTimeLabel.setText(" | " + executionTime + "ms");
+		        consoleView.drain();
+		        String dropped = consoleView.droppedLines() > 0
+		                ? " (" + consoleView.droppedLines() + " linhas antigas descartadas do terminal)" : "";
+		        updateStatus((hadError ? "Execução concluída com erros" : "Código executado com sucesso") + dropped);
+		    }, e -> {
+		        if (runningControl == control) runningControl = null;
+		        StringWriter sw = new StringWriter();
+		        e.printStackTrace(new PrintWriter(sw));
+		        consoleMessages.println("Erro durante a execução:");
+		        consoleMessages.println(sw);
+		        updateStatus("Erro na execução do código");
+		    });
+	}
+	
+	// Corpo da execução; devolve se houve erros de compilação ou de execução
+	private boolean executar(Lexer lexer, ExecutionControl control) {
+	    // O lexer da aba já acompanha as edições e reanalisa só o trecho alterado
+	    TokenBuffer tokens;
+	    List<Diagnostic> diagnostics;
+	    synchronized (lexer) {
+	        tokens = lexer.scanBuffer().copy();
+	        diagnostics = lexer.diagnostics();
+	    }
+	    DiagnosticCollector collector = new DiagnosticCollector();
+	    collector.reportAll(diagnostics);
+	    Program program = compilar(tokens, collector);
+	    if (AnalysisScheduler.cancelled()) return true;
+	    boolean hadError = collector.hasErrors();
+	    
+	    // Todos os erros de uma vez, numa única escrita no console
+	    if (hadError) {
+	        consoleStream.print(collector.drainReport());
+	    } else {
+	        try {
+	            new Interpretador(consoleStream, new BufferedReader(new DialogInputReader()), control).executar(program);
+	        } catch (RuntimeError e) {
+	            consoleStream.println(e);
+	            hadError = true;
+	        }
+	    }
+	    
+	    long executionTime = System.currentTimeMillis() - executionStartTime;
+	    consoleStream.println("\nPrograma finalizado em " + executionTime + "ms");
+	    return hadError;
+	}
+	
+	// Análise ao vivo da aba: as mesmas etapas da execução, sem executar
+	private List<Diagnostic> analisar(Lexer lexer) {
+	    TokenBuffer tokens;
+	    List<Diagnostic> diagnostics;
+	    synchronized (lexer) {
+	        tokens = lexer.scanBuffer().copy();
+	        diagnostics = lexer.diagnostics();
+	    }
+	    DiagnosticCollector collector = new DiagnosticCollector();
+	    collector.reportAll(diagnostics);
+	    compilar(tokens, collector);
+	    return collector.drain();
+	}
+	
+	private void mostrarDiagnosticos(Lexer lexer, List<Diagnostic> diagnostics) {
+	    Tab currentTab = editorTabs.getSelectionModel().getSelectedItem();
+	    if (currentTab == null || tabLexers.get(currentTab) != lexer) return;
+	    if (diagnostics.isEmpty()) {
+	        updateStatus("Nenhum problema encontrado");
+	    } else {
+	        updateStatus(diagnostics.size() + (diagnostics.size() == 1 ? " problema" : " problemas") + " | " + diagnostics.get(0));
+	    }
+	}
+	
+	// Parser, resolver e compilador em sequência; devolve null se alguma etapa reportou erros
+	// e também se a análise foi substituída por uma mais nova
+	private Program compilar(TokenBuffer tokens, DiagnosticCollector collector) {
+	    if (collector.hasErrors() || AnalysisScheduler.cancelled()) return null;
+	    
+	    Parser parser = new Parser(tokens);
+	    Ast ast = parser.parse();
+	    collector.reportAll(parser.diagnostics());
+	    if (collector.hasErrors() || AnalysisScheduler.cancelled()) return null;
+	    
+	    Resolver resolver = new Resolver(ast);
+	    Resolution resolution = resolver.resolve();
+	    collector.reportAll(resolver.diagnostics());
+	    if (collector.hasErrors() || AnalysisScheduler.cancelled()) return null;
+	    
+	    Compiler compiler = new Compiler(ast, resolution);
+	    Program program = compiler.compile();
+	    collector.reportAll(compiler.diagnostics());
+	    return collector.hasErrors() ? null : program;
 	}
 	
-	private TextArea createCodeEditor() {
+	// Entrada do 'ler': cada linha é pedida numa caixa de diálogo na thread do JavaFX.
+	// Cancelar o diálogo encerra a entrada.
+	private static class DialogInputReader extends Reader {
+	    private String pending = "";
+	    private int position = 0;
+	    
+	    @Override
+	    public int read(char[] buffer, int offset, int length) throws IOException {
+	        if (position >= pending.length()) {
+	            String line = askLine();
+	            if (line == null) return -1;
+	            pending = line + "\n";
+	            position = 0;
+	        }
+	        int count = Math.min(length, pending.length() - position);
+	        pending.getChars(position, position + count, buffer, offset);
+	        position += count;
+	        return count;
+	    }
+	    
+	    private String askLine() throws IOException {
+	        FutureTask<Optional<String>> task = new FutureTask<>(() -> {
+	            TextInputDialog dialog = new TextInputDialog();
+	            dialog.setTitle("Entrada");
+	            dialog.setHeaderText("O programa está esperando um valor");
+	            dialog.setContentText("Valor:");
+	            return dialog.showAndWait();
+	        });
+	        Platform.runLater(task);
+	        try {
+	            return task.get().orElse(null);
+	        } catch (InterruptedException e) {
+	            Thread.currentThread().interrupt();
+	            throw new InterruptedIOException("Leitura interrompida");
+	        } catch (ExecutionException e) {
+	            throw new IOException(e.getCause());
+	        }
+	    }
+	    
+	    @Override
+	    public void close() {
+	    }
+	}
+	
+	// Fechar a aba descarta as análises e o minimapa pendentes dela
+	private void closeWithTab(Tab tab) {
+	    tab.setOnClosed(_ -> forgetTab(tab));
+	}
+	
+	private void forgetTab(Tab tab) {
+	    analysis.cancel(tab);
+	    Lexer lexer = tabLexers.remove(tab);
+	    if (lexer != null) analysis.cancel(lexer);
+	    MinimapRenderer minimap = tabMinimaps.remove(tab);
+	    if (minimap != null) analysis.cancel(minimap);
+	    tabFiles.remove(tab);
+	    tabFormats.remove(tab);
+	    tabEditors.remove(tab);
+	    tabPages.remove(tab);
+	    // Um salvamento em andamento termina; só o diário deixa de existir
+	    EditJournal journal = tabJournals.remove(tab);
+	    if (journal != null) journal.delete();
+	}
+	
+	// O minimapa é desenhado fora da thread do JavaFX sobre uma cópia dos tokens; só as faixas
+	// alteradas voltam para a imagem
+	private void renderMinimap(Lexer lexer, MinimapRenderer minimap) {
+	    analysis.schedule(minimap, () -> {
+	        TokenBuffer tokens;
+	        synchronized (lexer) {
+	            tokens = lexer.scanBuffer().copy();
+	        }
+	        return AnalysisScheduler.cancelled() ? null : minimap.render(tokens);
+	    }, frame -> {
+	        if (frame == null) return;
+	        minimap.apply(frame);
+	        if (minimapView.renderer() == minimap) minimapView.redraw();
+	    });
+	}
+	
+	private HighlightOverlay createCodeEditor(Lexer lexer, MinimapRenderer minimap, EditJournal journal) {
 	    TextArea codeEditor = new TextArea();
 	    codeEditor.getStyleClass().add("code-editor");
+	    // Índice de linhas do editor, atualizado aqui mesmo a cada edição; o do lexer só acompanha
+	    // o texto quando a análise roda
+	    LineIndex lineIndex = new LineIndex();
+	    SyntaxHighlighter highlighter = new SyntaxHighlighter();
+	    
+	    // Repassar cada edição ao lexer da aba para a análise incremental e ao destaque de
+	    // sintaxe, que só reprocessa as linhas afetadas
+	    codeEditor.setTextFormatter(new TextFormatter<String>(change -> {
+	        if (change.isContentChange()) {
+	            int startLine = lineIndex.lineOf(change.getRangeStart());
+	            int removedLines = lineIndex.lineOf(change.getRangeEnd()) - startLine;
+	            int addedLines = (int) change.getText().chars().filter(c -> c == '\n').count();
+	            highlighter.edit(startLine, removedLines, addedLines);
+	            lineIndex.edit(change.getRangeStart(), change.getRangeEnd() - change.getRangeStart(), change.getText());
+	            lexer.edit(change.getRangeStart(), change.getRangeEnd() - change.getRangeStart(), change.getText());
+	            journal.record(change.getRangeStart(), change.getRangeEnd() - change.getRangeStart(), change.getText());
+	            // Diagnósticos ao vivo: uma análise só depois que a digitação para
+	            analysis.schedule(lexer, () -> analisar(lexer), diagnostics -> mostrarDiagnosticos(lexer, diagnostics));
+	            renderMinimap(lexer, minimap);
+	        }
+	        return change;
+	    }));
 	    
-	    // Atualizar informações de linha/coluna
+	    // Atualizar informações de linha/coluna pelo índice de linhas do próprio editor, que o TextFormatter mantém em dia
 	    codeEditor.caretPositionProperty().addListener((_, _, _) -> {
-	        updateLineColumnInfo(codeEditor);
+	        updateLineColumnInfo(codeEditor, lineIndex);
 	    });
 	    
 	    // Configurar indentação
@@ -465,27 +903,18 @@ public class MainController {
 	        }
 	    });
 	    
-	    return codeEditor;
+	    return new HighlightOverlay(codeEditor, highlighter, lineIndex);
 	}
 	
-	private void updateLineColumnInfo(TextArea editor) {
+	// Busca binária nos inícios de linha: não depende do tamanho do arquivo
+	private void updateLineColumnInfo(TextArea editor, LineIndex lineIndex) {
 	    if (editor == null) return;
 	    
 	    int caretPosition = editor.getCaretPosition();
-	    int line = 1;
-	    int column = 1;
-	    
-	    String text = editor.getText();
-	    for (int i = 0; i < caretPosition; i++) {
-	        if (i < text.length() && text.charAt(i) == '\n') {
-	            line++;
-	            column = 1;
-	        } else {
-	            column++;
-	        }
-	    }
+	    int line = lineIndex.lineOf(caretPosition);
+	    int column = caretPosition - lineIndex.lineStart(line);
 	    
-	    lineColumnLabel.setText(" | Linha: " + line + ", Col: " + column);
+	    lineColumnLabel.setText(" | Linha: " + (line + 1) + ", Col: " + (column + 1));
 	}
 
 	@FXML
@@ -495,7 +924,15 @@ public class MainController {
 
 	@FXML
 	private void handleStop() {
-		// Parar execução
+		ExecutionControl control = runningControl;
+		if (control == null) {
+		    updateStatus("Nenhuma execução em andamento");
+		    return;
+		}
+		// O programa para no próximo ponto seguro; a interrupção libera uma espera no 'ler'
+		control.requestStop();
+		analysis.interrupt(execution);
+		updateStatus("Parando execução...");
 	}
 
 	// Menu Help
@@ -0,0 +1,146 @@
+package application.analysis;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+// Executa análises (lexer, parser, verificação, execução) em threads virtuais, uma fila
+// lógica por chave (normalmente a aba). Cada pedido novo para a mesma chave:
+//  - invalida o anterior: se ainda esperava o debounce, nem começa; se já rodava, é
+//    interrompido e o resultado é descartado;
+//  - espera o anterior terminar antes de começar, então duas análises da mesma chave nunca
+//    rodam ao mesmo tempo.
+// O resultado só é entregue na thread do JavaFX, e só se nenhum pedido mais novo chegou até
+// lá; a conferência e a entrega acontecem juntas na thread do JavaFX.
+public class AnalysisScheduler {
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 250;
+
+	private static final class Slot {
+		final AtomicLong generation = new AtomicLong();
+		volatile Thread worker;
+	}
+
+	private final Map<Object, Slot> slots = new ConcurrentHashMap<>();
+	private final long debounceMillis;
+
+	public AnalysisScheduler() {
+		this(DEFAULT_DEBOUNCE_MILLIS);
+	}
+
+	public AnalysisScheduler(long debounceMillis) {
+		this.debounceMillis = debounceMillis;
+	}
+
+	// Agenda com debounce: vários pedidos seguidos viram uma única análise
+	public <T> void schedule(Object key, Callable<T> job, Consumer<T> publish) {
+		submit(key, debounceMillis, job, publish, null);
+	}
+
+	// Começa assim que o trabalho anterior da mesma chave terminar
+	public <T> void submit(Object key, Callable<T> job, Consumer<T> publish, Consumer<Exception> failure) {
+		submit(key, 0, job, publish, failure);
+	}
+
+	// Descarta o trabalho pendente ou em andamento da chave
+	public void cancel(Object key) {
+		Slot slot = slots.get(key);
+		if (slot == null) return;
+		slot.generation.incrementAndGet();
+		Thread worker = slot.worker;
+		if (worker != null) {
+			worker.interrupt();
+		} else {
+			release(key, slot);
+		}
+	}
+
+	// Fila sem trabalho nem entrega pendente sai do mapa, para a chave (uma aba fechada, um
+	// item do Explorer) não ficar presa aqui pela sessão inteira
+	private void release(Object key, Slot slot) {
+		slots.computeIfPresent(key, (_, current) -> current == slot && slot.worker == null ? null : current);
+	}
+
+	// Interrompe esperas do trabalho em andamento (entrada, console) sem descartar o resultado
+	public void interrupt(Object key) {
+		Slot slot = slots.get(key);
+		if (slot == null) return;
+		Thread worker = slot.worker;
+		if (worker != null) worker.interrupt();
+	}
+
+	public void cancelAll() {
+		for (Object key : slots.keySet()) {
+			cancel(key);
+		}
+	}
+
+	// Chamado de dentro de um trabalho: verdadeiro se ele já foi substituído ou cancelado
+	public static boolean cancelled() {
+		return Thread.currentThread().isInterrupted();
+	}
+
+	private static void awaitUninterruptibly(Thread thread) {
+		if (thread == null) return;
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+
+	private <T> void submit(Object key, long delay, Callable<T> job, Consumer<T> publish, Consumer<Exception> failure) {
+		// Dentro do compute a remoção de uma fila ociosa (release) não pode acontecer no meio
+		slots.compute(key, (_, existing) -> {
+			Slot slot = existing != null ? existing : new Slot();
+			start(key, slot, delay, job, publish, failure);
+			return slot;
+		});
+	}
+
+	private <T> void start(Object key, Slot slot, long delay, Callable<T> job, Consumer<T> publish, Consumer<Exception> failure) {
+		long generation;
+		Thread previous;
+		synchronized (slot) {
+			generation = slot.generation.incrementAndGet();
+			previous = slot.worker;
+			if (previous != null) previous.interrupt();
+			Thread worker = Thread.ofVirtual().name("scribo-analise-" + generation).unstarted(() -> {
+				try {
+					if (delay > 0) Thread.sleep(delay);
+					if (previous != null) previous.join();
+					if (slot.generation.get() != generation) return;
+					T result = job.call();
+					Platform.runLater(() -> {
+						if (slot.generation.get() == generation) publish.accept(result);
+					});
+				} catch (InterruptedException e) {
+					// Substituído por um pedido mais novo, que espera por este; este espera pelo
+					// anterior para a corrente de esperas continuar valendo
+					awaitUninterruptibly(previous);
+				} catch (Exception e) {
+					if (failure != null && slot.generation.get() == generation) {
+						Platform.runLater(() -> failure.accept(e));
+					}
+				} finally {
+					boolean last;
+					synchronized (slot) {
+						last = slot.worker == Thread.currentThread();
+						if (last) slot.worker = null;
+					}
+					// Depois da entrega, que também passa pela thread do JavaFX
+					if (last) Platform.runLater(() -> release(key, slot));
+				}
+			});
+			slot.worker = worker;
+			worker.start();
+		}
+	}
+}
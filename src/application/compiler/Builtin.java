@@ -0,0 +1,45 @@
+package application.compiler;
+
+import application.interpreter.OpCode;
+import application.lexer.TokenBuffer;
+
+// Funções embutidas da linguagem que não são palavras-chave. Uma função do usuário com o
+// mesmo nome tem precedência.
+final class Builtin {
+	static final int TAMANHO = 0;
+	static final int ADICIONAR = 1;
+
+	private static final String[] NAMES = { "tamanho", "adicionar" };
+	private static final int[] ARITIES = { 1, 2 };
+	// Instrução que implementa cada uma
+	private static final int[] OPS = { OpCode.LENGTH, OpCode.APPEND };
+	// Tipo do valor devolvido ou Resolution.NONE
+	private static final int[] RETURN_TYPES = { OpCode.TYPE_INT, Resolution.NONE };
+
+	private Builtin() {
+	}
+
+	// Id da função embutida chamada pelo token ou -1
+	static int lookup(TokenBuffer tokens, int token) {
+		for (int id = 0; id < NAMES.length; id++) {
+			if (tokens.lexemeEquals(token, NAMES[id])) return id;
+		}
+		return -1;
+	}
+
+	static String name(int id) {
+		return NAMES[id];
+	}
+
+	static int arity(int id) {
+		return ARITIES[id];
+	}
+
+	static int op(int id) {
+		return OPS[id];
+	}
+
+	static int returnType(int id) {
+		return RETURN_TYPES[id];
+	}
+}
@@ -0,0 +1,578 @@
+package application.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import application.diagnostics.Diagnostic;
+import application.diagnostics.Severity;
+import application.interpreter.Chunk;
+import application.interpreter.ChunkBuilder;
+import application.interpreter.Function;
+import application.interpreter.Lista;
+import application.interpreter.OpCode;
+import application.interpreter.Program;
+import application.interpreter.Value;
+import application.lexer.TokenBuffer;
+import application.lexer.TokenType;
+import application.parser.Ast;
+import application.parser.NodeKind;
+
+// Gera o bytecode a partir da Ast já resolvida. Variáveis viram LOAD/STORE com o slot ou
+// índice global calculado pelo Resolver. Conversões para o tipo declarado (CAST) só são
+// emitidas quando o tipo estático da expressão não garante o resultado.
+public class Compiler {
+	private static final int UNKNOWN = Resolution.NONE;
+	private static final String[] TYPE_NAMES = { "int", "long", "short", "unsigned", "double", "string", "bool", "lista" };
+
+	private final Ast ast;
+	private final TokenBuffer tokens;
+	private final Resolution resolution;
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+	private ChunkBuilder builder;
+	// Nó cujo valor está sendo convertido, para posicionar erros de tipo
+	private int currentNode = -1;
+	private int currentReturnType = UNKNOWN;
+
+	public Compiler(Ast ast, Resolution resolution) {
+		this.ast = ast;
+		this.tokens = ast.tokens();
+		this.resolution = resolution;
+	}
+
+	// Só deve ser chamado se parser e resolver não reportaram erros. Erros de tipo
+	// detectados aqui ficam em diagnostics() e o programa não deve ser executado.
+	public Program compile() {
+		Function[] functions = new Function[resolution.functionCount()];
+		for (int i = 0; i < functions.length; i++) {
+			functions[i] = function(i);
+		}
+
+		builder = new ChunkBuilder();
+		int statements = ast.first(ast.root());
+		for (int i = 0; i < ast.listSize(statements); i++) {
+			int node = ast.listItem(statements, i);
+			if (ast.kind(node) != NodeKind.FUNCTION) {
+				statement(node);
+			}
+		}
+		builder.emit(OpCode.HALT, lastLine());
+		Function main = new Function("principal", new int[0], resolution.mainLocalCount(), OpCode.TYPE_VOID, builder.build());
+		return new Program(main, functions, resolution.globalNames());
+	}
+
+	public List<Diagnostic> diagnostics() {
+		return new ArrayList<>(diagnostics);
+	}
+
+	public boolean hadError() {
+		return !diagnostics.isEmpty();
+	}
+
+	private Function function(int index) {
+		int node = resolution.functionNode(index);
+		builder = new ChunkBuilder();
+		currentReturnType = resolution.returnType(index);
+		// Os argumentos já chegam convertidos para os tipos dos parâmetros
+		int body = ast.second(node);
+		int statements = ast.first(body);
+		for (int i = 0; i < ast.listSize(statements); i++) {
+			statement(ast.listItem(statements, i));
+		}
+		// Funções com retorno sempre terminam num 'retornar' (o Resolver confere)
+		builder.emit(OpCode.RETURN_VOID, ast.line(body));
+		Chunk chunk = builder.build();
+		currentReturnType = UNKNOWN;
+		int[] parameterTypes = new int[resolution.arity(index)];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			parameterTypes[i] = resolution.parameterType(index, i);
+		}
+		int returnType = resolution.returnType(index) == Resolution.NONE ? OpCode.TYPE_VOID : resolution.returnType(index);
+		return new Function(tokens.lexeme(ast.token(node)), parameterTypes, resolution.localCount(index), returnType, chunk);
+	}
+
+	private void statement(int node) {
+		int line = ast.line(node);
+		switch (ast.kind(node)) {
+			case NodeKind.BLOCK: {
+				int statements = ast.first(node);
+				for (int i = 0; i < ast.listSize(statements); i++) {
+					statement(ast.listItem(statements, i));
+				}
+				break;
+			}
+			case NodeKind.VAR_DECL: {
+				int type = resolution.type(node);
+				if (ast.first(node) >= 0) {
+					convert(expression(ast.first(node)), type, line);
+				} else {
+					defaultValue(type, line);
+				}
+				store(node, line);
+				break;
+			}
+			case NodeKind.ASSIGN:
+				assign(node, line);
+				break;
+			case NodeKind.EXPR_STMT: {
+				int call = ast.first(node);
+				call(call);
+				if (callReturnsValue(call)) {
+					builder.emit(OpCode.POP, line);
+				}
+				break;
+			}
+			case NodeKind.IF: {
+				int otherwise = builder.newLabel();
+				int end = builder.newLabel();
+				condition(ast.first(node), line);
+				builder.emitJump(OpCode.JUMP_IF_FALSE, otherwise, line);
+				statement(ast.second(node));
+				if (ast.third(node) >= 0) {
+					builder.emitJump(OpCode.JUMP, end, line);
+					builder.bind(otherwise);
+					statement(ast.third(node));
+				} else {
+					builder.bind(otherwise);
+				}
+				builder.bind(end);
+				break;
+			}
+			case NodeKind.WHILE: {
+				// Condição testada no fim: um único desvio por volta
+				int body = builder.newLabel();
+				int test = builder.newLabel();
+				builder.emitJump(OpCode.JUMP, test, line);
+				builder.bind(body);
+				statement(ast.second(node));
+				builder.bind(test);
+				condition(ast.first(node), line);
+				builder.emitJump(OpCode.JUMP_IF_TRUE, body, line);
+				break;
+			}
+			case NodeKind.FOR: {
+				int parts = ast.first(node);
+				int init = ast.listItem(parts, 0);
+				int condition = ast.listItem(parts, 1);
+				int step = ast.listItem(parts, 2);
+				if (init >= 0) statement(init);
+				int body = builder.newLabel();
+				int test = builder.newLabel();
+				builder.emitJump(OpCode.JUMP, test, line);
+				builder.bind(body);
+				statement(ast.listItem(parts, 3));
+				if (step >= 0) statement(step);
+				builder.bind(test);
+				if (condition >= 0) {
+					condition(condition, line);
+					builder.emitJump(OpCode.JUMP_IF_TRUE, body, line);
+				} else {
+					builder.emitJump(OpCode.JUMP, body, line);
+				}
+				break;
+			}
+			case NodeKind.RETURN:
+				if (ast.first(node) >= 0) {
+					convert(expression(ast.first(node)), currentReturnType, line);
+					builder.emit(OpCode.RETURN, line);
+				} else {
+					builder.emit(OpCode.RETURN_VOID, line);
+				}
+				break;
+			case NodeKind.PRINT: {
+				int arguments = ast.first(node);
+				int count = ast.listSize(arguments);
+				for (int i = 0; i < count; i++) {
+					expression(ast.listItem(arguments, i));
+				}
+				builder.emit(OpCode.PRINT, count, line);
+				break;
+			}
+			case NodeKind.READ: {
+				int target = ast.first(node);
+				builder.emit(OpCode.READ, resolution.type(target), line);
+				store(target, line);
+				break;
+			}
+			default:
+				throw new IllegalStateException("Instrução inesperada: " + NodeKind.name(ast.kind(node)));
+		}
+	}
+
+	private void assign(int node, int line) {
+		int target = ast.first(node);
+		if (ast.kind(target) == NodeKind.INDEX) {
+			assignElement(node, target, line);
+			return;
+		}
+		int type = resolution.type(target);
+		TokenType operator = tokens.type(ast.token(node));
+		if (operator == TokenType.ATRIBUICAO) {
+			convert(expression(ast.second(node)), type, line);
+			store(target, line);
+			return;
+		}
+
+		load(target, line);
+		int valueType;
+		int op;
+		switch (operator) {
+			case INCREMENTO:
+				builder.emit(OpCode.INT, 1, line);
+				valueType = OpCode.TYPE_INT;
+				op = OpCode.ADD;
+				break;
+			case DECREMENTO:
+				builder.emit(OpCode.INT, 1, line);
+				valueType = OpCode.TYPE_INT;
+				op = OpCode.SUB;
+				break;
+			default:
+				valueType = expression(ast.second(node));
+				op = compoundOperator(operator);
+				break;
+		}
+		builder.emit(op, line);
+		convert(arithmeticType(op, type, valueType), type, line);
+		store(target, line);
+	}
+
+	// l[i] := v e variações compostas; os elementos não têm tipo declarado
+	private void assignElement(int node, int target, int line) {
+		indexOperands(target, line);
+		TokenType operator = tokens.type(ast.token(node));
+		if (operator == TokenType.ATRIBUICAO) {
+			expression(ast.second(node));
+			builder.emit(OpCode.INDEX_SET, line);
+			return;
+		}
+		builder.emit(OpCode.DUP2, line);
+		builder.emit(OpCode.INDEX_GET, line);
+		switch (operator) {
+			case INCREMENTO:
+				builder.emit(OpCode.INT, 1, line);
+				builder.emit(OpCode.ADD, line);
+				break;
+			case DECREMENTO:
+				builder.emit(OpCode.INT, 1, line);
+				builder.emit(OpCode.SUB, line);
+				break;
+			default:
+				expression(ast.second(node));
+				builder.emit(compoundOperator(operator), line);
+				break;
+		}
+		builder.emit(OpCode.INDEX_SET, line);
+	}
+
+	// Empilha a lista e o índice de um nó INDEX
+	private void indexOperands(int node, int line) {
+		listOperand(ast.first(node));
+		int index = expression(ast.second(node));
+		if (index != UNKNOWN && !isInteger(index)) {
+			error(ast.second(node), "CMP002", "Índice da lista deve ser inteiro, encontrado " + TYPE_NAMES[index]);
+		}
+	}
+
+	private static int compoundOperator(TokenType operator) {
+		switch (operator) {
+			case SOMA_ATRIBUICAO: return OpCode.ADD;
+			case SUBTRACAO_ATRIBUICAO: return OpCode.SUB;
+			case MULTIPLICACAO_ATRIBUICAO: return OpCode.MUL;
+			case DIVISAO_ATRIBUICAO: return OpCode.DIV;
+			default: return OpCode.MOD;
+		}
+	}
+
+	private void condition(int node, int line) {
+		int type = expression(node);
+		// Tipo desconhecido é conferido pela máquina no desvio; um tipo errado conhecido é erro aqui
+		if (type != OpCode.TYPE_BOOL && type != UNKNOWN) {
+			convert(type, OpCode.TYPE_BOOL, line);
+		}
+	}
+
+	// Compila a expressão e devolve seu tipo estático (OpCode.TYPE_*) ou UNKNOWN
+	private int expression(int node) {
+		currentNode = node;
+		int type = compileExpression(node);
+		currentNode = node;
+		return type;
+	}
+
+	private int compileExpression(int node) {
+		int line = ast.line(node);
+		int token = ast.token(node);
+		switch (ast.kind(node)) {
+			case NodeKind.INT_LITERAL: {
+				long value = tokens.literalBits(tokens.literalIndex(token));
+				builder.emitConstant(value, line);
+				return OpCode.TYPE_INT;
+			}
+			case NodeKind.DOUBLE_LITERAL:
+				builder.emitConstant(Double.longBitsToDouble(tokens.literalBits(tokens.literalIndex(token))), line);
+				return OpCode.TYPE_DOUBLE;
+			case NodeKind.TEXT_LITERAL:
+				builder.emitConstant((String) tokens.literal(token), line);
+				return OpCode.TYPE_TEXT;
+			case NodeKind.BOOL_LITERAL:
+				builder.emit(tokens.lexemeEquals(token, "verdadeiro") ? OpCode.TRUE : OpCode.FALSE, line);
+				return OpCode.TYPE_BOOL;
+			case NodeKind.NAME:
+				load(node, line);
+				return resolution.type(node);
+			case NodeKind.UNARY: {
+				int operand = ast.first(node);
+				if (tokens.type(token) == TokenType.NAO_LOGICO) {
+					expression(operand);
+					builder.emit(OpCode.NOT, line);
+					return OpCode.TYPE_BOOL;
+				}
+				// Números negativos literais viram uma constante só
+				if (ast.kind(operand) == NodeKind.INT_LITERAL) {
+					builder.emitConstant(-tokens.literalBits(tokens.literalIndex(ast.token(operand))), line);
+					return OpCode.TYPE_INT;
+				}
+				int type = expression(operand);
+				builder.emit(OpCode.NEG, line);
+				return type;
+			}
+			case NodeKind.BINARY:
+				return binary(node, line);
+			case NodeKind.CALL:
+				return call(node);
+			case NodeKind.LIST: {
+				int elements = ast.first(node);
+				int count = ast.listSize(elements);
+				// Literais só com constantes vêm prontos do pool e são apenas copiados na execução
+				if (count > 0 && isConstant(node)) {
+					builder.emit(OpCode.CONST_LIST, builder.addConstant(constantList(node)), line);
+					return OpCode.TYPE_LIST;
+				}
+				for (int i = 0; i < count; i++) {
+					expression(ast.listItem(elements, i));
+				}
+				builder.emit(OpCode.NEW_LIST, count, line);
+				return OpCode.TYPE_LIST;
+			}
+			case NodeKind.INDEX:
+				indexOperands(node, line);
+				builder.emit(OpCode.INDEX_GET, line);
+				// O tipo do elemento só é conhecido na execução
+				return UNKNOWN;
+			default:
+				throw new IllegalStateException("Expressão inesperada: " + NodeKind.name(ast.kind(node)));
+		}
+	}
+
+	// A máquina confere que o operando é uma lista; aqui só se rejeita um tipo conhecido errado
+	private void listOperand(int node) {
+		int type = expression(node);
+		if (type != UNKNOWN && type != OpCode.TYPE_LIST) {
+			error(node, "CMP001", "Tipo incompatível: esperado lista, encontrado " + TYPE_NAMES[type]);
+		}
+	}
+
+	private boolean isConstant(int node) {
+		switch (ast.kind(node)) {
+			case NodeKind.INT_LITERAL:
+			case NodeKind.DOUBLE_LITERAL:
+			case NodeKind.TEXT_LITERAL:
+			case NodeKind.BOOL_LITERAL:
+				return true;
+			case NodeKind.UNARY:
+				return tokens.type(ast.token(node)) == TokenType.SUBTRACAO && isNumberLiteral(ast.first(node));
+			case NodeKind.LIST: {
+				int elements = ast.first(node);
+				for (int i = 0; i < ast.listSize(elements); i++) {
+					if (!isConstant(ast.listItem(elements, i))) return false;
+				}
+				return true;
+			}
+			default:
+				return false;
+		}
+	}
+
+	private boolean isNumberLiteral(int node) {
+		return ast.kind(node) == NodeKind.INT_LITERAL || ast.kind(node) == NodeKind.DOUBLE_LITERAL;
+	}
+
+	// Monta em tempo de compilação a lista de um literal constante
+	private Lista constantList(int node) {
+		int elements = ast.first(node);
+		Lista list = new Lista(ast.listSize(elements));
+		for (int i = 0; i < ast.listSize(elements); i++) {
+			int element = ast.listItem(elements, i);
+			boolean negative = ast.kind(element) == NodeKind.UNARY;
+			if (negative) {
+				element = ast.first(element);
+			}
+			int token = ast.token(element);
+			switch (ast.kind(element)) {
+				case NodeKind.INT_LITERAL: {
+					long value = tokens.literalBits(tokens.literalIndex(token));
+					list.add(Value.INT, negative ? -value : value, null);
+					break;
+				}
+				case NodeKind.DOUBLE_LITERAL: {
+					double value = Double.longBitsToDouble(tokens.literalBits(tokens.literalIndex(token)));
+					list.add(Value.DOUBLE, Double.doubleToRawLongBits(negative ? -value : value), null);
+					break;
+				}
+				case NodeKind.TEXT_LITERAL:
+					list.add(Value.TEXT, 0, tokens.literal(token));
+					break;
+				case NodeKind.BOOL_LITERAL:
+					list.add(Value.BOOL, tokens.lexemeEquals(token, "verdadeiro") ? 1 : 0, null);
+					break;
+				default:
+					list.add(Value.LIST, 0, constantList(element));
+					break;
+			}
+		}
+		return list;
+	}
+
+	private int binary(int node, int line) {
+		TokenType operator = tokens.type(ast.token(node));
+		if (operator == TokenType.E || operator == TokenType.OU) {
+			// Curto-circuito: o lado direito só é avaliado se necessário
+			int end = builder.newLabel();
+			expression(ast.first(node));
+			builder.emitJump(operator == TokenType.E ? OpCode.AND_JUMP : OpCode.OR_JUMP, end, line);
+			expression(ast.second(node));
+			builder.bind(end);
+			return OpCode.TYPE_BOOL;
+		}
+
+		int left = expression(ast.first(node));
+		int right = expression(ast.second(node));
+		switch (operator) {
+			case SOMA: builder.emit(OpCode.ADD, line); return arithmeticType(OpCode.ADD, left, right);
+			case SUBTRACAO: builder.emit(OpCode.SUB, line); return arithmeticType(OpCode.SUB, left, right);
+			case MULTIPLICACAO: builder.emit(OpCode.MUL, line); return arithmeticType(OpCode.MUL, left, right);
+			case DIVISAO: builder.emit(OpCode.DIV, line); return arithmeticType(OpCode.DIV, left, right);
+			case MODULO: builder.emit(OpCode.MOD, line); return arithmeticType(OpCode.MOD, left, right);
+			case IGUAL: builder.emit(OpCode.EQ, line); break;
+			case DIFERENTE: builder.emit(OpCode.NE, line); break;
+			case MENOR: builder.emit(OpCode.LT, line); break;
+			case MENOR_IGUAL: builder.emit(OpCode.LE, line); break;
+			case MAIOR: builder.emit(OpCode.GT, line); break;
+			default: builder.emit(OpCode.GE, line); break;
+		}
+		return OpCode.TYPE_BOOL;
+	}
+
+	// Tipo estático do resultado: inteiros operam como long, double contamina, '+' com texto concatena
+	private static int arithmeticType(int op, int left, int right) {
+		if (left == UNKNOWN || right == UNKNOWN) return UNKNOWN;
+		if (op == OpCode.ADD && (left == OpCode.TYPE_TEXT || right == OpCode.TYPE_TEXT)) return OpCode.TYPE_TEXT;
+		if (isInteger(left) && isInteger(right)) return OpCode.TYPE_LONG;
+		if (isNumber(left) && isNumber(right)) return OpCode.TYPE_DOUBLE;
+		return UNKNOWN;
+	}
+
+	private int call(int node) {
+		int line = ast.line(node);
+		int token = ast.token(node);
+		int arguments = ast.first(node);
+		int count = ast.listSize(arguments);
+		if (tokens.type(token) == TokenType.FORMATAR) {
+			for (int i = 0; i < count; i++) {
+				expression(ast.listItem(arguments, i));
+			}
+			builder.emit(OpCode.FORMAT, count, line);
+			return OpCode.TYPE_TEXT;
+		}
+
+		if (resolution.scope(node) == Resolution.BUILTIN) {
+			// Todas as funções embutidas recebem a lista como primeiro argumento
+			int id = resolution.index(node);
+			listOperand(ast.listItem(arguments, 0));
+			for (int i = 1; i < count; i++) {
+				expression(ast.listItem(arguments, i));
+			}
+			builder.emit(Builtin.op(id), line);
+			return Builtin.returnType(id);
+		}
+
+		int function = resolution.index(node);
+		for (int i = 0; i < count; i++) {
+			convert(expression(ast.listItem(arguments, i)), resolution.parameterType(function, i), line);
+		}
+		boolean returnsValue = resolution.returnType(function) != Resolution.NONE;
+		builder.emitCall(function, count, returnsValue, line);
+		return returnsValue ? resolution.returnType(function) : UNKNOWN;
+	}
+
+	private boolean callReturnsValue(int node) {
+		if (tokens.type(ast.token(node)) == TokenType.FORMATAR) return true;
+		if (resolution.scope(node) == Resolution.BUILTIN) return Builtin.returnType(resolution.index(node)) != Resolution.NONE;
+		return resolution.returnType(resolution.index(node)) != Resolution.NONE;
+	}
+
+	private void load(int node, int line) {
+		int op = resolution.scope(node) == Resolution.LOCAL ? OpCode.LOAD_LOCAL : OpCode.LOAD_GLOBAL;
+		builder.emit(op, resolution.index(node), line);
+	}
+
+	private void store(int node, int line) {
+		int op = resolution.scope(node) == Resolution.LOCAL ? OpCode.STORE_LOCAL : OpCode.STORE_GLOBAL;
+		builder.emit(op, resolution.index(node), line);
+	}
+
+	// Converte o topo da pilha do tipo estático 'from' para o tipo declarado 'to'
+	private void convert(int from, int to, int line) {
+		if (to == UNKNOWN || fits(from, to)) return;
+		if (from != UNKNOWN && group(from) != group(to)) {
+			error(currentNode, "CMP001", "Tipo incompatível: esperado " + TYPE_NAMES[to] + ", encontrado " + TYPE_NAMES[from]);
+			return;
+		}
+		builder.emit(OpCode.CAST, to, line);
+	}
+
+	// Números convertem entre si; texto e lógico só aceitam o próprio tipo
+	private static int group(int type) {
+		return isNumber(type) ? OpCode.TYPE_DOUBLE : type;
+	}
+
+	// Um valor do tipo 'from' já é válido como 'to' sem conversão?
+	private static boolean fits(int from, int to) {
+		if (from == to) return true;
+		switch (to) {
+			case OpCode.TYPE_LONG: return from == OpCode.TYPE_INT || from == OpCode.TYPE_SHORT || from == OpCode.TYPE_UNSIGNED;
+			case OpCode.TYPE_INT: return from == OpCode.TYPE_SHORT;
+			default: return false;
+		}
+	}
+
+	private void defaultValue(int type, int line) {
+		switch (type) {
+			case OpCode.TYPE_DOUBLE: builder.emitConstant(0.0, line); break;
+			case OpCode.TYPE_TEXT: builder.emitConstant("", line); break;
+			case OpCode.TYPE_BOOL: builder.emit(OpCode.FALSE, line); break;
+			case OpCode.TYPE_LIST: builder.emit(OpCode.NEW_LIST, 0, line); break;
+			default: builder.emit(OpCode.INT, 0, line); break;
+		}
+	}
+
+	private static boolean isInteger(int type) {
+		return type == OpCode.TYPE_INT || type == OpCode.TYPE_LONG || type == OpCode.TYPE_SHORT || type == OpCode.TYPE_UNSIGNED;
+	}
+
+	private static boolean isNumber(int type) {
+		return isInteger(type) || type == OpCode.TYPE_DOUBLE;
+	}
+
+	private void error(int node, String code, String message) {
+		int token = ast.token(node);
+		int offset = tokens.start(token);
+		int column = offset - tokens.source().lastIndexOf('\n', offset - 1);
+		diagnostics.add(new Diagnostic(Severity.ERRO, code, message, tokens.line(token), column, offset, tokens.length(token)));
+	}
+
+	private int lastLine() {
+		int count = tokens.size();
+		return count == 0 ? 1 : tokens.line(count - 1);
+	}
+}
@@ -0,0 +1,134 @@
+package application.compiler;
+
+import java.util.Arrays;
+
+// Resultado do Resolver: para cada nó que usa ou declara uma variável, onde ela mora (slot
+// local do frame ou índice na tabela de globais) e seu tipo declarado; para cada chamada, o
+// índice da função (ou, com escopo BUILTIN, o id da função embutida). Tudo em arrays
+// indexados pelo nó da Ast.
+public final class Resolution {
+	public static final int NONE = -1;
+	public static final int LOCAL = 0;
+	public static final int GLOBAL = 1;
+	public static final int BUILTIN = 2;
+
+	// Por nó
+	final int[] scopes;
+	final int[] indexes;
+	final int[] types;
+
+	// Por função, na ordem de declaração
+	int functionCount = 0;
+	int[] functionNodes = new int[8];
+	int[] arities = new int[8];
+	int[] localCounts = new int[8];
+	int[] returnTypes = new int[8];
+	int[][] parameterTypes = new int[8][];
+
+	int mainLocalCount = 0;
+
+	int globalCount = 0;
+	String[] globalNames = new String[16];
+	int[] globalTypes = new int[16];
+
+	Resolution(int nodeCount) {
+		scopes = new int[nodeCount];
+		indexes = new int[nodeCount];
+		types = new int[nodeCount];
+		Arrays.fill(scopes, NONE);
+		Arrays.fill(indexes, NONE);
+		Arrays.fill(types, NONE);
+	}
+
+	// LOCAL, GLOBAL, BUILTIN (chamadas) ou NONE
+	public int scope(int node) {
+		return scopes[node];
+	}
+
+	// Slot, índice global ou, numa chamada, índice da função (NONE para 'formatar')
+	public int index(int node) {
+		return indexes[node];
+	}
+
+	// Tipo declarado da variável (OpCode.TYPE_*)
+	public int type(int node) {
+		return types[node];
+	}
+
+	public int functionCount() {
+		return functionCount;
+	}
+
+	public int functionNode(int function) {
+		return functionNodes[function];
+	}
+
+	public int arity(int function) {
+		return arities[function];
+	}
+
+	public int localCount(int function) {
+		return localCounts[function];
+	}
+
+	// Tipo de retorno (OpCode.TYPE_*) ou NONE para funções sem retorno
+	public int returnType(int function) {
+		return returnTypes[function];
+	}
+
+	public int parameterType(int function, int parameter) {
+		return parameterTypes[function][parameter];
+	}
+
+	public int mainLocalCount() {
+		return mainLocalCount;
+	}
+
+	public int globalCount() {
+		return globalCount;
+	}
+
+	public String globalName(int global) {
+		return globalNames[global];
+	}
+
+	public int globalType(int global) {
+		return globalTypes[global];
+	}
+
+	String[] globalNames() {
+		return Arrays.copyOf(globalNames, globalCount);
+	}
+
+	int addFunction(int node, int arity, int returnType, int[] parameters) {
+		if (functionCount == functionNodes.length) {
+			int capacity = functionCount * 2;
+			functionNodes = Arrays.copyOf(functionNodes, capacity);
+			arities = Arrays.copyOf(arities, capacity);
+			localCounts = Arrays.copyOf(localCounts, capacity);
+			returnTypes = Arrays.copyOf(returnTypes, capacity);
+			parameterTypes = Arrays.copyOf(parameterTypes, capacity);
+		}
+		functionNodes[functionCount] = node;
+		arities[functionCount] = arity;
+		returnTypes[functionCount] = returnType;
+		parameterTypes[functionCount] = parameters;
+		return functionCount++;
+	}
+
+	int addGlobal(String name, int type) {
+		if (globalCount == globalNames.length) {
+			globalNames = Arrays.copyOf(globalNames, globalCount * 2);
+			globalTypes = Arrays.copyOf(globalTypes, globalCount * 2);
+		}
+		globalNames[globalCount] = name;
+		globalTypes[globalCount] = type;
+		return globalCount++;
+	}
+
+	void bind(int node, int scope, int index, int type) {
+		scopes[node] = scope;
+		indexes[node] = index;
+		types[node] = type;
+	}
+}
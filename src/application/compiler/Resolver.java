@@ -0,0 +1,451 @@
+package application.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import application.diagnostics.Diagnostic;
+import application.diagnostics.Severity;
+import application.interpreter.OpCode;
+import application.lexer.TokenBuffer;
+import application.lexer.TokenType;
+import application.parser.Ast;
+import application.parser.NodeKind;
+
+// Resolve nomes antes da compilação. Variáveis do nível superior viram globais com índice
+// fixo; as de blocos e funções recebem um slot no frame, reaproveitado quando o bloco
+// termina. As tabelas são indexadas pelo id do símbolo, então nenhum nome é procurado em
+// HashMap aqui nem na execução.
+public class Resolver {
+	private final Ast ast;
+	private final TokenBuffer tokens;
+	private final Resolution resolution;
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+	// Estado atual de cada símbolo
+	private final int[] localSlots;
+	private final int[] localDepths;
+	private final int[] localTypes;
+	private final int[] globalIndexes;
+	private final int[] functionIndexes;
+
+	// Declarações locais a desfazer na saída do escopo: símbolo, slot, profundidade e tipo anteriores
+	private int[] undo = new int[64];
+	private int undoSize = 0;
+
+	// Profundidade 0 é o nível global
+	private int depth = 0;
+	private int nextSlot = 0;
+	private int maxSlot = 0;
+	private int currentFunction = -1;
+	private boolean resolved = false;
+
+	public Resolver(Ast ast) {
+		this.ast = ast;
+		this.tokens = ast.tokens();
+		this.resolution = new Resolution(ast.size());
+		int symbolCount = tokens.symbols().size();
+		localSlots = new int[symbolCount];
+		localDepths = new int[symbolCount];
+		localTypes = new int[symbolCount];
+		globalIndexes = new int[symbolCount];
+		functionIndexes = new int[symbolCount];
+		Arrays.fill(localSlots, -1);
+		Arrays.fill(globalIndexes, -1);
+		Arrays.fill(functionIndexes, -1);
+	}
+
+	public Resolution resolve() {
+		if (resolved) return resolution;
+		resolved = true;
+
+		int statements = ast.first(ast.root());
+		// Primeiro as assinaturas, para permitir chamadas a funções declaradas mais abaixo
+		for (int i = 0; i < ast.listSize(statements); i++) {
+			int node = ast.listItem(statements, i);
+			if (ast.kind(node) == NodeKind.FUNCTION) {
+				declareFunction(node);
+			}
+		}
+		// Os índices das funções seguem a ordem de declaração
+		int function = 0;
+		for (int i = 0; i < ast.listSize(statements); i++) {
+			int node = ast.listItem(statements, i);
+			if (ast.kind(node) == NodeKind.FUNCTION) {
+				function(node, function++);
+			} else {
+				statement(node);
+			}
+		}
+		resolution.mainLocalCount = Math.max(resolution.mainLocalCount, maxSlot);
+		return resolution;
+	}
+
+	public List<Diagnostic> diagnostics() {
+		return new ArrayList<>(diagnostics);
+	}
+
+	public boolean hadError() {
+		return !diagnostics.isEmpty();
+	}
+
+	private void declareFunction(int node) {
+		int name = ast.token(node);
+		int symbol = tokens.symbol(name);
+		int parameters = ast.first(node);
+		int arity = ast.listSize(parameters);
+		int[] parameterTypes = new int[arity];
+		for (int i = 0; i < arity; i++) {
+			parameterTypes[i] = typeOf(ast.first(ast.listItem(parameters, i)));
+		}
+		int returnType = ast.third(node) < 0 ? Resolution.NONE : typeOf(ast.third(node));
+
+		int index = resolution.addFunction(node, arity, returnType, parameterTypes);
+		if (functionIndexes[symbol] >= 0) {
+			error(name, "RES003", "Função '" + tokens.lexeme(name) + "' já declarada");
+			return;
+		}
+		functionIndexes[symbol] = index;
+	}
+
+	private void function(int node, int index) {
+		// Funções só enxergam as globais declaradas antes delas
+		int mainSlot = nextSlot;
+		int mainMax = maxSlot;
+		currentFunction = index;
+		depth = 1;
+		nextSlot = 0;
+		maxSlot = 0;
+
+		int mark = undoSize;
+		int parameters = ast.first(node);
+		for (int i = 0; i < ast.listSize(parameters); i++) {
+			int parameter = ast.listItem(parameters, i);
+			declare(parameter, ast.token(parameter), resolution.parameterType(index, i));
+		}
+		// O corpo divide o escopo com os parâmetros
+		int body = ast.second(node);
+		int statements = ast.first(body);
+		for (int i = 0; i < ast.listSize(statements); i++) {
+			statement(ast.listItem(statements, i));
+		}
+		exitScope(mark);
+
+		if (resolution.returnType(index) != Resolution.NONE && !alwaysReturns(body)) {
+			error(ast.token(node), "RES009", "Função '" + tokens.lexeme(ast.token(node)) + "' pode terminar sem retornar um valor");
+		}
+
+		resolution.localCounts[index] = maxSlot;
+		currentFunction = -1;
+		depth = 0;
+		nextSlot = mainSlot;
+		maxSlot = mainMax;
+	}
+
+	private void statement(int node) {
+		switch (ast.kind(node)) {
+			case NodeKind.BLOCK: {
+				int mark = enterScope();
+				int statements = ast.first(node);
+				for (int i = 0; i < ast.listSize(statements); i++) {
+					statement(ast.listItem(statements, i));
+				}
+				exitScope(mark);
+				break;
+			}
+			case NodeKind.VAR_DECL: {
+				int type = typeOf(ast.second(node));
+				// O valor inicial é resolvido antes: 'int x := x;' não enxerga o próprio x
+				if (ast.first(node) >= 0) {
+					expression(ast.first(node));
+				}
+				declare(node, ast.token(node), type);
+				break;
+			}
+			case NodeKind.ASSIGN:
+				target(ast.first(node));
+				if (ast.second(node) >= 0) {
+					expression(ast.second(node));
+				}
+				break;
+			case NodeKind.EXPR_STMT:
+				call(ast.first(node), false);
+				break;
+			case NodeKind.IF:
+				expression(ast.first(node));
+				statement(ast.second(node));
+				if (ast.third(node) >= 0) {
+					statement(ast.third(node));
+				}
+				break;
+			case NodeKind.WHILE:
+				expression(ast.first(node));
+				statement(ast.second(node));
+				break;
+			case NodeKind.FOR: {
+				// A variável do início só existe dentro do 'para'
+				int mark = enterScope();
+				int parts = ast.first(node);
+				int init = ast.listItem(parts, 0);
+				int condition = ast.listItem(parts, 1);
+				int step = ast.listItem(parts, 2);
+				if (init >= 0) statement(init);
+				if (condition >= 0) expression(condition);
+				if (step >= 0) statement(step);
+				statement(ast.listItem(parts, 3));
+				exitScope(mark);
+				break;
+			}
+			case NodeKind.RETURN:
+				returnStatement(node);
+				break;
+			case NodeKind.PRINT: {
+				int arguments = ast.first(node);
+				for (int i = 0; i < ast.listSize(arguments); i++) {
+					expression(ast.listItem(arguments, i));
+				}
+				break;
+			}
+			case NodeKind.READ: {
+				int target = ast.first(node);
+				if (ast.kind(target) == NodeKind.INDEX) {
+					error(ast.token(target), "RES014", "'ler' precisa de uma variável; leia numa variável e atribua ao elemento depois");
+					expression(target);
+					break;
+				}
+				name(target);
+				if (resolution.type(target) == OpCode.TYPE_LIST) {
+					error(ast.token(target), "RES015", "'ler' não aceita variáveis do tipo lista");
+				}
+				break;
+			}
+			default:
+				throw new IllegalStateException("Instrução inesperada: " + NodeKind.name(ast.kind(node)));
+		}
+	}
+
+	private void returnStatement(int node) {
+		int keyword = ast.token(node);
+		if (currentFunction < 0) {
+			error(keyword, "RES006", "'retornar' só pode ser usado dentro de funções");
+			return;
+		}
+		boolean hasValue = ast.first(node) >= 0;
+		if (hasValue) {
+			expression(ast.first(node));
+		}
+		boolean returnsValue = resolution.returnType(currentFunction) != Resolution.NONE;
+		if (hasValue && !returnsValue) {
+			error(keyword, "RES007", "Função sem tipo de retorno não pode retornar um valor");
+		} else if (!hasValue && returnsValue) {
+			error(keyword, "RES008", "'retornar' precisa de um valor nesta função");
+		}
+	}
+
+	private void target(int node) {
+		if (ast.kind(node) == NodeKind.INDEX) {
+			expression(node);
+			return;
+		}
+		name(node);
+	}
+
+	private void expression(int node) {
+		switch (ast.kind(node)) {
+			case NodeKind.INT_LITERAL:
+			case NodeKind.DOUBLE_LITERAL:
+			case NodeKind.TEXT_LITERAL:
+			case NodeKind.BOOL_LITERAL:
+				break;
+			case NodeKind.NAME:
+				name(node);
+				break;
+			case NodeKind.UNARY:
+				expression(ast.first(node));
+				break;
+			case NodeKind.BINARY:
+				expression(ast.first(node));
+				expression(ast.second(node));
+				break;
+			case NodeKind.CALL:
+				call(node, true);
+				break;
+			case NodeKind.LIST: {
+				int elements = ast.first(node);
+				for (int i = 0; i < ast.listSize(elements); i++) {
+					expression(ast.listItem(elements, i));
+				}
+				break;
+			}
+			case NodeKind.INDEX:
+				expression(ast.first(node));
+				expression(ast.second(node));
+				break;
+			default:
+				throw new IllegalStateException("Expressão inesperada: " + NodeKind.name(ast.kind(node)));
+		}
+	}
+
+	private void name(int node) {
+		int token = ast.token(node);
+		int symbol = tokens.symbol(token);
+		if (localSlots[symbol] >= 0) {
+			resolution.bind(node, Resolution.LOCAL, localSlots[symbol], localTypes[symbol]);
+		} else if (globalIndexes[symbol] >= 0) {
+			int global = globalIndexes[symbol];
+			resolution.bind(node, Resolution.GLOBAL, global, resolution.globalType(global));
+		} else if (functionIndexes[symbol] >= 0) {
+			error(token, "RES011", "'" + tokens.lexeme(token) + "' é uma função; use " + tokens.lexeme(token) + "(...) para chamá-la");
+		} else {
+			error(token, "RES001", "Variável '" + tokens.lexeme(token) + "' não declarada");
+		}
+	}
+
+	private void call(int node, boolean needsValue) {
+		int token = ast.token(node);
+		int arguments = ast.first(node);
+		int count = ast.listSize(arguments);
+		for (int i = 0; i < count; i++) {
+			expression(ast.listItem(arguments, i));
+		}
+
+		if (tokens.type(token) == TokenType.FORMATAR) {
+			if (count < 1 || count > 2) {
+				error(token, "RES004", "formatar espera 1 ou 2 argumentos, recebeu " + count);
+			}
+			return;
+		}
+
+		int function = functionIndexes[tokens.symbol(token)];
+		if (function < 0) {
+			builtin(node, token, count, needsValue);
+			return;
+		}
+		resolution.indexes[node] = function;
+		if (count != resolution.arity(function)) {
+			error(token, "RES004", "Função '" + tokens.lexeme(token) + "' espera " + resolution.arity(function)
+					+ " argumento(s), recebeu " + count);
+		}
+		if (needsValue && resolution.returnType(function) == Resolution.NONE) {
+			error(token, "RES005", "Função '" + tokens.lexeme(token) + "' não retorna valor");
+		}
+	}
+
+	private void builtin(int node, int token, int count, boolean needsValue) {
+		int id = Builtin.lookup(tokens, token);
+		if (id < 0) {
+			error(token, "RES002", "Função '" + tokens.lexeme(token) + "' não declarada");
+			return;
+		}
+		resolution.bind(node, Resolution.BUILTIN, id, Builtin.returnType(id));
+		if (count != Builtin.arity(id)) {
+			error(token, "RES004", Builtin.name(id) + " espera " + Builtin.arity(id) + " argumento(s), recebeu " + count);
+		}
+		if (needsValue && Builtin.returnType(id) == Resolution.NONE) {
+			error(token, "RES005", "Função '" + Builtin.name(id) + "' não retorna valor");
+		}
+	}
+
+	private void declare(int node, int name, int type) {
+		int symbol = tokens.symbol(name);
+		if (depth == 0) {
+			if (globalIndexes[symbol] >= 0) {
+				error(name, "RES012", "Variável '" + tokens.lexeme(name) + "' já declarada");
+				resolution.bind(node, Resolution.GLOBAL, globalIndexes[symbol], type);
+				return;
+			}
+			if (functionIndexes[symbol] >= 0) {
+				error(name, "RES013", "'" + tokens.lexeme(name) + "' já é o nome de uma função");
+			}
+			int global = resolution.addGlobal(tokens.lexeme(name), type);
+			globalIndexes[symbol] = global;
+			resolution.bind(node, Resolution.GLOBAL, global, type);
+			return;
+		}
+
+		if (localSlots[symbol] >= 0 && localDepths[symbol] == depth) {
+			error(name, "RES012", "Variável '" + tokens.lexeme(name) + "' já declarada neste bloco");
+		}
+		if (undoSize + 4 > undo.length) {
+			undo = Arrays.copyOf(undo, undo.length * 2);
+		}
+		undo[undoSize++] = symbol;
+		undo[undoSize++] = localSlots[symbol];
+		undo[undoSize++] = localDepths[symbol];
+		undo[undoSize++] = localTypes[symbol];
+
+		int slot = nextSlot++;
+		maxSlot = Math.max(maxSlot, nextSlot);
+		localSlots[symbol] = slot;
+		localDepths[symbol] = depth;
+		localTypes[symbol] = type;
+		resolution.bind(node, Resolution.LOCAL, slot, type);
+	}
+
+	// Devolve a marca para exitScope (desfazer e slot livre no início do escopo)
+	private int enterScope() {
+		depth++;
+		return undoSize;
+	}
+
+	private void exitScope(int mark) {
+		while (undoSize > mark) {
+			int type = undo[--undoSize];
+			int previousDepth = undo[--undoSize];
+			int previousSlot = undo[--undoSize];
+			int symbol = undo[--undoSize];
+			localSlots[symbol] = previousSlot;
+			localDepths[symbol] = previousDepth;
+			localTypes[symbol] = type;
+			// Os slots liberados voltam a ser usados pelo próximo bloco
+			nextSlot--;
+		}
+		depth--;
+		if (currentFunction < 0) {
+			resolution.mainLocalCount = Math.max(resolution.mainLocalCount, maxSlot);
+		}
+	}
+
+	// Toda execução do nó termina em 'retornar'?
+	private boolean alwaysReturns(int node) {
+		switch (ast.kind(node)) {
+			case NodeKind.RETURN:
+				return true;
+			case NodeKind.BLOCK: {
+				int statements = ast.first(node);
+				for (int i = 0; i < ast.listSize(statements); i++) {
+					if (alwaysReturns(ast.listItem(statements, i))) return true;
+				}
+				return false;
+			}
+			case NodeKind.IF:
+				return ast.third(node) >= 0 && alwaysReturns(ast.second(node)) && alwaysReturns(ast.third(node));
+			default:
+				return false;
+		}
+	}
+
+	// Tipo da máquina virtual para um token de tipo
+	private int typeOf(int typeToken) {
+		switch (tokens.type(typeToken)) {
+			case NUMERO:
+				// 'float' também é NUMERO no lexer, mas guarda valores com casas decimais
+				return tokens.lexemeEquals(typeToken, "float") ? OpCode.TYPE_DOUBLE : OpCode.TYPE_INT;
+			case LONG: return OpCode.TYPE_LONG;
+			case SHORT: return OpCode.TYPE_SHORT;
+			case UNSIGNED: return OpCode.TYPE_UNSIGNED;
+			case DOUBLE: return OpCode.TYPE_DOUBLE;
+			case TEXTO: return OpCode.TYPE_TEXT;
+			case LOGICO: return OpCode.TYPE_BOOL;
+			case LISTA: return OpCode.TYPE_LIST;
+			default:
+				return Resolution.NONE;
+		}
+	}
+
+	private void error(int token, String code, String message) {
+		int offset = tokens.start(token);
+		int column = offset - tokens.source().lastIndexOf('\n', offset - 1);
+		diagnostics.add(new Diagnostic(Severity.ERRO, code, message, tokens.line(token), column, offset, tokens.length(token)));
+	}
+}
@@ -0,0 +1,183 @@
+package application.console;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javafx.collections.ObservableListBase;
+
+// Linhas do console guardadas em blocos de LINES_PER_CHUNK linhas: cada bloco tem um único
+// char[] com o texto das linhas e um int[] com onde cada uma termina. O String de uma linha só
+// é criado quando o ListView pede uma célula visível. A última linha fica aberta enquanto não
+// chegar o '\n' e continua recebendo texto. Passando de maxLines linhas ou maxChars caracteres,
+// as linhas mais antigas são descartadas e contadas.
+public class ConsoleLines extends ObservableListBase<String> {
+	static final int LINES_PER_CHUNK = 4096;
+
+	private static final class Chunk {
+		char[] text = new char[256];
+		int length = 0;
+		final int[] ends = new int[LINES_PER_CHUNK];
+		int count = 0;
+
+		int start(int line) {
+			return line == 0 ? 0 : ends[line - 1];
+		}
+
+		void append(CharSequence source, int from, int to) {
+			int needed = length + to - from;
+			if (needed > text.length) {
+				text = Arrays.copyOf(text, Math.max(needed, text.length * 2));
+			}
+			for (int i = from; i < to; i++) {
+				text[length++] = source.charAt(i);
+			}
+		}
+	}
+
+	private final ArrayList<Chunk> chunks = new ArrayList<>();
+	private final int maxLines;
+	private final long maxChars;
+	// Linhas já descartadas do começo do primeiro bloco
+	private int firstLine = 0;
+	private int size = 0;
+	private long chars = 0;
+	private boolean open = false;
+	private long droppedLines = 0;
+
+	public ConsoleLines(int maxLines, long maxChars) {
+		this.maxLines = Math.max(maxLines, 1);
+		this.maxChars = Math.max(maxChars, 1);
+	}
+
+	@Override
+	public String get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		int line = firstLine + index;
+		Chunk chunk = chunks.get(line / LINES_PER_CHUNK);
+		int inChunk = line % LINES_PER_CHUNK;
+		int start = chunk.start(inChunk);
+		return new String(chunk.text, start, chunk.ends[inChunk] - start);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public long droppedLines() {
+		return droppedLines;
+	}
+
+	// Acrescenta texto com quebras '\n' e avisa os ouvintes numa única mudança
+	public void append(CharSequence text) {
+		if (text.length() == 0) return;
+		int oldSize = size;
+		boolean extended = open;
+		String previous = extended ? get(size - 1) : null;
+
+		int from = 0;
+		while (from < text.length()) {
+			int end = from;
+			while (end < text.length() && text.charAt(end) != '\n') end++;
+			if (!open) startLine();
+			Chunk chunk = chunks.get(chunks.size() - 1);
+			chunk.append(text, from, end);
+			chunk.ends[chunk.count - 1] = chunk.length;
+			chars += end - from;
+			// Uma linha terminada em '\n' é fechada; a próxima, se houver texto, começa nova
+			open = end == text.length();
+			from = end + 1;
+		}
+
+		beginChange();
+		if (extended) {
+			nextSet(oldSize - 1, previous);
+		}
+		if (size > oldSize) {
+			nextAdd(oldSize, size);
+		}
+		dropOldest();
+		endChange();
+	}
+
+	public void clear() {
+		int oldSize = size;
+		chunks.clear();
+		firstLine = 0;
+		size = 0;
+		chars = 0;
+		open = false;
+		droppedLines = 0;
+		if (oldSize > 0) {
+			beginChange();
+			nextRemove(0, Collections.nCopies(oldSize, ""));
+			endChange();
+		}
+	}
+
+	// Percorre o texto guardado sem criar Strings; devolve a primeira linha a partir de from
+	// que contém o trecho, ou -1
+	public int find(String needle, int from, boolean ignoreCase) {
+		for (int index = Math.max(from, 0); index < size; index++) {
+			int line = firstLine + index;
+			Chunk chunk = chunks.get(line / LINES_PER_CHUNK);
+			int inChunk = line % LINES_PER_CHUNK;
+			int start = chunk.start(inChunk);
+			int end = chunk.ends[inChunk];
+			for (int i = start; i + needle.length() <= end; i++) {
+				if (matches(chunk.text, i, needle, ignoreCase)) return index;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(char[] text, int at, String needle, boolean ignoreCase) {
+		for (int j = 0; j < needle.length(); j++) {
+			char a = text[at + j];
+			char b = needle.charAt(j);
+			if (a != b && (!ignoreCase || Character.toLowerCase(a) != Character.toLowerCase(b))) return false;
+		}
+		return true;
+	}
+
+	private void startLine() {
+		Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+		if (last == null || last.count == LINES_PER_CHUNK) {
+			last = new Chunk();
+			chunks.add(last);
+		}
+		last.ends[last.count++] = last.length;
+		size++;
+	}
+
+	// Descarta do começo até caber nos limites de linhas e de caracteres. O conteúdo removido
+	// não é reconstruído: os ouvintes do ListView só usam a posição e a quantidade.
+	private void dropOldest() {
+		int drop = 0;
+		while (size - drop > 1 && (size - drop > maxLines || chars > maxChars)) {
+			Chunk first = chunks.get(0);
+			int inChunk = firstLine;
+			// Fora do limite de linhas descarta só o necessário; fora do de caracteres, o bloco
+			int count = size - drop > maxLines
+					? Math.min(size - drop - maxLines, first.count - inChunk)
+					: first.count - inChunk;
+			if (chunks.size() == 1) {
+				count = Math.min(count, size - drop - 1);
+			}
+			chars -= first.ends[inChunk + count - 1] - first.start(inChunk);
+			firstLine += count;
+			drop += count;
+			if (firstLine == LINES_PER_CHUNK) {
+				chunks.remove(0);
+				firstLine = 0;
+			}
+		}
+		if (drop == 0) return;
+		size -= drop;
+		droppedLines += drop;
+		nextRemove(0, Collections.nCopies(drop, ""));
+	}
+}
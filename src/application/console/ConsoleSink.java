@@ -0,0 +1,135 @@
+package application.console;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+
+import javafx.application.Platform;
+
+// Destino dos bytes escritos no console. Os bytes são decodificados como UTF-8 (sequências
+// partidas entre duas escritas são completadas na seguinte) e os caracteres vão para um buffer
+// circular sem trava: quem escreve só avança 'tail', e a thread do JavaFX, ao esvaziar, só
+// avança 'head'. As cópias são serializadas entre si; a leitura nunca bloqueia. Com o buffer
+// cheio quem escreve espera a próxima leitura, sem segurar o monitor, o que limita a memória
+// sem perder texto. A thread do JavaFX não espera: esvazia o buffer ela mesma e continua.
+public class ConsoleSink extends OutputStream {
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	// Intervalo entre tentativas quando o buffer está cheio
+	private static final long FULL_WAIT_NANOS = 200_000;
+
+	private final char[] ring;
+	private final int mask;
+	private volatile long head = 0;
+	private volatile long tail = 0;
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	// Bytes de uma sequência UTF-8 ainda incompleta
+	private final ByteBuffer pendingBytes = ByteBuffer.allocate(8192);
+	private final CharBuffer decoded = CharBuffer.allocate(8192);
+	private volatile Runnable drainer;
+
+	public ConsoleSink() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ConsoleSink(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 1024) - 1) << 1;
+		ring = new char[size];
+		mask = size - 1;
+	}
+
+	// Chamado na thread do JavaFX quando ela mesma escreve com o buffer cheio
+	public void setDrainer(Runnable drainer) {
+		this.drainer = drainer;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		boolean fxThread = Platform.isFxApplicationThread();
+		while (length > 0) {
+			int count = Math.min(length, pendingBytes.remaining());
+			CharBuffer chars = decode(bytes, offset, count);
+			offset += count;
+			length -= count;
+			// A espera por espaço acontece fora do monitor, para não prender as outras escritas
+			while (!offer(chars)) {
+				if (fxThread) {
+					// Só a thread do JavaFX esvazia o buffer; ela nunca espera por si mesma
+					Runnable drain = drainer;
+					if (drain == null) return;
+					drain.run();
+					continue;
+				}
+				LockSupport.parkNanos(FULL_WAIT_NANOS);
+				if (Thread.interrupted()) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Escrita no console interrompida");
+				}
+			}
+		}
+	}
+
+	// Decodifica os bytes junto com o resto incompleto da escrita anterior
+	private synchronized CharBuffer decode(byte[] bytes, int offset, int count) {
+		pendingBytes.put(bytes, offset, count);
+		pendingBytes.flip();
+		decoder.decode(pendingBytes, decoded, false);
+		pendingBytes.compact();
+		decoded.flip();
+		CharBuffer chars = CharBuffer.allocate(decoded.remaining()).put(decoded).flip();
+		decoded.clear();
+		return chars;
+	}
+
+	// Copia para o buffer circular o que couber; devolve true se copiou tudo
+	private synchronized boolean offer(CharBuffer chars) {
+		long position = tail;
+		while (chars.hasRemaining()) {
+			int free = ring.length - (int) (position - head);
+			if (free == 0) return false;
+			int start = (int) position & mask;
+			int count = Math.min(Math.min(free, chars.remaining()), ring.length - start);
+			chars.get(ring, start, count);
+			position += count;
+			// Escrita volátil: publica os caracteres copiados acima para a leitura
+			tail = position;
+		}
+		return true;
+	}
+
+	// Thread do JavaFX: move tudo o que foi publicado para 'out' e libera o espaço
+	public boolean drainTo(StringBuilder out) {
+		long start = head;
+		long end = tail;
+		if (start == end) return false;
+		int from = (int) start & mask;
+		int to = (int) end & mask;
+		if (from < to) {
+			out.append(ring, from, to - from);
+		} else {
+			out.append(ring, from, ring.length - from);
+			out.append(ring, 0, to);
+		}
+		head = end;
+		return true;
+	}
+
+	// Descarta o que ainda não foi lido
+	public void discard() {
+		head = tail;
+	}
+}
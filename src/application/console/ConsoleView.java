@@ -0,0 +1,134 @@
+package application.console;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+
+// Liga um ConsoleSink ao ListView do console. Um AnimationTimer esvazia o buffer uma vez por
+// pulso do JavaFX e acrescenta tudo o que chegou ao ConsoleLines numa única mudança da lista.
+// O ListView só cria células para as linhas visíveis; com altura fixa de célula a rolagem não
+// depende do tamanho da saída.
+public class ConsoleView {
+	public static final int DEFAULT_MAX_LINES = 10_000_000;
+	public static final long DEFAULT_MAX_CHARS = 32L * 1024 * 1024;
+
+	private static final double LINE_HEIGHT = 18;
+
+	private final ConsoleSink sink;
+	private final ListView<String> view;
+	private final ConsoleLines lines;
+	private final StringBuilder batch = new StringBuilder();
+	private boolean wrap = false;
+
+	private final AnimationTimer pump = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			drain();
+		}
+	};
+
+	public ConsoleView(ConsoleSink sink, ListView<String> view, int maxLines, long maxChars) {
+		this.sink = sink;
+		this.view = view;
+		this.lines = new ConsoleLines(maxLines, maxChars);
+		view.setItems(lines);
+		view.setFixedCellSize(LINE_HEIGHT);
+		view.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+		view.setCellFactory(_ -> new ConsoleCell());
+		view.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+			if (event.isShortcutDown() && event.getCode() == KeyCode.C) {
+				copy();
+				event.consume();
+			}
+		});
+	}
+
+	public void start() {
+		sink.setDrainer(this::drain);
+		pump.start();
+	}
+
+	public void stop() {
+		sink.setDrainer(null);
+		pump.stop();
+	}
+
+	// Thread do JavaFX: mostra o que estiver pendente no buffer
+	public void drain() {
+		batch.setLength(0);
+		if (!sink.drainTo(batch)) return;
+		lines.append(batch);
+		// Acompanha o fim da saída enquanto o usuário não tiver selecionado nada
+		if (view.getSelectionModel().isEmpty() && !lines.isEmpty()) {
+			view.scrollTo(lines.size() - 1);
+		}
+	}
+
+	public void clear() {
+		sink.discard();
+		view.getSelectionModel().clearSelection();
+		lines.clear();
+	}
+
+	public long droppedLines() {
+		return lines.droppedLines();
+	}
+
+	// Copia as linhas selecionadas, ou toda a saída se não houver seleção; devolve quantas
+	public int copy() {
+		List<Integer> selected = new ArrayList<>(view.getSelectionModel().getSelectedIndices());
+		Collections.sort(selected);
+		StringBuilder text = new StringBuilder();
+		int count = selected.isEmpty() ? lines.size() : selected.size();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) text.append('\n');
+			text.append(lines.get(selected.isEmpty() ? i : selected.get(i)));
+		}
+		ClipboardContent content = new ClipboardContent();
+		content.putString(text.toString());
+		Clipboard.getSystemClipboard().setContent(content);
+		return count;
+	}
+
+	// Seleciona a próxima linha que contém o texto, depois da linha em foco e voltando ao
+	// começo no fim; devolve false se nenhuma linha contém
+	public boolean find(String needle) {
+		if (needle.isEmpty() || lines.isEmpty()) return false;
+		int from = view.getFocusModel().getFocusedIndex() + 1;
+		int found = lines.find(needle, from, true);
+		if (found < 0) found = lines.find(needle, 0, true);
+		if (found < 0) return false;
+		view.getSelectionModel().clearAndSelect(found);
+		view.getFocusModel().focus(found);
+		view.scrollTo(found);
+		return true;
+	}
+
+	// Com quebra de linha as células passam a ter altura variável
+	public boolean toggleWrap() {
+		wrap = !wrap;
+		view.setFixedCellSize(wrap ? -1 : LINE_HEIGHT);
+		view.refresh();
+		return wrap;
+	}
+
+	private final class ConsoleCell extends ListCell<String> {
+		@Override
+		protected void updateItem(String item, boolean empty) {
+			super.updateItem(item, empty);
+			setText(empty ? null : item);
+			setWrapText(wrap);
+			// Largura preferida zero faz a célula quebrar na largura do ListView
+			setPrefWidth(wrap ? 0 : USE_COMPUTED_SIZE);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package application.diagnostics;
+
+// Um problema encontrado no código, com posição (linha, coluna e trecho) e código da mensagem
+public class Diagnostic {
+	private final Severity severity;
+	private final String code;
+	private final String message;
+	private final int line;
+	private final int column;
+	private final int offset;
+	private final int length;
+
+	public Diagnostic(Severity severity, String code, String message, int line, int column, int offset, int length) {
+		this.severity = severity;
+		this.code = code;
+		this.message = message;
+		this.line = line;
+		this.column = column;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public Severity getSeverity() {
+		return severity;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	// Mesmo diagnóstico depois de uma edição que deslocou o texto
+	public Diagnostic shifted(int offsetShift, int lineShift) {
+		if (offsetShift == 0 && lineShift == 0) return this;
+		return new Diagnostic(severity, code, message, line + lineShift, column, offset + offsetShift, length);
+	}
+
+	@Override
+	public String toString() {
+		return severity.getLabel() + " na linha " + line + ", coluna " + column + ": " + message;
+	}
+}
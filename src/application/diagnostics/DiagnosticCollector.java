@@ -0,0 +1,52 @@
+package application.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Acumula diagnósticos de todas as etapas para serem entregues de uma vez no final
+public class DiagnosticCollector {
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+	private int errorCount = 0;
+
+	public synchronized void report(Diagnostic diagnostic) {
+		diagnostics.add(diagnostic);
+		if (diagnostic.getSeverity() == Severity.ERRO) {
+			errorCount++;
+		}
+	}
+
+	public synchronized void reportAll(Collection<Diagnostic> all) {
+		for (Diagnostic diagnostic : all) {
+			report(diagnostic);
+		}
+	}
+
+	public synchronized boolean hasErrors() {
+		return errorCount > 0;
+	}
+
+	public synchronized int getErrorCount() {
+		return errorCount;
+	}
+
+	public synchronized int size() {
+		return diagnostics.size();
+	}
+
+	public synchronized List<Diagnostic> drain() {
+		List<Diagnostic> drained = new ArrayList<>(diagnostics);
+		diagnostics.clear();
+		errorCount = 0;
+		return drained;
+	}
+
+	// Todos os diagnósticos pendentes num único texto, uma linha por diagnóstico
+	public String drainReport() {
+		StringBuilder report = new StringBuilder();
+		for (Diagnostic diagnostic : drain()) {
+			report.append(diagnostic).append('\n');
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,16 @@
+package application.diagnostics;
+
+public enum Severity {
+	ERRO("Erro"),
+	AVISO("Aviso");
+
+	private final String label;
+
+	Severity(String label) {
+		this.label = label;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+}
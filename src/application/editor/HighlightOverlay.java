@@ -0,0 +1,244 @@
+package application.editor;
+
+import java.util.List;
+
+import application.lexer.LineIndex;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+// Editor com destaque de sintaxe. A TextArea continua cuidando da edição, da seleção e da
+// rolagem, mas com o texto transparente; por cima dela um Canvas do tamanho da área visível
+// desenha as linhas que aparecem na tela, já coloridas, e o cursor. Só as linhas visíveis são
+// lidas (pelos parágrafos, sem copiar o texto) e destacadas, e o estado que vem das linhas
+// anteriores fica guardado no SyntaxHighlighter; o custo de desenhar não cresce com o arquivo.
+// A fonte é monoespaçada e a quebra de linha fica desligada, então a posição de cada caractere
+// é a coluna vezes a largura de um caractere.
+public class HighlightOverlay extends StackPane {
+	// Linhas abaixo da tela com o estado de entrada já calculado, para a rolagem não esperar
+	private static final int MARGIN_LINES = 50;
+	private static final int TAB_SIZE = 8;
+
+	private static final String EDITOR_STYLE = "-fx-font-family: \"Monospaced\";";
+	private static final String TRANSPARENT_STYLE = "-fx-text-fill: transparent; -fx-highlight-text-fill: transparent;";
+
+	private static final Color[] COLORS = new Color[SyntaxHighlighter.COLORS.length];
+	static {
+		for (int i = 0; i < COLORS.length; i++) {
+			int argb = SyntaxHighlighter.COLORS[i];
+			COLORS[i] = Color.rgb((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff);
+		}
+	}
+
+	private final TextArea editor;
+	private final SyntaxHighlighter highlighter;
+	private final LineIndex lineIndex;
+	private final Canvas canvas = new Canvas();
+	private final Runnable paintPulse = this::paintIfNeeded;
+
+	private Region content;
+	private Region viewport;
+	private Font font;
+	private double charWidth;
+	private double lineHeight;
+	private boolean paintRequested = false;
+	// Linhas na tela no último desenho, para o minimapa
+	private int firstVisibleLine = 0;
+	private int visibleLines = 1;
+	private Runnable onViewportChanged;
+	private final StringBuilder segment = new StringBuilder();
+	// Último ponto convertido em coluna na linha sendo desenhada; os trechos vêm em ordem
+	private int spanOffset;
+	private int spanColumn;
+
+	public HighlightOverlay(TextArea editor, SyntaxHighlighter highlighter, LineIndex lineIndex) {
+		this.editor = editor;
+		this.highlighter = highlighter;
+		this.lineIndex = lineIndex;
+
+		editor.setWrapText(false);
+		editor.setStyle(EDITOR_STYLE);
+		canvas.setMouseTransparent(true);
+		canvas.setManaged(false);
+		canvas.widthProperty().bind(widthProperty());
+		canvas.heightProperty().bind(heightProperty());
+		getChildren().addAll(editor, canvas);
+
+		InvalidationListener repaint = _ -> requestPaint();
+		for (Observable observable : List.<Observable>of(editor.scrollTopProperty(), editor.scrollLeftProperty(),
+				editor.caretPositionProperty(), editor.selectionProperty(), editor.textProperty(),
+				editor.focusedProperty(), editor.widthProperty(), editor.heightProperty())) {
+			observable.addListener(repaint);
+		}
+		editor.fontProperty().addListener(_ -> {
+			font = null;
+			requestPaint();
+		});
+		// Desenha depois do layout do pulso, quando a posição do conteúdo rolado já está certa
+		sceneProperty().addListener((_, oldScene, newScene) -> {
+			if (oldScene != null) oldScene.removePostLayoutPulseListener(paintPulse);
+			if (newScene != null) newScene.addPostLayoutPulseListener(paintPulse);
+		});
+	}
+
+	public LineIndex lineIndex() {
+		return lineIndex;
+	}
+
+	public TextArea editor() {
+		return editor;
+	}
+
+	public int firstVisibleLine() {
+		return firstVisibleLine;
+	}
+
+	public int visibleLines() {
+		return visibleLines;
+	}
+
+	public void setOnViewportChanged(Runnable listener) {
+		onViewportChanged = listener;
+	}
+
+	// Rola o editor para deixar a linha no topo
+	public void scrollToLine(int line) {
+		if (lineHeight > 0) editor.setScrollTop(Math.max(0, line) * lineHeight);
+	}
+
+	public void requestPaint() {
+		if (!paintRequested) {
+			paintRequested = true;
+			Platform.requestNextPulse();
+		}
+	}
+
+	private void paintIfNeeded() {
+		if (paintRequested) {
+			paintRequested = false;
+			paint();
+		}
+	}
+
+	// Partes internas da TextArea; até o skin existir o editor mostra o próprio texto
+	private boolean resolveSkin() {
+		if (content == null || viewport == null) {
+			Node contentNode = editor.lookup(".content");
+			Node viewportNode = editor.lookup(".viewport");
+			if (!(contentNode instanceof Region) || !(viewportNode instanceof Region)) return false;
+			content = (Region) contentNode;
+			viewport = (Region) viewportNode;
+			editor.setStyle(EDITOR_STYLE + TRANSPARENT_STYLE);
+		}
+		if (font == null) {
+			font = editor.getFont();
+			Text probe = new Text("M");
+			probe.setFont(font);
+			charWidth = probe.getLayoutBounds().getWidth();
+			lineHeight = probe.getLayoutBounds().getHeight();
+		}
+		return lineHeight > 0;
+	}
+
+	private void paint() {
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		if (!resolveSkin()) return;
+
+		List<CharSequence> lines = editor.getParagraphs();
+		if (highlighter.lineCount() != lines.size()) {
+			// Não deveria acontecer; recomeça do zero em vez de desenhar estados errados
+			highlighter.reset(lines.size());
+		}
+
+		Insets padding = content.getPadding();
+		Point2D origin = sceneToLocal(content.localToScene(padding.getLeft(), padding.getTop()));
+		Bounds clip = sceneToLocal(viewport.localToScene(viewport.getLayoutBounds()));
+		if (origin == null || clip == null) return;
+
+		int first = Math.max(0, (int) ((clip.getMinY() - origin.getY()) / lineHeight));
+		int last = Math.min(lines.size() - 1, (int) ((clip.getMaxY() - origin.getY()) / lineHeight));
+		if (first > last) return;
+		int fitting = Math.max(1, (int) (clip.getHeight() / lineHeight));
+		if (first != firstVisibleLine || fitting != visibleLines) {
+			firstVisibleLine = first;
+			visibleLines = fitting;
+			if (onViewportChanged != null) onViewportChanged.run();
+		}
+		highlighter.entryState(Math.min(lines.size() - 1, last + MARGIN_LINES), lines);
+
+		gc.save();
+		gc.beginPath();
+		gc.rect(clip.getMinX(), clip.getMinY(), clip.getWidth(), clip.getHeight());
+		gc.clip();
+		gc.setFont(font);
+		gc.setTextBaseline(VPos.TOP);
+
+		for (int line = first; line <= last; line++) {
+			CharSequence text = lines.get(line);
+			double y = origin.getY() + line * lineHeight;
+			spanOffset = 0;
+			spanColumn = 0;
+			highlighter.scan(text, highlighter.entryState(line, lines), (start, end, style) -> {
+				gc.setFill(COLORS[style]);
+				double x = origin.getX() + advance(text, start) * charWidth;
+				gc.fillText(expandTabs(text, start, end), x, y);
+			});
+		}
+
+		if (editor.isFocused()) {
+			int caret = editor.getCaretPosition();
+			int line = Math.min(lineIndex.lineOf(caret), lines.size() - 1);
+			int column = Math.min(caret - lineIndex.lineStart(line), lines.get(line).length());
+			spanOffset = 0;
+			spanColumn = 0;
+			double x = Math.round(origin.getX() + advance(lines.get(line), column) * charWidth) + 0.5;
+			double y = origin.getY() + line * lineHeight;
+			gc.setStroke(COLORS[SyntaxHighlighter.PLAIN]);
+			gc.setLineWidth(1);
+			gc.strokeLine(x, y, x, y + lineHeight);
+		}
+		gc.restore();
+	}
+
+	// Coluna na tela do caractere, com as tabulações alinhadas como a TextArea faz
+	private int advance(CharSequence text, int offset) {
+		for (int i = spanOffset; i < offset; i++) {
+			spanColumn = text.charAt(i) == '\t' ? (spanColumn / TAB_SIZE + 1) * TAB_SIZE : spanColumn + 1;
+		}
+		spanOffset = offset;
+		return spanColumn;
+	}
+
+	private String expandTabs(CharSequence text, int start, int end) {
+		segment.setLength(0);
+		int column = spanColumn;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (c == '\t') {
+				int next = (column / TAB_SIZE + 1) * TAB_SIZE;
+				while (column < next) {
+					segment.append(' ');
+					column++;
+				}
+			} else {
+				segment.append(c);
+				column++;
+			}
+		}
+		return segment.toString();
+	}
+}
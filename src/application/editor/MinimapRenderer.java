@@ -0,0 +1,180 @@
+package application.editor;
+
+import java.util.Arrays;
+
+import application.lexer.TokenBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+// Imagem do minimapa de um documento. render roda fora da thread do JavaFX sobre uma cópia dos
+// tokens e desenha num int[] de pixels: cada coluna de texto é um pixel e cada faixa de linhas
+// ocupa 'scale' pixels de altura. Arquivos com mais linhas do que cabem em MAX_ROWS juntam
+// várias linhas na mesma faixa. Cada faixa guarda um hash dos tokens que desenhou; na edição só
+// as faixas cujo hash mudou são redesenhadas, e só as linhas de pixels dessas faixas vão para
+// a thread do JavaFX, que as copia na WritableImage.
+public class MinimapRenderer {
+	public static final int WIDTH = 120;
+	public static final int MAX_ROWS = 4096;
+	private static final int TAB_SIZE = 8;
+	private static final int BACKGROUND = 0x00000000;
+
+	// Linhas de pixels alteradas por uma renderização, já copiadas
+	public record Frame(int serial, int height, int lineCount, int bandLines, int scale, int firstRow, int rowCount, int[] pixels) {
+	}
+
+	private volatile int requestedScale;
+	// Último quadro copiado para a imagem; um quadro descartado pelo agendador volta no seguinte
+	private volatile int appliedSerial = 0;
+
+	// Estado da renderização; só usado pela thread que chama render (uma por vez)
+	private int[] pixels = new int[0];
+	private long[] bandHashes = new long[0];
+	private int height = 0;
+	private int bandLines = 0;
+	private int scale = 0;
+	private int[] tokenLines = new int[0];
+	private int[] tokenColumns = new int[0];
+	private int serial = 0;
+	private int lastFirstRow = 0;
+	private int lastRowCount = 0;
+
+	// Estado da imagem; só usado pela thread do JavaFX
+	private WritableImage image;
+	private int imageLineCount = 1;
+	private int imageBandLines = 1;
+	private int imageScale = 1;
+
+	public MinimapRenderer(int scale) {
+		this.requestedScale = scale;
+	}
+
+	public void setScale(int scale) {
+		requestedScale = scale;
+	}
+
+	// Fora da thread do JavaFX; devolve null se nenhuma faixa mudou
+	public Frame render(TokenBuffer tokens) {
+		String source = tokens.source();
+		int lineCount = 1;
+		for (int i = source.indexOf('\n'); i >= 0; i = source.indexOf('\n', i + 1)) {
+			lineCount++;
+		}
+		int newScale = requestedScale;
+		int newBandLines = Math.max(1, (lineCount * newScale + MAX_ROWS - 1) / MAX_ROWS);
+		int bands = (lineCount + newBandLines - 1) / newBandLines;
+		int newHeight = Math.max(1, bands * newScale);
+
+		// Tamanho ou escala diferentes: tudo é redesenhado
+		boolean full = newHeight != height || newBandLines != bandLines || newScale != scale;
+		if (full) {
+			pixels = new int[WIDTH * newHeight];
+			bandHashes = new long[bands];
+			Arrays.fill(bandHashes, -1);
+			height = newHeight;
+			bandLines = newBandLines;
+			scale = newScale;
+		}
+
+		// Linha e coluna (com tabulações) de cada token, numa passada só pelo texto
+		int count = tokens.size();
+		if (tokenLines.length < count) {
+			tokenLines = new int[count];
+			tokenColumns = new int[count];
+		}
+		long[] hashes = new long[bands];
+		int line = 0;
+		int column = 0;
+		int position = 0;
+		for (int i = 0; i < count; i++) {
+			int start = tokens.start(i);
+			for (; position < start; position++) {
+				char c = source.charAt(position);
+				if (c == '\n') {
+					line++;
+					column = 0;
+				} else {
+					column = c == '\t' ? (column / TAB_SIZE + 1) * TAB_SIZE : column + 1;
+				}
+			}
+			tokenLines[i] = line;
+			tokenColumns[i] = column;
+			if (column >= WIDTH || tokens.length(i) == 0) continue;
+			int band = line / bandLines;
+			long hash = hashes[band];
+			hash = hash * 31 + tokens.typeOrdinal(i);
+			hash = hash * 31 + column;
+			hash = hash * 31 + tokens.length(i);
+			hashes[band] = hash * 31 + line % bandLines + 1;
+		}
+
+		int firstRow = Integer.MAX_VALUE;
+		int lastRow = -1;
+		if (!full && appliedSerial != serial && lastRowCount > 0) {
+			firstRow = lastFirstRow;
+			lastRow = Math.min(height, lastFirstRow + lastRowCount) - 1;
+		}
+		int token = 0;
+		for (int band = 0; band < bands; band++) {
+			int bandEnd = (band + 1) * bandLines;
+			if (hashes[band] == bandHashes[band]) {
+				while (token < count && tokenLines[token] < bandEnd) token++;
+				continue;
+			}
+			bandHashes[band] = hashes[band];
+			int row = band * scale;
+			Arrays.fill(pixels, row * WIDTH, (row + scale) * WIDTH, BACKGROUND);
+			// Uma linha de pixels de espaço entre as faixas, quando a escala permite
+			int inked = scale > 1 ? scale - 1 : 1;
+			for (; token < count && tokenLines[token] < bandEnd; token++) {
+				int from = tokenColumns[token];
+				int to = Math.min(WIDTH, from + tokens.length(token));
+				if (from >= to) continue;
+				int color = SyntaxHighlighter.COLORS[SyntaxHighlighter.style(tokens.type(token))];
+				for (int r = row; r < row + inked; r++) {
+					Arrays.fill(pixels, r * WIDTH + from, r * WIDTH + to, color);
+				}
+			}
+			firstRow = Math.min(firstRow, row);
+			lastRow = Math.max(lastRow, row + scale - 1);
+		}
+		if (lastRow < 0) return null;
+
+		int rowCount = lastRow - firstRow + 1;
+		int[] rows = Arrays.copyOfRange(pixels, firstRow * WIDTH, (lastRow + 1) * WIDTH);
+		serial++;
+		lastFirstRow = firstRow;
+		lastRowCount = rowCount;
+		return new Frame(serial, height, lineCount, bandLines, scale, firstRow, rowCount, rows);
+	}
+
+	// Thread do JavaFX: copia as linhas alteradas para a imagem
+	public void apply(Frame frame) {
+		if (image == null || (int) image.getHeight() != frame.height()) {
+			// Imagem nova só acompanha um quadro completo, que sempre vem depois de mudar o tamanho
+			image = new WritableImage(WIDTH, frame.height());
+		}
+		image.getPixelWriter().setPixels(0, frame.firstRow(), WIDTH, frame.rowCount(),
+				PixelFormat.getIntArgbInstance(), frame.pixels(), 0, WIDTH);
+		imageLineCount = frame.lineCount();
+		imageBandLines = frame.bandLines();
+		imageScale = frame.scale();
+		appliedSerial = frame.serial();
+	}
+
+	public WritableImage image() {
+		return image;
+	}
+
+	public int lineCount() {
+		return imageLineCount;
+	}
+
+	// Primeira linha de pixels da linha do documento
+	public int rowOf(int line) {
+		return line / imageBandLines * imageScale;
+	}
+
+	public int lineAt(int row) {
+		return Math.min(imageLineCount - 1, Math.max(0, row / imageScale * imageBandLines));
+	}
+}
@@ -0,0 +1,79 @@
+package application.editor;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+// Minimapa da aba atual: desenha num Canvas a imagem pronta do MinimapRenderer e a faixa das
+// linhas visíveis no editor. Aqui só se copia a imagem; nada de texto é medido ou posicionado.
+// Se a imagem for mais alta que o painel, ela rola junto com o editor. Clicar ou arrastar rola
+// o editor até a linha correspondente.
+public class MinimapView extends Pane {
+	private static final Color BACKGROUND = Color.rgb(250, 250, 250);
+	private static final Color VIEWPORT = Color.rgb(0, 0, 0, 0.08);
+
+	private final Canvas canvas = new Canvas();
+	private MinimapRenderer renderer;
+	private HighlightOverlay editor;
+	// Linha de pixels da imagem no topo do painel
+	private double offset = 0;
+
+	public MinimapView() {
+		canvas.setManaged(false);
+		canvas.widthProperty().bind(widthProperty());
+		canvas.heightProperty().bind(heightProperty());
+		canvas.widthProperty().addListener(_ -> redraw());
+		canvas.heightProperty().addListener(_ -> redraw());
+		getChildren().add(canvas);
+
+		addEventHandler(MouseEvent.MOUSE_PRESSED, this::scrollEditor);
+		addEventHandler(MouseEvent.MOUSE_DRAGGED, this::scrollEditor);
+	}
+
+	// Passa a mostrar o documento de outra aba (ou nenhum)
+	public void show(MinimapRenderer renderer, HighlightOverlay editor) {
+		if (this.editor != null) this.editor.setOnViewportChanged(null);
+		this.renderer = renderer;
+		this.editor = editor;
+		if (editor != null) editor.setOnViewportChanged(this::redraw);
+		redraw();
+	}
+
+	public MinimapRenderer renderer() {
+		return renderer;
+	}
+
+	public void redraw() {
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		double width = canvas.getWidth();
+		double height = canvas.getHeight();
+		gc.setFill(BACKGROUND);
+		gc.fillRect(0, 0, width, height);
+		WritableImage image = renderer == null ? null : renderer.image();
+		if (image == null || editor == null) return;
+
+		double imageHeight = image.getHeight();
+		int first = editor.firstVisibleLine();
+		int visible = editor.visibleLines();
+		int scrollable = Math.max(1, renderer.lineCount() - visible);
+		offset = Math.max(0, imageHeight - height) * Math.min(1.0, (double) first / scrollable);
+
+		double shown = Math.min(height, imageHeight - offset);
+		gc.drawImage(image, 0, offset, image.getWidth(), shown, 0, 0, image.getWidth(), shown);
+
+		double top = renderer.rowOf(first) - offset;
+		double bottom = renderer.rowOf(first + visible) - offset;
+		gc.setFill(VIEWPORT);
+		gc.fillRect(0, top, width, Math.max(2, bottom - top));
+	}
+
+	private void scrollEditor(MouseEvent event) {
+		if (renderer == null || editor == null || renderer.image() == null) return;
+		int line = renderer.lineAt((int) (event.getY() + offset));
+		editor.scrollToLine(line - editor.visibleLines() / 2);
+		event.consume();
+	}
+}
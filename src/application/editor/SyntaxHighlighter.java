@@ -0,0 +1,240 @@
+package application.editor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import application.lexer.Keywords;
+import application.lexer.TokenType;
+
+// Destaque de sintaxe por linha. O único estado que passa de uma linha para a outra é se ela
+// começa dentro de um comentário de bloco ou de uma string; esse estado de entrada fica guardado
+// para cada linha. Uma edição marca só as linhas editadas; o reprocessamento segue dali até a
+// primeira linha cujo estado calculado bate com o guardado (depois do trecho editado), ou até
+// onde a tela precisa. Assim o custo depende das linhas visíveis e das editadas, não do tamanho
+// do arquivo.
+public class SyntaxHighlighter {
+	// Estados de entrada de linha
+	public static final byte NORMAL = 0;
+	public static final byte BLOCK_COMMENT = 1;
+	public static final byte STRING = 2;
+
+	// Estilos dos trechos
+	public static final int PLAIN = 0;
+	public static final int KEYWORD = 1;
+	public static final int TYPE = 2;
+	public static final int LITERAL = 3;
+	public static final int TEXT = 4;
+	public static final int COMMENT = 5;
+	public static final int OPERATOR = 6;
+
+	// Cor de cada estilo (ARGB)
+	public static final int[] COLORS = {
+		0xff1e1e1e, // PLAIN
+		0xff0033b3, // KEYWORD
+		0xff7a3e9d, // TYPE
+		0xff1750eb, // LITERAL
+		0xff067d17, // TEXT
+		0xff8c8c8c, // COMMENT
+		0xff5a5a5a, // OPERATOR
+	};
+
+	// Recebe cada trecho destacado de uma linha
+	public interface SpanConsumer {
+		void span(int start, int end, int style);
+	}
+
+	// Estado de entrada de cada linha; válido antes de dirtyFrom e depois de dirtyTo, até
+	// a linha calculada ser confirmada
+	private byte[] states = new byte[64];
+	private int lineCount = 1;
+	// Primeira linha com estado não confirmado (lineCount: nenhuma)
+	private int dirtyFrom = 1;
+	// Última linha editada desde então; a convergência só vale depois dela
+	private int dirtyTo = 0;
+
+	public int lineCount() {
+		return lineCount;
+	}
+
+	// Esquece todos os estados; serão recalculados a partir da primeira linha
+	public void reset(int lines) {
+		lineCount = Math.max(lines, 1);
+		if (lineCount + 1 > states.length) states = new byte[lineCount + 1];
+		Arrays.fill(states, 0, lineCount + 1, NORMAL);
+		dirtyFrom = 1;
+		dirtyTo = lineCount;
+	}
+
+	// Registra uma edição que trocou removedLines quebras de linha por addedLines a partir de line
+	public void edit(int line, int removedLines, int addedLines) {
+		// Linhas já recalculadas antes desta edição também não servem de ponto de convergência:
+		// as seguintes a elas ainda guardam estados de antes da edição anterior
+		if (dirtyFrom < lineCount) dirtyTo = Math.max(dirtyTo, dirtyFrom - 1);
+		int delta = addedLines - removedLines;
+		if (delta != 0) {
+			int newCount = lineCount + delta;
+			if (newCount + 1 > states.length) {
+				states = Arrays.copyOf(states, Math.max(newCount + 1, states.length * 2));
+			}
+			int tail = line + 1 + removedLines;
+			System.arraycopy(states, tail, states, line + 1 + addedLines, lineCount - tail + 1);
+			// Linhas novas começam como normais até serem calculadas
+			Arrays.fill(states, line + 1, line + 1 + addedLines, NORMAL);
+			lineCount = newCount;
+			if (dirtyTo > line) dirtyTo = Math.max(line + addedLines, dirtyTo + delta);
+			if (dirtyFrom > line + removedLines) dirtyFrom = Math.max(line + 1, dirtyFrom + delta);
+		}
+		// Os estados de entrada das linhas depois da editada precisam ser recalculados
+		dirtyFrom = Math.min(dirtyFrom, line + 1);
+		dirtyTo = Math.max(dirtyTo, line + addedLines);
+		dirtyFrom = Math.min(dirtyFrom, lineCount);
+	}
+
+	// Estado de entrada da linha, calculando o que faltar até ela a partir das linhas do texto
+	public byte entryState(int line, List<? extends CharSequence> lines) {
+		while (dirtyFrom <= line && dirtyFrom < lineCount) {
+			byte state = scan(lines.get(dirtyFrom - 1), states[dirtyFrom - 1], null);
+			boolean same = states[dirtyFrom] == state;
+			states[dirtyFrom] = state;
+			if (same && dirtyFrom > dirtyTo) {
+				// O resto foi calculado a partir do mesmo texto e do mesmo estado
+				dirtyFrom = lineCount;
+				dirtyTo = 0;
+				break;
+			}
+			dirtyFrom++;
+		}
+		if (dirtyFrom >= lineCount) dirtyTo = 0;
+		return states[line];
+	}
+
+	// Destaca uma linha a partir do estado de entrada e devolve o estado no fim dela
+	public byte scan(CharSequence text, byte state, SpanConsumer spans) {
+		int length = text.length();
+		int i = 0;
+		if (state == BLOCK_COMMENT) {
+			int end = indexOf(text, "]#", 0);
+			int stop = end < 0 ? length : end + 2;
+			emit(spans, 0, stop, COMMENT);
+			if (end < 0) return BLOCK_COMMENT;
+			i = stop;
+		} else if (state == STRING) {
+			int end = indexOf(text, "\"", 0);
+			int stop = end < 0 ? length : end + 1;
+			emit(spans, 0, stop, TEXT);
+			if (end < 0) return STRING;
+			i = stop;
+		}
+
+		while (i < length) {
+			char c = text.charAt(i);
+			int start = i;
+			if (c == '#') {
+				if (i + 1 < length && text.charAt(i + 1) == '[') {
+					int end = indexOf(text, "]#", i + 2);
+					if (end < 0) {
+						emit(spans, start, length, COMMENT);
+						return BLOCK_COMMENT;
+					}
+					i = end + 2;
+				} else {
+					i = length;
+				}
+				emit(spans, start, i, COMMENT);
+			} else if (c == '"') {
+				int end = indexOf(text, "\"", i + 1);
+				if (end < 0) {
+					emit(spans, start, length, TEXT);
+					return STRING;
+				}
+				i = end + 1;
+				emit(spans, start, i, TEXT);
+			} else if (c == '\'') {
+				i++;
+				if (i < length && text.charAt(i) == '\\') i++;
+				if (i < length) i++;
+				if (i < length && text.charAt(i) == '\'') i++;
+				emit(spans, start, i, TEXT);
+			} else if (isDigit(c)) {
+				while (i < length && (isDigit(text.charAt(i)) || text.charAt(i) == '.')) i++;
+				emit(spans, start, i, LITERAL);
+			} else if (isAlpha(c)) {
+				while (i < length && (isAlpha(text.charAt(i)) || isDigit(text.charAt(i)))) i++;
+				if (spans != null) {
+					int style = style(Keywords.lookup(text.subSequence(start, i).toString(), 0, i - start));
+					emit(spans, start, i, style);
+				}
+			} else if (c == ' ' || c == '\t' || c == '\r') {
+				i++;
+			} else {
+				i++;
+				emit(spans, start, i, OPERATOR);
+			}
+		}
+		return NORMAL;
+	}
+
+	// Estilo de um token do lexer; também usado pelo minimapa
+	public static int style(TokenType type) {
+		if (type == null) return PLAIN;
+		switch (type) {
+			case IDENTIFICADOR:
+			case ERRO:
+			case EOF:
+				return PLAIN;
+			case LITERAL_NUMERO:
+			case LITERAL_LOGICO:
+				return LITERAL;
+			case LITERAL_TEXTO:
+				return TEXT;
+			case NUMERO:
+			case LONG:
+			case SHORT:
+			case UNSIGNED:
+			case DOUBLE:
+			case TEXTO:
+			case LOGICO:
+			case LISTA:
+			case VOID:
+				return TYPE;
+			case MOSTRAR:
+			case FORMATAR:
+			case LER:
+			case SE:
+			case SENAO:
+			case ENQUANTO:
+			case PARA:
+			case FUNC:
+			case RETORNAR:
+			case E:
+			case OU:
+			case NAO_LOGICO:
+				return KEYWORD;
+			default:
+				return OPERATOR;
+		}
+	}
+
+	private static void emit(SpanConsumer spans, int start, int end, int style) {
+		if (spans != null && end > start) spans.span(start, end, style);
+	}
+
+	private static int indexOf(CharSequence text, String needle, int from) {
+		for (int i = from; i + needle.length() <= text.length(); i++) {
+			boolean found = true;
+			for (int j = 0; j < needle.length() && found; j++) {
+				found = text.charAt(i + j) == needle.charAt(j);
+			}
+			if (found) return i;
+		}
+		return -1;
+	}
+
+	private static boolean isAlpha(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,47 @@
+package application.explorer;
+
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+
+import javafx.scene.control.TreeItem;
+
+// Item da árvore do workspace: um arquivo ou uma pasta. Uma pasta aparece com a seta de expandir
+// desde o começo, mas só lê o conteúdo quando é expandida pela primeira vez.
+public class PathItem extends TreeItem<String> {
+	private final Path path;
+	private final boolean directory;
+
+	// Estado da leitura da pasta; só usado pela thread do JavaFX
+	boolean loaded = false;
+	boolean loading = false;
+	// Chegou um evento enquanto a leitura rodava; a pasta é lida de novo ao terminar
+	boolean stale = false;
+	// Registrado pela thread de leitura
+	volatile WatchKey key;
+
+	PathItem(Path path, boolean directory) {
+		super(path.getFileName() != null ? path.getFileName().toString() : path.toString());
+		this.path = path;
+		this.directory = directory;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public boolean isDirectory() {
+		return directory;
+	}
+
+	@Override
+	public boolean isLeaf() {
+		return !directory;
+	}
+
+	// Pastas antes dos arquivos, depois pelo nome sem diferenciar maiúsculas
+	static int compare(boolean directory, String name, boolean otherDirectory, String otherName) {
+		if (directory != otherDirectory) return directory ? -1 : 1;
+		int order = String.CASE_INSENSITIVE_ORDER.compare(name, otherName);
+		return order != 0 ? order : name.compareTo(otherName);
+	}
+}
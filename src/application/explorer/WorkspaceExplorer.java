@@ -0,0 +1,293 @@
+package application.explorer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import application.analysis.AnalysisScheduler;
+import javafx.application.Platform;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.scene.input.MouseEvent;
+
+// Liga a pasta do workspace ao TreeView do Explorer. Nada é lido de antemão: cada pasta é
+// listada fora da thread do JavaFX na primeira vez que é expandida, e a partir daí fica
+// registrada num WatchService. Arquivos criados ou apagados chegam como eventos e mudam só o
+// item afetado; a pasta inteira só é relida quando o sistema perde eventos (OVERFLOW) ou
+// quando o usuário pede "Atualizar Explorer", e mesmo assim só as pastas já abertas.
+public class WorkspaceExplorer {
+	private record Entry(String name, boolean directory) {
+	}
+
+	private record Change(String name, boolean created, boolean directory) {
+	}
+
+	private final TreeView<String> view;
+	private final Consumer<String> status;
+	// Leituras de pastas, uma por item; uma leitura nova da mesma pasta substitui a anterior
+	private final AnalysisScheduler scans = new AnalysisScheduler();
+	private final Map<WatchKey, PathItem> watched = new ConcurrentHashMap<>();
+	private WatchService watcher;
+	private PathItem root;
+
+	public WorkspaceExplorer(TreeView<String> view, Consumer<File> open, Consumer<String> status) {
+		this.view = view;
+		this.status = status;
+		view.setShowRoot(true);
+		view.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+			if (event.getClickCount() == 2 && view.getSelectionModel().getSelectedItem() instanceof PathItem item
+					&& !item.isDirectory()) {
+				open.accept(item.getPath().toFile());
+			}
+		});
+	}
+
+	public static Path defaultWorkspace() {
+		String configured = System.getProperty("scribo.workspace");
+		return Path.of(configured != null ? configured : System.getProperty("user.dir"));
+	}
+
+	public Path workspace() {
+		return root != null ? root.getPath() : null;
+	}
+
+	// Passa a mostrar outra pasta; só o primeiro nível é lido
+	public void open(Path directory) throws IOException {
+		close();
+		watcher = directory.getFileSystem().newWatchService();
+		WatchService service = watcher;
+		Thread.ofVirtual().name("scribo-explorer").start(() -> watch(service));
+		root = item(directory.toAbsolutePath().normalize(), true);
+		view.setRoot(root);
+		root.setExpanded(true);
+	}
+
+	public void close() {
+		if (root != null) forget(root);
+		root = null;
+		view.setRoot(null);
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				status.accept("Erro ao encerrar o Explorer: " + e.getMessage());
+			}
+			watcher = null;
+		}
+	}
+
+	// Relê só as pastas que já foram abertas
+	public void refresh() {
+		if (root != null) refresh(root);
+	}
+
+	private void refresh(PathItem item) {
+		if (!item.loaded) return;
+		load(item);
+		for (TreeItem<String> child : item.getChildren()) {
+			refresh((PathItem) child);
+		}
+	}
+
+	public void collapseAll() {
+		if (root == null) return;
+		for (TreeItem<String> child : root.getChildren()) {
+			setExpanded((PathItem) child, false);
+		}
+	}
+
+	// Expande as pastas que já estão na árvore; as que ainda não foram lidas descem um nível só,
+	// para não varrer o workspace inteiro de uma vez
+	public void expandAll() {
+		if (root != null) setExpanded(root, true);
+	}
+
+	private void setExpanded(PathItem item, boolean expanded) {
+		if (!item.isDirectory()) return;
+		// Os filhos primeiro, para a expansão não ler pastas recém-listadas
+		for (TreeItem<String> child : List.copyOf(item.getChildren())) {
+			setExpanded((PathItem) child, expanded);
+		}
+		item.setExpanded(expanded);
+	}
+
+	private PathItem item(Path path, boolean directory) {
+		PathItem item = new PathItem(path, directory);
+		if (directory) {
+			item.expandedProperty().addListener((_, _, expanded) -> {
+				if (expanded && !item.loaded) load(item);
+			});
+		}
+		return item;
+	}
+
+	private void load(PathItem item) {
+		if (item.loading || watcher == null) return;
+		item.loading = true;
+		item.stale = false;
+		WatchService service = watcher;
+		scans.submit(item, () -> scan(item, service), entries -> {
+			item.loading = false;
+			item.loaded = true;
+			merge(item, entries);
+			if (item.stale) load(item);
+		}, e -> {
+			item.loading = false;
+			status.accept("Não foi possível ler " + item.getPath() + ": " + e.getMessage());
+		});
+	}
+
+	// Fora da thread do JavaFX
+	private List<Entry> scan(PathItem item, WatchService service) throws IOException {
+		// Registra antes de listar: o que mudar durante a listagem chega como evento
+		if (item.key == null) {
+			WatchKey key = item.getPath().register(service, ENTRY_CREATE, ENTRY_DELETE);
+			watched.put(key, item);
+			item.key = key;
+		}
+		List<Entry> entries = new ArrayList<>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(item.getPath())) {
+			for (Path child : children) {
+				if (AnalysisScheduler.cancelled()) break;
+				String name = child.getFileName().toString();
+				if (hidden(name)) continue;
+				entries.add(new Entry(name, Files.isDirectory(child)));
+			}
+		}
+		entries.sort((a, b) -> PathItem.compare(a.directory(), a.name(), b.directory(), b.name()));
+		return entries;
+	}
+
+	// Nomes começados por ponto ficam de fora, inclusive os temporários do salvamento
+	private static boolean hidden(String name) {
+		return name.startsWith(".");
+	}
+
+	// Reaproveita os itens que continuam existindo, para as pastas abertas continuarem abertas
+	private void merge(PathItem item, List<Entry> entries) {
+		Map<String, PathItem> current = new HashMap<>();
+		for (TreeItem<String> child : item.getChildren()) {
+			current.put(child.getValue(), (PathItem) child);
+		}
+		List<PathItem> children = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			PathItem existing = current.get(entry.name());
+			if (existing != null && existing.isDirectory() == entry.directory()) {
+				current.remove(entry.name());
+				children.add(existing);
+			} else {
+				children.add(item(item.getPath().resolve(entry.name()), entry.directory()));
+			}
+		}
+		for (PathItem gone : current.values()) {
+			forget(gone);
+		}
+		item.getChildren().setAll(children);
+	}
+
+	// Item saiu da árvore: para de observar a pasta e as subpastas
+	private void forget(PathItem item) {
+		if (!item.isDirectory()) return;
+		scans.cancel(item);
+		WatchKey key = item.key;
+		if (key != null) {
+			key.cancel();
+			watched.remove(key);
+			item.key = null;
+		}
+		for (TreeItem<String> child : item.getChildren()) {
+			forget((PathItem) child);
+		}
+	}
+
+	// Thread do WatchService: junta os eventos de cada pasta e os aplica na thread do JavaFX
+	private void watch(WatchService service) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				PathItem item = watched.get(key);
+				List<Change> changes = new ArrayList<>();
+				boolean overflow = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW || item == null) {
+						overflow = true;
+						continue;
+					}
+					String name = event.context().toString();
+					if (hidden(name)) continue;
+					boolean created = event.kind() == ENTRY_CREATE;
+					changes.add(new Change(name, created, created && Files.isDirectory(item.getPath().resolve(name))));
+				}
+				// Chave inválida: a pasta foi apagada, e o evento na pasta de cima remove o item
+				if (!key.reset()) watched.remove(key);
+				if (item == null) continue;
+				boolean rescan = overflow;
+				Platform.runLater(() -> apply(item, changes, rescan));
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Explorer fechado
+		}
+	}
+
+	private void apply(PathItem item, List<Change> changes, boolean overflow) {
+		if (item.loading) {
+			// A listagem em andamento pode ter passado do ponto da mudança
+			item.stale = true;
+			return;
+		}
+		if (!item.loaded) return;
+		if (overflow) {
+			load(item);
+			return;
+		}
+		List<TreeItem<String>> children = item.getChildren();
+		for (Change change : changes) {
+			if (change.created()) {
+				int index = indexOf(children, change.name(), change.directory());
+				if (index < 0) {
+					children.add(-index - 1, item(item.getPath().resolve(change.name()), change.directory()));
+				}
+			} else {
+				// Apagado não dá para saber se era pasta; procura nos dois grupos
+				int index = indexOf(children, change.name(), true);
+				if (index < 0) index = indexOf(children, change.name(), false);
+				if (index >= 0) forget((PathItem) children.remove(index));
+			}
+		}
+	}
+
+	// Busca binária nos filhos, que estão sempre na ordem de PathItem.compare
+	private static int indexOf(List<TreeItem<String>> children, String name, boolean directory) {
+		int low = 0;
+		int high = children.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			PathItem child = (PathItem) children.get(middle);
+			int order = PathItem.compare(child.isDirectory(), child.getValue(), directory, name);
+			if (order < 0) {
+				low = middle + 1;
+			} else if (order > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+}
@@ -0,0 +1,72 @@
+package application.interpreter;
+
+// Código compilado de uma função: instruções empacotadas, pool de constantes e a linha
+// do código-fonte de cada instrução (para mensagens de erro).
+public final class Chunk {
+	private final int[] code;
+	private final int[] lines;
+	private final Object[] constants;
+	// Constantes já na forma etiqueta + payload usada pela máquina virtual
+	private final byte[] constantTags;
+	private final long[] constantValues;
+	private final int maxStack;
+
+	Chunk(int[] code, int[] lines, Object[] constants, int maxStack) {
+		this.code = code;
+		this.lines = lines;
+		this.constants = constants;
+		this.maxStack = maxStack;
+		constantTags = new byte[constants.length];
+		constantValues = new long[constants.length];
+		for (int i = 0; i < constants.length; i++) {
+			constantTags[i] = Value.tagOf(constants[i]);
+			constantValues[i] = Value.payloadOf(constants[i]);
+		}
+	}
+
+	public int[] code() {
+		return code;
+	}
+
+	public Object[] constants() {
+		return constants;
+	}
+
+	public byte[] constantTags() {
+		return constantTags;
+	}
+
+	public long[] constantValues() {
+		return constantValues;
+	}
+
+	public int line(int pc) {
+		return lines[pc];
+	}
+
+	public int size() {
+		return code.length;
+	}
+
+	// Altura máxima da pilha de operandos dentro desta função
+	public int maxStack() {
+		return maxStack;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		for (int pc = 0; pc < code.length; pc++) {
+			int op = OpCode.op(code[pc]);
+			out.append(String.format("%04d %4d  %-14s", pc, lines[pc], OpCode.name(op)));
+			int arg = OpCode.arg(code[pc]);
+			if (op == OpCode.CONST || op == OpCode.CONST_LIST) {
+				out.append(arg).append(" (").append(constants[arg]).append(')');
+			} else if (arg != 0) {
+				out.append(arg);
+			}
+			out.append('\n');
+		}
+		return out.toString();
+	}
+}
@@ -0,0 +1,123 @@
+package application.interpreter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Monta um Chunk instrução por instrução. Desvios para frente usam rótulos: o endereço é
+// preenchido quando o rótulo é posicionado com bind.
+public final class ChunkBuilder {
+	private int[] code = new int[64];
+	private int[] lines = new int[64];
+	private int size = 0;
+	private Object[] constants = new Object[8];
+	private int constantCount = 0;
+	private final Map<Object, Integer> constantIndex = new HashMap<>();
+	private int depth = 0;
+	private int maxDepth = 0;
+
+	// Endereço de cada rótulo (-1 enquanto não posicionado) e desvios pendentes
+	private int[] labels = new int[16];
+	private int labelCount = 0;
+	private int[] patches = new int[16];
+	private int patchCount = 0;
+
+	public int emit(int op, int line) {
+		return emit(op, 0, line);
+	}
+
+	public int emit(int op, int arg, int line) {
+		int effect;
+		if (op == OpCode.PRINT) {
+			effect = -arg;
+		} else if (op == OpCode.FORMAT || op == OpCode.NEW_LIST) {
+			effect = 1 - arg;
+		} else if (op == OpCode.CALL) {
+			throw new IllegalArgumentException("Use emitCall para CALL");
+		} else {
+			effect = OpCode.stackEffect(op);
+		}
+		return append(op, arg, line, effect);
+	}
+
+	// A chamada desempilha os argumentos e empilha o retorno (se houver)
+	public int emitCall(int function, int arity, boolean returnsValue, int line) {
+		return append(OpCode.CALL, function, line, (returnsValue ? 1 : 0) - arity);
+	}
+
+	public int emitConstant(Object value, int line) {
+		if (value instanceof Long) {
+			long number = (Long) value;
+			if (number >= OpCode.MIN_ARG && number <= OpCode.MAX_ARG) {
+				return emit(OpCode.INT, (int) number, line);
+			}
+		}
+		return emit(OpCode.CONST, addConstant(value), line);
+	}
+
+	public int addConstant(Object value) {
+		Integer index = constantIndex.get(value);
+		if (index != null) return index;
+		if (constantCount == constants.length) {
+			constants = Arrays.copyOf(constants, constantCount * 2);
+		}
+		constants[constantCount] = value;
+		constantIndex.put(value, constantCount);
+		return constantCount++;
+	}
+
+	public int newLabel() {
+		if (labelCount == labels.length) {
+			labels = Arrays.copyOf(labels, labelCount * 2);
+		}
+		labels[labelCount] = -1;
+		return labelCount++;
+	}
+
+	// Posiciona o rótulo na próxima instrução
+	public void bind(int label) {
+		labels[label] = size;
+	}
+
+	public int emitJump(int op, int label, int line) {
+		if (patchCount == patches.length) {
+			patches = Arrays.copyOf(patches, patchCount * 2);
+		}
+		patches[patchCount++] = size;
+		return emit(op, label, line);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Chunk build() {
+		for (int i = 0; i < patchCount; i++) {
+			int pc = patches[i];
+			int target = labels[OpCode.arg(code[pc])];
+			if (target < 0) {
+				throw new IllegalStateException("Rótulo não posicionado em " + pc);
+			}
+			code[pc] = OpCode.encode(OpCode.op(code[pc]), target);
+		}
+		return new Chunk(Arrays.copyOf(code, size), Arrays.copyOf(lines, size),
+				Arrays.copyOf(constants, constantCount), maxDepth);
+	}
+
+	private int append(int op, int arg, int line, int effect) {
+		if (arg < OpCode.MIN_ARG || arg > OpCode.MAX_ARG) {
+			throw new IllegalArgumentException("Argumento fora do limite: " + arg);
+		}
+		if (size == code.length) {
+			code = Arrays.copyOf(code, size * 2);
+			lines = Arrays.copyOf(lines, size * 2);
+		}
+		code[size] = OpCode.encode(op, arg);
+		lines[size] = line;
+		// Código estruturado: a altura nos dois lados de um desvio é a mesma, então a
+		// contagem linear dá o máximo real
+		depth += effect;
+		maxDepth = Math.max(maxDepth, depth);
+		return size++;
+	}
+}
@@ -0,0 +1,7 @@
+package application.interpreter;
+
+// Função traduzida para bytecode da JVM pelo JitCompiler. Os argumentos são lidos direto da
+// pilha de payloads da máquina virtual, a partir de base.
+interface CompiledCode {
+	long call(long[] values, int base, int depth);
+}
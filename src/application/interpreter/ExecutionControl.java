@@ -0,0 +1,80 @@
+package application.interpreter;
+
+// Pedido de parada e limites de uma execução. O Interpretador chama poll a cada
+// CHECK_INTERVAL instruções e o código do JitCompiler a cada volta de laço e chamada; só
+// nesses pontos seguros o pedido de parada (volatile) e o relógio são consultados. Passar de
+// um limite ou parar encerra a execução com um RuntimeError comum, sem matar a thread.
+//
+// Os limites valem por execução; 0 desliga cada um. A memória é uma estimativa do que o
+// programa alocou no total: 8 bytes por elemento de lista e 2 por caractere de texto criado.
+public final class ExecutionControl {
+	// Instruções entre duas verificações completas
+	static final int CHECK_INTERVAL = 4096;
+
+	private final long maxInstructions;
+	private final long maxMillis;
+	private final long maxAllocatedBytes;
+	private volatile boolean stopRequested = false;
+	private long instructions = 0;
+	private long nextCheck = CHECK_INTERVAL;
+	private long allocatedBytes = 0;
+	private long deadline = Long.MAX_VALUE;
+
+	public ExecutionControl(long maxInstructions, long maxMillis, long maxAllocatedBytes) {
+		this.maxInstructions = maxInstructions;
+		this.maxMillis = maxMillis;
+		this.maxAllocatedBytes = maxAllocatedBytes;
+	}
+
+	public static ExecutionControl unlimited() {
+		return new ExecutionControl(0, 0, 0);
+	}
+
+	// Pode ser chamado de qualquer thread; a execução para no próximo ponto seguro
+	public void requestStop() {
+		stopRequested = true;
+	}
+
+	public boolean stopRequested() {
+		return stopRequested;
+	}
+
+	public long instructions() {
+		return instructions;
+	}
+
+	void start() {
+		if (maxMillis > 0) {
+			deadline = System.nanoTime() + maxMillis * 1_000_000;
+		}
+	}
+
+	// Conta instruções executadas desde o último ponto seguro
+	void poll(int executed, int line) {
+		instructions += executed;
+		if (instructions >= nextCheck) {
+			check(line);
+		}
+	}
+
+	void allocate(long bytes, int line) {
+		allocatedBytes += bytes;
+		if (maxAllocatedBytes > 0 && allocatedBytes > maxAllocatedBytes) {
+			throw new RuntimeError("Limite de memória excedido: mais de " + maxAllocatedBytes / (1024 * 1024)
+					+ " MB alocados", line);
+		}
+	}
+
+	private void check(int line) {
+		nextCheck = instructions + CHECK_INTERVAL;
+		if (stopRequested) {
+			throw new RuntimeError("Execução interrompida", line);
+		}
+		if (maxInstructions > 0 && instructions > maxInstructions) {
+			throw new RuntimeError("Limite de " + maxInstructions + " instruções excedido", line);
+		}
+		if (deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+			throw new RuntimeError("Limite de tempo de " + maxMillis + " ms excedido", line);
+		}
+	}
+}
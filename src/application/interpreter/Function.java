@@ -0,0 +1,48 @@
+package application.interpreter;
+
+// Função compilada. Os parâmetros ocupam os primeiros slots locais. Os tipos declarados
+// (OpCode.TYPE_*) permitem ao Jit gerar código sem etiquetas para funções só com inteiros.
+public final class Function {
+	private final String name;
+	private final int[] parameterTypes;
+	private final int localCount;
+	private final int returnType;
+	private final Chunk chunk;
+
+	// returnType é OpCode.TYPE_VOID para funções sem retorno
+	public Function(String name, int[] parameterTypes, int localCount, int returnType, Chunk chunk) {
+		this.name = name;
+		this.parameterTypes = parameterTypes;
+		this.localCount = localCount;
+		this.returnType = returnType;
+		this.chunk = chunk;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public int arity() {
+		return parameterTypes.length;
+	}
+
+	public int parameterType(int parameter) {
+		return parameterTypes[parameter];
+	}
+
+	public int localCount() {
+		return localCount;
+	}
+
+	public boolean returnsValue() {
+		return returnType != OpCode.TYPE_VOID;
+	}
+
+	public int returnType() {
+		return returnType;
+	}
+
+	public Chunk chunk() {
+		return chunk;
+	}
+}
@@ -1,9 +1,658 @@
 package application.interpreter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
 
+// Máquina virtual de pilha que executa um Program compilado. O laço de despacho lê
+// instruções empacotadas em int[]; variáveis locais ficam em slots do frame na própria
+// pilha de operandos e globais numa tabela indexada, sem busca por nome.
+//
+// Os valores não são objetos: a pilha e as globais são arrays paralelos de etiqueta (Value.*),
+// payload long e referência (só para textos e listas). Aritmética, comparações e laços
+// numéricos rodam sem alocar nada.
+//
+// Funções chamadas muitas vezes ou com laços longos passam para o JitCompiler; se a tradução
+// der certo, as próximas chamadas vão direto para o bytecode gerado. A propriedade
+// -Dscribo.jit=false mantém tudo interpretado.
+//
+// A cada ExecutionControl.CHECK_INTERVAL instruções o laço passa por um ponto seguro, onde o
+// ExecutionControl da execução confere o pedido de parada e os limites de instruções, tempo
+// e memória.
+public class Interpretador {
+	private static final int STACK_SIZE = 1 << 16;
+	static final int MAX_FRAMES = 4096;
+	private static final boolean JIT_ENABLED = !"false".equals(System.getProperty("scribo.jit"));
+	// Chamadas mais voltas de laço até a função ser traduzida
+	private static final int JIT_THRESHOLD = 1000;
+	// Nomes dos tipos OpCode.TYPE_*, para mensagens de erro
+	private static final String[] TYPE_NAMES = { "int", "long", "short", "unsigned", "double", "string", "bool", "lista" };
 
+	private final PrintStream out;
+	private final BufferedReader in;
+	private final ExecutionControl control;
 
-public class Interpretador {
+	private byte[] tags;
+	private long[] values;
+	private Object[] refs;
+	private byte[] globalTags;
+	private long[] globalValues;
+	private Object[] globalRefs;
+
+	// Contador de cada função até a tradução (-1: não pode ser traduzida) e o código gerado
+	private JitCompiler jit;
+	private int[] hotness;
+	private CompiledCode[] compiled;
+
+	// Frames salvos das funções chamadoras
+	private final Function[] frameFunctions = new Function[MAX_FRAMES];
+	private final int[] frameIndexes = new int[MAX_FRAMES];
+	private final int[] framePcs = new int[MAX_FRAMES];
+	private final int[] frameBases = new int[MAX_FRAMES];
+
+	public Interpretador(PrintStream out, BufferedReader in) {
+		this(out, in, ExecutionControl.unlimited());
+	}
+
+	public Interpretador(PrintStream out, BufferedReader in, ExecutionControl control) {
+		this.out = out;
+		this.in = in;
+		this.control = control;
+	}
+
+	public void executar(Program program) {
+		tags = new byte[STACK_SIZE];
+		values = new long[STACK_SIZE];
+		refs = new Object[STACK_SIZE];
+		globalTags = new byte[program.globalCount()];
+		globalValues = new long[program.globalCount()];
+		globalRefs = new Object[program.globalCount()];
+		jit = JIT_ENABLED ? new JitCompiler(program, control) : null;
+		hotness = new int[program.functionCount()];
+		compiled = new CompiledCode[program.functionCount()];
+
+		// Cópias locais para o laço de despacho
+		final byte[] tags = this.tags;
+		final long[] values = this.values;
+		final Object[] refs = this.refs;
+		final byte[] globalTags = this.globalTags;
+		final long[] globalValues = this.globalValues;
+		final Object[] globalRefs = this.globalRefs;
+
+		Function function = program.main();
+		// Índice da função atual no programa; -1 no nível superior
+		int current = -1;
+		int[] code = function.chunk().code();
+		Object[] constants = function.chunk().constants();
+		byte[] constantTags = function.chunk().constantTags();
+		long[] constantValues = function.chunk().constantValues();
+		int pc = 0;
+		int base = 0;
+		int sp = function.localCount();
+		int depth = 0;
+		// Instruções até o próximo ponto seguro
+		int fuel = ExecutionControl.CHECK_INTERVAL;
+		control.start();
+
+		for (;;) {
+			if (--fuel == 0) {
+				fuel = ExecutionControl.CHECK_INTERVAL;
+				control.poll(ExecutionControl.CHECK_INTERVAL, function.chunk().line(pc));
+			}
+			int instruction = code[pc++];
+			switch (instruction & 0xFF) {
+				case OpCode.CONST: {
+					int index = instruction >> 8;
+					tags[sp] = constantTags[index];
+					values[sp] = constantValues[index];
+					refs[sp++] = constants[index];
+					break;
+				}
+				case OpCode.INT:
+					tags[sp] = Value.INT;
+					values[sp] = instruction >> 8;
+					refs[sp++] = null;
+					break;
+				case OpCode.TRUE:
+				case OpCode.FALSE:
+					tags[sp] = Value.BOOL;
+					values[sp] = (instruction & 0xFF) == OpCode.TRUE ? 1 : 0;
+					refs[sp++] = null;
+					break;
+				case OpCode.LOAD_LOCAL: {
+					int slot = base + (instruction >> 8);
+					tags[sp] = tags[slot];
+					values[sp] = values[slot];
+					refs[sp++] = refs[slot];
+					break;
+				}
+				case OpCode.STORE_LOCAL: {
+					int slot = base + (instruction >> 8);
+					sp--;
+					tags[slot] = tags[sp];
+					values[slot] = values[sp];
+					refs[slot] = refs[sp];
+					break;
+				}
+				case OpCode.LOAD_GLOBAL: {
+					int index = instruction >> 8;
+					tags[sp] = globalTags[index];
+					values[sp] = globalValues[index];
+					refs[sp++] = globalRefs[index];
+					break;
+				}
+				case OpCode.STORE_GLOBAL: {
+					int index = instruction >> 8;
+					sp--;
+					globalTags[index] = tags[sp];
+					globalValues[index] = values[sp];
+					globalRefs[index] = refs[sp];
+					break;
+				}
+				case OpCode.POP:
+					sp--;
+					break;
+				case OpCode.DUP:
+					tags[sp] = tags[sp - 1];
+					values[sp] = values[sp - 1];
+					refs[sp] = refs[sp - 1];
+					sp++;
+					break;
+				case OpCode.ADD:
+				case OpCode.SUB:
+				case OpCode.MUL:
+				case OpCode.DIV:
+				case OpCode.MOD:
+					sp--;
+					if (tags[sp - 1] == Value.INT && tags[sp] == Value.INT) {
+						values[sp - 1] = integer(instruction & 0xFF, values[sp - 1], values[sp], function, pc);
+					} else {
+						arithmetic(instruction & 0xFF, sp - 1, line(function, pc));
+					}
+					break;
+				case OpCode.NEG:
+					if (tags[sp - 1] == Value.INT) {
+						values[sp - 1] = -values[sp - 1];
+					} else if (tags[sp - 1] == Value.DOUBLE) {
+						values[sp - 1] = Double.doubleToRawLongBits(-Double.longBitsToDouble(values[sp - 1]));
+					} else {
+						throw new RuntimeError("Operador '-' exige um número, encontrado " + Value.typeName(tags[sp - 1]), line(function, pc));
+					}
+					break;
+				case OpCode.EQ:
+				case OpCode.NE: {
+					sp--;
+					boolean same = equal(sp - 1, sp, function, pc);
+					setBool(sp - 1, (instruction & 0xFF) == OpCode.EQ ? same : !same);
+					break;
+				}
+				case OpCode.LT:
+				case OpCode.LE:
+				case OpCode.GT:
+				case OpCode.GE:
+					sp--;
+					setBool(sp - 1, compare(instruction & 0xFF, sp - 1, sp, line(function, pc)));
+					break;
+				case OpCode.NOT:
+					setBool(sp - 1, !truth(sp - 1, function, pc));
+					break;
+				case OpCode.CAST:
+					convert(sp - 1, instruction >> 8, line(function, pc));
+					break;
+				case OpCode.JUMP: {
+					int target = instruction >> 8;
+					if (target < pc && current >= 0) heat(current);
+					pc = target;
+					break;
+				}
+				case OpCode.JUMP_IF_TRUE:
+					if (truth(--sp, function, pc)) {
+						int target = instruction >> 8;
+						// Laços testam a condição no fim: desvio para trás é uma volta
+						if (target < pc && current >= 0) heat(current);
+						pc = target;
+					}
+					break;
+				case OpCode.JUMP_IF_FALSE:
+					if (!truth(--sp, function, pc)) {
+						pc = instruction >> 8;
+					}
+					break;
+				case OpCode.AND_JUMP:
+					if (!truth(sp - 1, function, pc)) {
+						pc = instruction >> 8;
+					} else {
+						sp--;
+					}
+					break;
+				case OpCode.OR_JUMP:
+					if (truth(sp - 1, function, pc)) {
+						pc = instruction >> 8;
+					} else {
+						sp--;
+					}
+					break;
+				case OpCode.CALL: {
+					int index = instruction >> 8;
+					Function callee = program.function(index);
+					if (depth == MAX_FRAMES) {
+						throw new RuntimeError("Recursão muito profunda em '" + callee.name() + "'", line(function, pc));
+					}
+					int calleeBase = sp - callee.arity();
+					heat(index);
+					if (compiled[index] != null) {
+						long result;
+						try {
+							result = compiled[index].call(values, calleeBase, depth + 1);
+						} catch (StackOverflowError e) {
+							throw new RuntimeError("Recursão muito profunda em '" + callee.name() + "'", line(function, pc));
+						}
+						sp = calleeBase;
+						if (callee.returnsValue()) {
+							tags[sp] = callee.returnType() == OpCode.TYPE_BOOL ? Value.BOOL : Value.INT;
+							values[sp] = result;
+							refs[sp++] = null;
+						}
+						break;
+					}
+					int calleeTop = calleeBase + callee.localCount();
+					if (calleeTop + callee.chunk().maxStack() > STACK_SIZE) {
+						throw new RuntimeError("Estouro da pilha ao chamar '" + callee.name() + "'", line(function, pc));
+					}
+					frameFunctions[depth] = function;
+					frameIndexes[depth] = current;
+					framePcs[depth] = pc;
+					frameBases[depth] = base;
+					depth++;
+
+					// Locais além dos parâmetros começam vazios
+					for (int slot = sp; slot < calleeTop; slot++) {
+						tags[slot] = Value.VOID;
+						refs[slot] = null;
+					}
+					function = callee;
+					current = index;
+					code = callee.chunk().code();
+					constants = callee.chunk().constants();
+					constantTags = callee.chunk().constantTags();
+					constantValues = callee.chunk().constantValues();
+					base = calleeBase;
+					sp = calleeTop;
+					pc = 0;
+					break;
+				}
+				case OpCode.RETURN:
+				case OpCode.RETURN_VOID: {
+					if (depth == 0) return;
+					if ((instruction & 0xFF) == OpCode.RETURN) {
+						// O resultado ocupa o lugar do primeiro argumento
+						tags[base] = tags[sp - 1];
+						values[base] = values[sp - 1];
+						refs[base] = refs[sp - 1];
+						sp = base + 1;
+					} else {
+						sp = base;
+					}
+					depth--;
+					function = frameFunctions[depth];
+					current = frameIndexes[depth];
+					pc = framePcs[depth];
+					base = frameBases[depth];
+					code = function.chunk().code();
+					constants = function.chunk().constants();
+					constantTags = function.chunk().constantTags();
+					constantValues = function.chunk().constantValues();
+					frameFunctions[depth] = null;
+					break;
+				}
+				case OpCode.PRINT: {
+					int count = instruction >> 8;
+					StringBuilder text = new StringBuilder();
+					for (int i = sp - count; i < sp; i++) {
+						text.append(format(i));
+					}
+					sp -= count;
+					out.println(text);
+					break;
+				}
+				case OpCode.FORMAT: {
+					int count = instruction >> 8;
+					sp -= count;
+					String text = formatValue(sp, count, line(function, pc));
+					setText(sp++, text, line(function, pc));
+					break;
+				}
+				case OpCode.READ:
+					read(sp++, instruction >> 8, line(function, pc));
+					break;
+				case OpCode.NEW_LIST: {
+					int count = instruction >> 8;
+					sp -= count;
+					control.allocate(8L * count, line(function, pc));
+					Lista list = new Lista(count);
+					for (int i = sp; i < sp + count; i++) {
+						list.add(tags[i], values[i], refs[i]);
+					}
+					tags[sp] = Value.LIST;
+					values[sp] = 0;
+					refs[sp++] = list;
+					break;
+				}
+				case OpCode.CONST_LIST: {
+					// A constante fica intacta; cada avaliação do literal ganha sua própria lista
+					Lista constant = (Lista) constants[instruction >> 8];
+					control.allocate(8L * constant.size(), line(function, pc));
+					tags[sp] = Value.LIST;
+					values[sp] = 0;
+					refs[sp++] = constant.copy();
+					break;
+				}
+				case OpCode.INDEX_GET: {
+					sp--;
+					Lista list = list(sp - 1, function, pc);
+					list.get(index(list, sp, function, pc), tags, values, refs, sp - 1);
+					break;
+				}
+				case OpCode.INDEX_SET: {
+					sp -= 3;
+					Lista list = list(sp, function, pc);
+					list.set(index(list, sp + 1, function, pc), tags[sp + 2], values[sp + 2], refs[sp + 2]);
+					break;
+				}
+				case OpCode.LENGTH: {
+					Lista list = list(sp - 1, function, pc);
+					tags[sp - 1] = Value.INT;
+					values[sp - 1] = list.size();
+					refs[sp - 1] = null;
+					break;
+				}
+				case OpCode.APPEND:
+					sp -= 2;
+					control.allocate(8, line(function, pc));
+					list(sp, function, pc).add(tags[sp + 1], values[sp + 1], refs[sp + 1]);
+					break;
+				case OpCode.DUP2:
+					for (int i = sp - 2; i < sp; i++) {
+						tags[i + 2] = tags[i];
+						values[i + 2] = values[i];
+						refs[i + 2] = refs[i];
+					}
+					sp += 2;
+					break;
+				case OpCode.HALT:
+					return;
+				default:
+					throw new IllegalStateException("Instrução inválida: " + (instruction & 0xFF));
+			}
+		}
+	}
+
+	// Conta uma chamada ou volta de laço da função e a traduz ao atingir o limite
+	private void heat(int function) {
+		if (jit == null || hotness[function] < 0 || compiled[function] != null) return;
+		if (++hotness[function] < JIT_THRESHOLD) return;
+		compiled[function] = jit.compile(function);
+		if (compiled[function] == null) {
+			// Não serve para o Jit: não tenta de novo
+			hotness[function] = -1;
+		}
+	}
+
+	// Linha da instrução que acabou de ser lida (pc já avançou)
+	private static int line(Function function, int pc) {
+		return function.chunk().line(pc - 1);
+	}
+
+	// Caminho rápido: os dois operandos são inteiros
+	private static long integer(int op, long x, long y, Function function, int pc) {
+		switch (op) {
+			case OpCode.ADD: return x + y;
+			case OpCode.SUB: return x - y;
+			case OpCode.MUL: return x * y;
+			case OpCode.DIV:
+				if (y == 0) throw new RuntimeError("Divisão por zero", line(function, pc));
+				return x / y;
+			default:
+				if (y == 0) throw new RuntimeError("Divisão por zero", line(function, pc));
+				return x % y;
+		}
+	}
+
+	// Aritmética com doubles ou concatenação de texto; o resultado fica no slot a
+	private void arithmetic(int op, int a, int line) {
+		int b = a + 1;
+		if (isNumber(tags[a]) && isNumber(tags[b])) {
+			double x = Value.asDouble(tags[a], values[a]);
+			double y = Value.asDouble(tags[b], values[b]);
+			double result;
+			switch (op) {
+				case OpCode.ADD: result = x + y; break;
+				case OpCode.SUB: result = x - y; break;
+				case OpCode.MUL: result = x * y; break;
+				case OpCode.DIV: result = x / y; break;
+				default: result = x % y; break;
+			}
+			tags[a] = Value.DOUBLE;
+			values[a] = Double.doubleToRawLongBits(result);
+			return;
+		}
+		// '+' com texto concatena
+		if (op == OpCode.ADD && (tags[a] == Value.TEXT || tags[b] == Value.TEXT)) {
+			setText(a, format(a) + format(b), line);
+			return;
+		}
+		throw new RuntimeError("Operação '" + symbol(op) + "' inválida entre " + Value.typeName(tags[a])
+				+ " e " + Value.typeName(tags[b]), line);
+	}
+
+	private static boolean isNumber(byte tag) {
+		return tag == Value.INT || tag == Value.DOUBLE;
+	}
+
+	private boolean equal(int a, int b, Function function, int pc) {
+		byte tagA = tags[a];
+		byte tagB = tags[b];
+		if (tagA == tagB) {
+			switch (tagA) {
+				case Value.DOUBLE:
+					return Double.longBitsToDouble(values[a]) == Double.longBitsToDouble(values[b]);
+				case Value.TEXT:
+					return refs[a].equals(refs[b]);
+				case Value.LIST:
+					// Listas que contêm a si mesmas (adicionar(l, l)) não têm fim para comparar
+					try {
+						return refs[a].equals(refs[b]);
+					} catch (StackOverflowError e) {
+						throw new RuntimeError("Comparação de listas aninhadas demais (uma lista contém a si mesma?)", line(function, pc));
+					}
+				case Value.VOID:
+					return true;
+				default:
+					return values[a] == values[b];
+			}
+		}
+		if (isNumber(tagA) && isNumber(tagB)) {
+			return Value.asDouble(tagA, values[a]) == Value.asDouble(tagB, values[b]);
+		}
+		return false;
+	}
+
+	private boolean compare(int op, int a, int b, int line) {
+		int result;
+		if (tags[a] == Value.INT && tags[b] == Value.INT) {
+			result = Long.compare(values[a], values[b]);
+		} else if (isNumber(tags[a]) && isNumber(tags[b])) {
+			double x = Value.asDouble(tags[a], values[a]);
+			double y = Value.asDouble(tags[b], values[b]);
+			// Comparações com NaN são sempre falsas
+			if (x != x || y != y) return false;
+			result = Double.compare(x, y);
+		} else if (tags[a] == Value.TEXT && tags[b] == Value.TEXT) {
+			result = ((String) refs[a]).compareTo((String) refs[b]);
+		} else {
+			throw new RuntimeError("Não é possível comparar " + Value.typeName(tags[a]) + " com "
+					+ Value.typeName(tags[b]), line);
+		}
+		switch (op) {
+			case OpCode.LT: return result < 0;
+			case OpCode.LE: return result <= 0;
+			case OpCode.GT: return result > 0;
+			default: return result >= 0;
+		}
+	}
+
+	private Lista list(int slot, Function function, int pc) {
+		if (tags[slot] == Value.LIST) return (Lista) refs[slot];
+		throw new RuntimeError("Esperada uma lista, encontrado " + Value.typeName(tags[slot]), line(function, pc));
+	}
+
+	private int index(Lista list, int slot, Function function, int pc) {
+		if (tags[slot] != Value.INT) {
+			throw new RuntimeError("Índice da lista deve ser inteiro, encontrado " + Value.typeName(tags[slot]), line(function, pc));
+		}
+		long index = values[slot];
+		if (index < 0 || index >= list.size()) {
+			throw new RuntimeError("Índice " + index + " fora da lista de tamanho " + list.size(), line(function, pc));
+		}
+		return (int) index;
+	}
+
+	private boolean truth(int slot, Function function, int pc) {
+		if (tags[slot] == Value.BOOL) return values[slot] != 0;
+		throw new RuntimeError("Condição deve ser um valor lógico, encontrado " + Value.typeName(tags[slot]), line(function, pc));
+	}
+
+	private void setBool(int slot, boolean value) {
+		tags[slot] = Value.BOOL;
+		values[slot] = value ? 1 : 0;
+		refs[slot] = null;
+	}
+
+	private void setText(int slot, String text, int line) {
+		control.allocate(2L * text.length(), line);
+		tags[slot] = Value.TEXT;
+		values[slot] = 0;
+		refs[slot] = text;
+	}
+
+	// Conversão para o tipo declarado de uma variável, no próprio slot
+	private void convert(int slot, int type, int line) {
+		switch (type) {
+			case OpCode.TYPE_INT:
+				values[slot] = (int) number(slot, type, line);
+				break;
+			case OpCode.TYPE_LONG:
+				values[slot] = number(slot, type, line);
+				break;
+			case OpCode.TYPE_SHORT:
+				values[slot] = (short) number(slot, type, line);
+				break;
+			case OpCode.TYPE_UNSIGNED: {
+				long number = number(slot, type, line);
+				if (number < 0) {
+					throw new RuntimeError("Valor negativo não cabe em unsigned: " + number, line);
+				}
+				values[slot] = number & 0xFFFFFFFFL;
+				break;
+			}
+			case OpCode.TYPE_DOUBLE:
+				if (!isNumber(tags[slot])) throw incompatible(slot, type, line);
+				values[slot] = Double.doubleToRawLongBits(Value.asDouble(tags[slot], values[slot]));
+				tags[slot] = Value.DOUBLE;
+				return;
+			case OpCode.TYPE_TEXT:
+				if (tags[slot] != Value.TEXT) throw incompatible(slot, type, line);
+				return;
+			case OpCode.TYPE_BOOL:
+				if (tags[slot] != Value.BOOL) throw incompatible(slot, type, line);
+				return;
+			case OpCode.TYPE_LIST:
+				if (tags[slot] != Value.LIST) throw incompatible(slot, type, line);
+				return;
+			default:
+				throw incompatible(slot, type, line);
+		}
+		tags[slot] = Value.INT;
+	}
+
+	private long number(int slot, int type, int line) {
+		if (tags[slot] == Value.INT) return values[slot];
+		// Atribuir um double a um inteiro descarta a parte fracionária
+		if (tags[slot] == Value.DOUBLE) return (long) Double.longBitsToDouble(values[slot]);
+		throw incompatible(slot, type, line);
+	}
+
+	private RuntimeError incompatible(int slot, int type, int line) {
+		return new RuntimeError("Tipo incompatível: esperado " + TYPE_NAMES[type] + ", encontrado "
+				+ Value.typeName(tags[slot]), line);
+	}
+
+	// formatar(valor) converte para texto; formatar(numero, casas) fixa as casas decimais
+	private String formatValue(int from, int count, int line) {
+		if (count == 1) return format(from);
+		int places = from + 1;
+		if (!isNumber(tags[from]) || tags[places] != Value.INT) {
+			throw new RuntimeError("formatar espera um número e a quantidade de casas decimais", line);
+		}
+		long digits = values[places];
+		if (digits < 0 || digits > 20) {
+			throw new RuntimeError("Quantidade de casas decimais inválida: " + digits, line);
+		}
+		return String.format(Locale.ROOT, "%." + digits + "f", Value.asDouble(tags[from], values[from]));
+	}
+
+	// Lê uma linha e grava no slot já convertida para o tipo
+	private void read(int slot, int type, int line) {
+		String text;
+		try {
+			text = in.readLine();
+		} catch (IOException e) {
+			throw new RuntimeError("Falha ao ler a entrada: " + e.getMessage(), line);
+		}
+		if (text == null) {
+			throw new RuntimeError("Fim da entrada ao executar 'ler'", line);
+		}
+		text = text.trim();
+		refs[slot] = null;
+		try {
+			switch (type) {
+				case OpCode.TYPE_TEXT:
+					setText(slot, text, line);
+					return;
+				case OpCode.TYPE_BOOL:
+					if (text.equals("verdadeiro") || text.equals("falso")) {
+						setBool(slot, text.equals("verdadeiro"));
+						return;
+					}
+					break;
+				case OpCode.TYPE_DOUBLE:
+					tags[slot] = Value.DOUBLE;
+					values[slot] = Double.doubleToRawLongBits(Double.parseDouble(text));
+					return;
+				default:
+					tags[slot] = Value.INT;
+					values[slot] = Long.parseLong(text);
+					convert(slot, type, line);
+					return;
+			}
+		} catch (NumberFormatException e) {
+			// Cai no erro abaixo
+		}
+		throw new RuntimeError("Entrada inválida para " + TYPE_NAMES[type] + ": '" + text + "'", line);
+	}
 
+	private String format(int slot) {
+		return Value.format(tags[slot], values[slot], refs[slot]);
+	}
 
+	private static String symbol(int op) {
+		switch (op) {
+			case OpCode.ADD: return "+";
+			case OpCode.SUB: return "-";
+			case OpCode.MUL: return "*";
+			case OpCode.DIV: return "/";
+			default: return "%";
+		}
+	}
 }
@@ -0,0 +1,551 @@
+package application.interpreter;
+
+import static java.lang.constant.ConstantDescs.BSM_CLASS_DATA;
+import static java.lang.constant.ConstantDescs.CD_Object;
+import static java.lang.constant.ConstantDescs.CD_String;
+import static java.lang.constant.ConstantDescs.CD_int;
+import static java.lang.constant.ConstantDescs.CD_long;
+import static java.lang.constant.ConstantDescs.CD_void;
+import static java.lang.constant.ConstantDescs.DEFAULT_NAME;
+import static java.lang.constant.ConstantDescs.INIT_NAME;
+import static java.lang.constant.ConstantDescs.MTD_void;
+
+import java.lang.classfile.ClassBuilder;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.DynamicConstantDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+
+// Segundo nível de execução: traduz funções quentes para bytecode da JVM com a ClassFile API e
+// carrega o resultado como classe oculta (Lookup.defineHiddenClass), que o HotSpot compila
+// como qualquer outro código e descarta quando o programa termina.
+//
+// Só são traduzidas funções que trabalham apenas com inteiros e lógicos: assim todo valor cabe
+// num long da JVM sem etiqueta. Uma verificação de tipos sobre o bytecode da máquina virtual
+// confirma isso antes; qualquer outra coisa (texto, double, listas, globais, entrada e saída)
+// faz a função continuar no Interpretador. As funções chamadas entram na mesma classe oculta e
+// se chamam com invokestatic.
+//
+// O ExecutionControl da execução vai como dado da classe oculta (MethodHandles.classData):
+// cada volta de laço e cada chamada do código gerado passa por ExecutionControl.poll, então
+// parar e os limites valem também para o código traduzido.
+final class JitCompiler {
+	private static final ClassDesc CD_GENERATED = ClassDesc.of(JitCompiler.class.getPackageName() + ".CodigoCompilado");
+	private static final ClassDesc CD_SUPPORT = ClassDesc.of(JitSupport.class.getName());
+	private static final ClassDesc CD_COMPILED = ClassDesc.of(CompiledCode.class.getName());
+	private static final MethodTypeDesc MTD_ARITHMETIC = MethodTypeDesc.of(CD_long, CD_long, CD_long, CD_int);
+	private static final MethodTypeDesc MTD_UNSIGNED = MethodTypeDesc.of(CD_long, CD_long, CD_int);
+	private static final MethodTypeDesc MTD_ENTER = MethodTypeDesc.of(CD_int, CD_int, CD_String, CD_int);
+	private static final MethodTypeDesc MTD_CALL = MethodTypeDesc.of(CD_long, CD_long.arrayType(), CD_int, CD_int);
+	private static final ClassDesc CD_CONTROL = ClassDesc.of(ExecutionControl.class.getName());
+	private static final MethodTypeDesc MTD_POLL = MethodTypeDesc.of(CD_void, CD_int, CD_int);
+	private static final DynamicConstantDesc<ExecutionControl> CONTROL =
+			DynamicConstantDesc.ofNamed(BSM_CLASS_DATA, DEFAULT_NAME, CD_CONTROL);
+
+	// Tipos da verificação; UNSET é um local ainda não escrito
+	private static final byte UNSET = 0;
+	private static final byte INT = 1;
+	private static final byte BOOL = 2;
+	private static final byte CONFLICT = 3;
+
+	// Resultados de merge
+	private static final int FAILED = -1;
+	private static final int UNCHANGED = 0;
+	private static final int CHANGED = 1;
+
+	private final Program program;
+	private final ExecutionControl control;
+
+	JitCompiler(Program program, ExecutionControl control) {
+		this.program = program;
+		this.control = control;
+	}
+
+	// Código da função pronto para chamar, ou null se ela ou alguma função que ela chama não
+	// pode ser traduzida
+	CompiledCode compile(int function) {
+		int[] group = group(function);
+		if (group == null) return null;
+		try {
+			byte[] bytes = ClassFile.of().build(CD_GENERATED, builder -> generate(builder, function, group));
+			Class<?> generated = MethodHandles.lookup().defineHiddenClassWithClassData(bytes, control, true).lookupClass();
+			return (CompiledCode) generated.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | IllegalArgumentException | IllegalStateException e) {
+			// Erro na geração: a função simplesmente continua interpretada
+			return null;
+		}
+	}
+
+	// A função e todas as que ela chama, direta ou indiretamente; null se alguma não serve
+	private int[] group(int function) {
+		boolean[] member = new boolean[program.functionCount()];
+		int[] pending = new int[program.functionCount()];
+		int pendingCount = 0;
+		int[] group = new int[program.functionCount()];
+		int size = 0;
+		member[function] = true;
+		pending[pendingCount++] = function;
+		while (pendingCount > 0) {
+			int current = pending[--pendingCount];
+			Function candidate = program.function(current);
+			if (!verify(candidate)) return null;
+			group[size++] = current;
+			for (int instruction : candidate.chunk().code()) {
+				if ((instruction & 0xFF) != OpCode.CALL) continue;
+				int callee = instruction >> 8;
+				if (!member[callee]) {
+					member[callee] = true;
+					pending[pendingCount++] = callee;
+				}
+			}
+		}
+		return Arrays.copyOf(group, size);
+	}
+
+	private static byte kindOf(int type) {
+		switch (type) {
+			case OpCode.TYPE_INT:
+			case OpCode.TYPE_LONG:
+			case OpCode.TYPE_SHORT:
+			case OpCode.TYPE_UNSIGNED:
+				return INT;
+			case OpCode.TYPE_BOOL:
+				return BOOL;
+			default:
+				return UNSET;
+		}
+	}
+
+	private static boolean supportedSignature(Function function) {
+		for (int i = 0; i < function.arity(); i++) {
+			if (kindOf(function.parameterType(i)) == UNSET) return false;
+		}
+		return !function.returnsValue() || kindOf(function.returnType()) != UNSET;
+	}
+
+	// Interpretação abstrata do bytecode: prova que todo valor é inteiro ou lógico e que os
+	// operandos de cada instrução têm o tipo que o código gerado supõe
+	private boolean verify(Function function) {
+		if (!supportedSignature(function)) return false;
+		int[] code = function.chunk().code();
+		Object[] constants = function.chunk().constants();
+		for (int instruction : code) {
+			if (!supported(instruction, constants)) return false;
+		}
+
+		int locals = function.localCount();
+		byte[][] states = new byte[code.length][];
+		int[] heights = new int[code.length];
+		int[] worklist = new int[code.length];
+		boolean[] queued = new boolean[code.length];
+		int worklistSize = 0;
+
+		byte[] entry = new byte[locals + function.chunk().maxStack() + 1];
+		for (int i = 0; i < function.arity(); i++) {
+			entry[i] = kindOf(function.parameterType(i));
+		}
+		states[0] = entry;
+		worklistSize = enqueue(worklist, worklistSize, queued, 0, CHANGED);
+
+		while (worklistSize > 0) {
+			int pc = worklist[--worklistSize];
+			queued[pc] = false;
+			byte[] state = states[pc].clone();
+			int sp = locals + heights[pc];
+			int instruction = code[pc];
+			int arg = instruction >> 8;
+			int next = pc + 1;
+			int merged;
+
+			switch (instruction & 0xFF) {
+				case OpCode.INT:
+				case OpCode.CONST:
+					state[sp++] = INT;
+					break;
+				case OpCode.TRUE:
+				case OpCode.FALSE:
+					state[sp++] = BOOL;
+					break;
+				case OpCode.LOAD_LOCAL:
+					if (state[arg] != INT && state[arg] != BOOL) return false;
+					state[sp] = state[arg];
+					sp++;
+					break;
+				case OpCode.STORE_LOCAL:
+					state[arg] = state[--sp];
+					break;
+				case OpCode.POP:
+					sp--;
+					break;
+				case OpCode.DUP:
+					state[sp] = state[sp - 1];
+					sp++;
+					break;
+				case OpCode.ADD:
+				case OpCode.SUB:
+				case OpCode.MUL:
+				case OpCode.DIV:
+				case OpCode.MOD:
+				case OpCode.LT:
+				case OpCode.LE:
+				case OpCode.GT:
+				case OpCode.GE: {
+					int op = instruction & 0xFF;
+					if (state[--sp] != INT || state[sp - 1] != INT) return false;
+					state[sp - 1] = op >= OpCode.LT ? BOOL : INT;
+					break;
+				}
+				case OpCode.EQ:
+				case OpCode.NE:
+					// Inteiro comparado com lógico é sempre diferente no Interpretador
+					if (state[--sp] != state[sp - 1]) return false;
+					state[sp - 1] = BOOL;
+					break;
+				case OpCode.NEG:
+					if (state[sp - 1] != INT) return false;
+					break;
+				case OpCode.NOT:
+					if (state[sp - 1] != BOOL) return false;
+					break;
+				case OpCode.CAST:
+					if (state[sp - 1] != kindOf(arg)) return false;
+					break;
+				case OpCode.JUMP:
+					next = -1;
+					merged = merge(states, heights, locals, arg, state, sp);
+					if (merged == FAILED) return false;
+					worklistSize = enqueue(worklist, worklistSize, queued, arg, merged);
+					break;
+				case OpCode.JUMP_IF_TRUE:
+				case OpCode.JUMP_IF_FALSE:
+					if (state[--sp] != BOOL) return false;
+					merged = merge(states, heights, locals, arg, state, sp);
+					if (merged == FAILED) return false;
+					worklistSize = enqueue(worklist, worklistSize, queued, arg, merged);
+					break;
+				case OpCode.AND_JUMP:
+				case OpCode.OR_JUMP:
+					// O valor fica na pilha quando desvia
+					if (state[sp - 1] != BOOL) return false;
+					merged = merge(states, heights, locals, arg, state, sp);
+					if (merged == FAILED) return false;
+					worklistSize = enqueue(worklist, worklistSize, queued, arg, merged);
+					sp--;
+					break;
+				case OpCode.CALL: {
+					Function callee = program.function(arg);
+					if (!supportedSignature(callee)) return false;
+					for (int i = callee.arity() - 1; i >= 0; i--) {
+						if (state[--sp] != kindOf(callee.parameterType(i))) return false;
+					}
+					if (callee.returnsValue()) {
+						state[sp++] = kindOf(callee.returnType());
+					}
+					break;
+				}
+				case OpCode.RETURN:
+					if (state[--sp] != kindOf(function.returnType())) return false;
+					next = -1;
+					break;
+				default:
+					// RETURN_VOID
+					next = -1;
+					break;
+			}
+
+			if (next >= 0) {
+				if (next >= code.length) return false;
+				merged = merge(states, heights, locals, next, state, sp);
+				if (merged == FAILED) return false;
+				worklistSize = enqueue(worklist, worklistSize, queued, next, merged);
+			}
+		}
+		return true;
+	}
+
+	private static boolean supported(int instruction, Object[] constants) {
+		switch (instruction & 0xFF) {
+			case OpCode.CONST:
+				return constants[instruction >> 8] instanceof Long;
+			case OpCode.CAST:
+				return kindOf(instruction >> 8) != UNSET;
+			case OpCode.INT:
+			case OpCode.TRUE:
+			case OpCode.FALSE:
+			case OpCode.LOAD_LOCAL:
+			case OpCode.STORE_LOCAL:
+			case OpCode.POP:
+			case OpCode.DUP:
+			case OpCode.ADD:
+			case OpCode.SUB:
+			case OpCode.MUL:
+			case OpCode.DIV:
+			case OpCode.MOD:
+			case OpCode.NEG:
+			case OpCode.EQ:
+			case OpCode.NE:
+			case OpCode.LT:
+			case OpCode.LE:
+			case OpCode.GT:
+			case OpCode.GE:
+			case OpCode.NOT:
+			case OpCode.JUMP:
+			case OpCode.JUMP_IF_TRUE:
+			case OpCode.JUMP_IF_FALSE:
+			case OpCode.AND_JUMP:
+			case OpCode.OR_JUMP:
+			case OpCode.CALL:
+			case OpCode.RETURN:
+			case OpCode.RETURN_VOID:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	// Junta o estado que chega em target. A pilha precisa coincidir; um local com tipos
+	// diferentes vira CONFLICT e não pode mais ser lido. Devolve FAILED se a pilha diverge,
+	// CHANGED se target precisa ser (re)visitado e UNCHANGED caso contrário.
+	private static int merge(byte[][] states, int[] heights, int locals, int target, byte[] state, int sp) {
+		int height = sp - locals;
+		byte[] existing = states[target];
+		if (existing == null) {
+			states[target] = state.clone();
+			heights[target] = height;
+			return CHANGED;
+		}
+		if (heights[target] != height) return FAILED;
+		for (int i = locals; i < sp; i++) {
+			if (existing[i] != state[i]) return FAILED;
+		}
+		int result = UNCHANGED;
+		for (int i = 0; i < locals; i++) {
+			if (existing[i] != state[i] && existing[i] != CONFLICT) {
+				existing[i] = CONFLICT;
+				result = CHANGED;
+			}
+		}
+		return result;
+	}
+
+	private static int enqueue(int[] worklist, int size, boolean[] queued, int pc, int merged) {
+		if (merged != CHANGED || queued[pc]) return size;
+		queued[pc] = true;
+		worklist[size] = pc;
+		return size + 1;
+	}
+
+	private void generate(ClassBuilder builder, int entry, int[] group) {
+		builder.withFlags(ClassFile.ACC_FINAL | ClassFile.ACC_SUPER);
+		builder.withSuperclass(CD_Object);
+		builder.withInterfaceSymbols(CD_COMPILED);
+		builder.withMethodBody(INIT_NAME, MTD_void, ClassFile.ACC_PUBLIC, code -> code
+				.aload(0)
+				.invokespecial(CD_Object, INIT_NAME, MTD_void)
+				.return_());
+
+		// Ponte chamada pelo Interpretador: lê os argumentos da pilha de payloads
+		Function function = program.function(entry);
+		builder.withMethodBody("call", MTD_CALL, ClassFile.ACC_PUBLIC, code -> {
+			for (int i = 0; i < function.arity(); i++) {
+				code.aload(1).iload(2).ldc(i).iadd().laload();
+			}
+			code.iload(3);
+			code.invokestatic(CD_GENERATED, methodName(entry), descriptor(function));
+			if (!function.returnsValue()) {
+				code.lconst_0();
+			}
+			code.lreturn();
+		});
+
+		for (int member : group) {
+			Function target = program.function(member);
+			builder.withMethodBody(methodName(member), descriptor(target), ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC,
+					code -> body(code, target));
+		}
+	}
+
+	// Ponto seguro: conta as instruções da máquina virtual que a volta representa
+	private static void poll(CodeBuilder code, int instructions, int line) {
+		code.ldc(CONTROL).ldc(instructions).ldc(line).invokevirtual(CD_CONTROL, "poll", MTD_POLL);
+	}
+
+	private static String methodName(int function) {
+		return "f" + function;
+	}
+
+	// Parâmetros como long seguidos da profundidade de chamadas
+	private static MethodTypeDesc descriptor(Function function) {
+		ClassDesc[] parameters = new ClassDesc[function.arity() + 1];
+		Arrays.fill(parameters, CD_long);
+		parameters[function.arity()] = CD_int;
+		return MethodTypeDesc.of(function.returnsValue() ? CD_long : CD_void, parameters);
+	}
+
+	private void body(CodeBuilder code, Function function) {
+		Chunk chunk = function.chunk();
+		int[] instructions = chunk.code();
+		Object[] constants = chunk.constants();
+		int arity = function.arity();
+		int depthSlot = 2 * arity;
+
+		Label[] labels = new Label[instructions.length];
+		for (int pc = 0; pc < instructions.length; pc++) {
+			labels[pc] = code.newLabel();
+		}
+
+		for (int pc = 0; pc < instructions.length; pc++) {
+			code.labelBinding(labels[pc]);
+			int instruction = instructions[pc];
+			int arg = instruction >> 8;
+			int line = chunk.line(pc);
+			switch (instruction & 0xFF) {
+				case OpCode.INT:
+					code.ldc((long) arg);
+					break;
+				case OpCode.CONST:
+					code.ldc((Long) constants[arg]);
+					break;
+				case OpCode.TRUE:
+					code.lconst_1();
+					break;
+				case OpCode.FALSE:
+					code.lconst_0();
+					break;
+				case OpCode.LOAD_LOCAL:
+					code.lload(slot(arg, arity));
+					break;
+				case OpCode.STORE_LOCAL:
+					code.lstore(slot(arg, arity));
+					break;
+				case OpCode.POP:
+					code.pop2();
+					break;
+				case OpCode.DUP:
+					code.dup2();
+					break;
+				case OpCode.ADD:
+					code.ladd();
+					break;
+				case OpCode.SUB:
+					code.lsub();
+					break;
+				case OpCode.MUL:
+					code.lmul();
+					break;
+				case OpCode.DIV:
+					code.ldc(line).invokestatic(CD_SUPPORT, "div", MTD_ARITHMETIC);
+					break;
+				case OpCode.MOD:
+					code.ldc(line).invokestatic(CD_SUPPORT, "mod", MTD_ARITHMETIC);
+					break;
+				case OpCode.NEG:
+					code.lneg();
+					break;
+				case OpCode.EQ:
+				case OpCode.NE:
+				case OpCode.LT:
+				case OpCode.LE:
+				case OpCode.GT:
+				case OpCode.GE:
+					compare(code, instruction & 0xFF);
+					break;
+				case OpCode.NOT:
+					code.lconst_1().lxor();
+					break;
+				case OpCode.CAST:
+					cast(code, arg, line);
+					break;
+				case OpCode.JUMP:
+					if (arg <= pc) poll(code, pc - arg + 1, line);
+					code.goto_(labels[arg]);
+					break;
+				case OpCode.JUMP_IF_TRUE:
+					if (arg <= pc) {
+						// Volta de laço: o ponto seguro só no caminho que volta
+						Label exit = code.newLabel();
+						code.l2i().ifeq(exit);
+						poll(code, pc - arg + 1, line);
+						code.goto_(labels[arg]);
+						code.labelBinding(exit);
+					} else {
+						code.l2i().ifne(labels[arg]);
+					}
+					break;
+				case OpCode.JUMP_IF_FALSE:
+					code.l2i().ifeq(labels[arg]);
+					break;
+				case OpCode.AND_JUMP:
+					code.dup2().l2i().ifeq(labels[arg]).pop2();
+					break;
+				case OpCode.OR_JUMP:
+					code.dup2().l2i().ifne(labels[arg]).pop2();
+					break;
+				case OpCode.CALL: {
+					Function callee = program.function(arg);
+					poll(code, 1, line);
+					code.iload(depthSlot).ldc(callee.name()).ldc(line).invokestatic(CD_SUPPORT, "enter", MTD_ENTER);
+					code.invokestatic(CD_GENERATED, methodName(arg), descriptor(callee));
+					break;
+				}
+				case OpCode.RETURN:
+					code.lreturn();
+					break;
+				default:
+					// RETURN_VOID; numa função com retorno só aparece como código morto no fim
+					if (function.returnsValue()) {
+						code.lconst_0().lreturn();
+					} else {
+						code.return_();
+					}
+					break;
+			}
+		}
+	}
+
+	// Cada slot da máquina vira um long (duas posições); a profundidade fica logo após os
+	// parâmetros
+	private static int slot(int local, int arity) {
+		return local < arity ? 2 * local : 2 * local + 1;
+	}
+
+	// Compara os dois longs do topo e empilha 1 ou 0
+	private static void compare(CodeBuilder code, int op) {
+		Label yes = code.newLabel();
+		Label end = code.newLabel();
+		code.lcmp();
+		switch (op) {
+			case OpCode.EQ: code.ifeq(yes); break;
+			case OpCode.NE: code.ifne(yes); break;
+			case OpCode.LT: code.iflt(yes); break;
+			case OpCode.LE: code.ifle(yes); break;
+			case OpCode.GT: code.ifgt(yes); break;
+			default: code.ifge(yes); break;
+		}
+		code.lconst_0().goto_(end);
+		code.labelBinding(yes);
+		code.lconst_1();
+		code.labelBinding(end);
+	}
+
+	private static void cast(CodeBuilder code, int type, int line) {
+		switch (type) {
+			case OpCode.TYPE_INT:
+				code.l2i().i2l();
+				break;
+			case OpCode.TYPE_SHORT:
+				code.l2i().i2s().i2l();
+				break;
+			case OpCode.TYPE_UNSIGNED:
+				code.ldc(line).invokestatic(CD_SUPPORT, "unsigned", MTD_UNSIGNED);
+				break;
+			default:
+				// long e lógico já estão no formato certo
+				break;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package application.interpreter;
+
+// Operações chamadas pelo código gerado pelo JitCompiler nos pontos que podem falhar. Ficam
+// fora do bytecode gerado para manter as mensagens iguais às do Interpretador; a JVM as
+// expande em linha.
+final class JitSupport {
+	private JitSupport() {
+	}
+
+	static long div(long x, long y, int line) {
+		if (y == 0) throw new RuntimeError("Divisão por zero", line);
+		return x / y;
+	}
+
+	static long mod(long x, long y, int line) {
+		if (y == 0) throw new RuntimeError("Divisão por zero", line);
+		return x % y;
+	}
+
+	static long unsigned(long value, int line) {
+		if (value < 0) {
+			throw new RuntimeError("Valor negativo não cabe em unsigned: " + value, line);
+		}
+		return value & 0xFFFFFFFFL;
+	}
+
+	// Profundidade do frame chamado; o limite é o mesmo do Interpretador
+	static int enter(int depth, String function, int line) {
+		if (depth >= Interpretador.MAX_FRAMES) {
+			throw new RuntimeError("Recursão muito profunda em '" + function + "'", line);
+		}
+		return depth + 1;
+	}
+}
@@ -0,0 +1,294 @@
+package application.interpreter;
+
+import java.util.Arrays;
+
+// Valor do tipo 'lista'. O armazenamento segue o conteúdo: int[] enquanto todos os elementos
+// couberem em int, long[] para inteiros maiores, double[] só com doubles e Object[] (com os
+// valores encaixotados) apenas quando os tipos se misturam. A troca de representação acontece
+// uma vez, na primeira escrita que não cabe na atual; o crescimento dobra a capacidade.
+public final class Lista {
+	private static final byte EMPTY = 0;
+	private static final byte INTS = 1;
+	private static final byte LONGS = 2;
+	private static final byte DOUBLES = 3;
+	private static final byte OBJECTS = 4;
+
+	private static final int MIN_CAPACITY = 8;
+	// Profundidade máxima mostrada de listas dentro de listas
+	private static final int MAX_FORMAT_DEPTH = 16;
+
+	private byte kind = EMPTY;
+	private int[] ints;
+	private long[] longs;
+	private double[] doubles;
+	private Object[] objects;
+	private int size = 0;
+	// Capacidade pedida antes do primeiro elemento definir o armazenamento
+	private int initialCapacity;
+
+	public Lista() {
+		this(MIN_CAPACITY);
+	}
+
+	public Lista(int capacity) {
+		initialCapacity = Math.max(capacity, MIN_CAPACITY);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// Copia o elemento index para o slot da pilha da máquina virtual
+	void get(int index, byte[] tags, long[] values, Object[] refs, int slot) {
+		switch (kind) {
+			case INTS:
+				tags[slot] = Value.INT;
+				values[slot] = ints[index];
+				refs[slot] = null;
+				break;
+			case LONGS:
+				tags[slot] = Value.INT;
+				values[slot] = longs[index];
+				refs[slot] = null;
+				break;
+			case DOUBLES:
+				tags[slot] = Value.DOUBLE;
+				values[slot] = Double.doubleToRawLongBits(doubles[index]);
+				refs[slot] = null;
+				break;
+			default: {
+				Object element = objects[index];
+				tags[slot] = Value.tagOf(element);
+				values[slot] = Value.payloadOf(element);
+				refs[slot] = element;
+				break;
+			}
+		}
+	}
+
+	public byte tag(int index) {
+		switch (kind) {
+			case INTS:
+			case LONGS: return Value.INT;
+			case DOUBLES: return Value.DOUBLE;
+			default: return Value.tagOf(objects[index]);
+		}
+	}
+
+	public long value(int index) {
+		switch (kind) {
+			case INTS: return ints[index];
+			case LONGS: return longs[index];
+			case DOUBLES: return Double.doubleToRawLongBits(doubles[index]);
+			default: return Value.payloadOf(objects[index]);
+		}
+	}
+
+	public Object ref(int index) {
+		return kind == OBJECTS ? objects[index] : null;
+	}
+
+	public void set(int index, byte tag, long value, Object ref) {
+		store(tag, value);
+		write(index, tag, value, ref);
+	}
+
+	public void add(byte tag, long value, Object ref) {
+		store(tag, value);
+		ensureCapacity(size + 1);
+		write(size++, tag, value, ref);
+	}
+
+	// Cópia independente, com a mesma representação; listas internas também são copiadas
+	public Lista copy() {
+		Lista copy = new Lista(size);
+		copy.kind = kind;
+		copy.size = size;
+		switch (kind) {
+			case INTS: copy.ints = Arrays.copyOf(ints, Math.max(size, MIN_CAPACITY)); break;
+			case LONGS: copy.longs = Arrays.copyOf(longs, Math.max(size, MIN_CAPACITY)); break;
+			case DOUBLES: copy.doubles = Arrays.copyOf(doubles, Math.max(size, MIN_CAPACITY)); break;
+			case OBJECTS:
+				copy.objects = Arrays.copyOf(objects, Math.max(size, MIN_CAPACITY));
+				for (int i = 0; i < size; i++) {
+					if (objects[i] instanceof Lista) {
+						copy.objects[i] = ((Lista) objects[i]).copy();
+					}
+				}
+				break;
+			default: break;
+		}
+		return copy;
+	}
+
+	private void write(int index, byte tag, long value, Object ref) {
+		switch (kind) {
+			case INTS: ints[index] = (int) value; break;
+			case LONGS: longs[index] = value; break;
+			case DOUBLES: doubles[index] = Double.longBitsToDouble(value); break;
+			default: objects[index] = box(tag, value, ref); break;
+		}
+	}
+
+	// Garante que a representação atual aceita o valor, trocando-a se preciso
+	private void store(byte tag, long value) {
+		switch (kind) {
+			case EMPTY:
+				if (tag == Value.INT) {
+					kind = value == (int) value ? INTS : LONGS;
+				} else if (tag == Value.DOUBLE) {
+					kind = DOUBLES;
+				} else {
+					kind = OBJECTS;
+				}
+				allocate(initialCapacity);
+				return;
+			case INTS:
+				if (tag == Value.INT && value == (int) value) return;
+				if (tag == Value.INT) {
+					longs = new long[ints.length];
+					for (int i = 0; i < size; i++) {
+						longs[i] = ints[i];
+					}
+					ints = null;
+					kind = LONGS;
+					return;
+				}
+				break;
+			case LONGS:
+				if (tag == Value.INT) return;
+				break;
+			case DOUBLES:
+				if (tag == Value.DOUBLE) return;
+				break;
+			default:
+				return;
+		}
+		toObjects();
+	}
+
+	private void toObjects() {
+		int capacity = Math.max(size, initialCapacity);
+		Object[] boxed = new Object[capacity];
+		for (int i = 0; i < size; i++) {
+			boxed[i] = box(tag(i), value(i), null);
+		}
+		ints = null;
+		longs = null;
+		doubles = null;
+		objects = boxed;
+		kind = OBJECTS;
+	}
+
+	private void allocate(int capacity) {
+		switch (kind) {
+			case INTS: ints = new int[capacity]; break;
+			case LONGS: longs = new long[capacity]; break;
+			case DOUBLES: doubles = new double[capacity]; break;
+			default: objects = new Object[capacity]; break;
+		}
+	}
+
+	private void ensureCapacity(int needed) {
+		int capacity = capacity();
+		if (needed <= capacity) return;
+		int grown = Math.max(needed, capacity * 2);
+		switch (kind) {
+			case INTS: ints = Arrays.copyOf(ints, grown); break;
+			case LONGS: longs = Arrays.copyOf(longs, grown); break;
+			case DOUBLES: doubles = Arrays.copyOf(doubles, grown); break;
+			default: objects = Arrays.copyOf(objects, grown); break;
+		}
+	}
+
+	private int capacity() {
+		switch (kind) {
+			case INTS: return ints.length;
+			case LONGS: return longs.length;
+			case DOUBLES: return doubles.length;
+			case OBJECTS: return objects.length;
+			default: return 0;
+		}
+	}
+
+	private static Object box(byte tag, long value, Object ref) {
+		switch (tag) {
+			case Value.INT: return value;
+			case Value.DOUBLE: return Double.longBitsToDouble(value);
+			case Value.BOOL: return value != 0;
+			default: return ref;
+		}
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof Lista)) return false;
+		Lista list = (Lista) other;
+		if (list.size != size) return false;
+		for (int i = 0; i < size; i++) {
+			byte tag = tag(i);
+			if (tag != list.tag(i)) return false;
+			if (tag == Value.TEXT || tag == Value.LIST) {
+				if (!ref(i).equals(list.ref(i))) return false;
+			} else if (tag == Value.DOUBLE) {
+				if (Double.longBitsToDouble(value(i)) != Double.longBitsToDouble(list.value(i))) return false;
+			} else if (value(i) != list.value(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode(0);
+	}
+
+	// Abaixo de MAX_FORMAT_DEPTH as listas aninhadas não entram no hash: uma lista que contém a
+	// si mesma termina, e listas iguais continuam com o mesmo hash
+	private int hashCode(int depth) {
+		int hash = 1;
+		for (int i = 0; i < size; i++) {
+			byte tag = tag(i);
+			long bits = value(i);
+			// 0.0 e -0.0 são iguais em equals
+			if (tag == Value.DOUBLE && Double.longBitsToDouble(bits) == 0) bits = 0;
+			int element;
+			if (tag == Value.LIST) {
+				element = depth + 1 < MAX_FORMAT_DEPTH ? ((Lista) ref(i)).hashCode(depth + 1) : Value.LIST;
+			} else {
+				element = tag == Value.TEXT ? ref(i).hashCode() : Long.hashCode(bits);
+			}
+			hash = 31 * hash + element;
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		format(out, 0);
+		return out.toString();
+	}
+
+	private void format(StringBuilder out, int depth) {
+		if (depth == MAX_FORMAT_DEPTH) {
+			out.append("[...]");
+			return;
+		}
+		out.append('[');
+		for (int i = 0; i < size; i++) {
+			if (i > 0) out.append(", ");
+			byte tag = tag(i);
+			if (tag == Value.LIST) {
+				((Lista) ref(i)).format(out, depth + 1);
+			} else if (tag == Value.TEXT) {
+				out.append('"').append(ref(i)).append('"');
+			} else {
+				out.append(Value.format(tag, value(i), null));
+			}
+		}
+		out.append(']');
+	}
+}
@@ -0,0 +1,114 @@
+package application.interpreter;
+
+// Instruções da máquina virtual. Cada instrução ocupa um int: o código da operação nos 8 bits
+// baixos e o argumento (com sinal) nos 24 bits altos.
+public final class OpCode {
+	// Constantes e variáveis
+	public static final int CONST = 0;          // empilha constants[arg]
+	public static final int INT = 1;            // empilha o próprio arg como inteiro
+	public static final int TRUE = 2;
+	public static final int FALSE = 3;
+	public static final int LOAD_LOCAL = 4;     // slot arg do frame atual
+	public static final int STORE_LOCAL = 5;
+	public static final int LOAD_GLOBAL = 6;    // índice arg da tabela de globais
+	public static final int STORE_GLOBAL = 7;
+	public static final int POP = 8;
+	public static final int DUP = 9;
+
+	// Aritmética e comparação (desempilham dois valores e empilham o resultado)
+	public static final int ADD = 10;
+	public static final int SUB = 11;
+	public static final int MUL = 12;
+	public static final int DIV = 13;
+	public static final int MOD = 14;
+	public static final int NEG = 15;
+	public static final int EQ = 16;
+	public static final int NE = 17;
+	public static final int LT = 18;
+	public static final int LE = 19;
+	public static final int GT = 20;
+	public static final int GE = 21;
+	public static final int NOT = 22;
+	public static final int CAST = 23;          // converte o topo para o tipo arg (TYPE_*)
+
+	// Desvios: arg é o endereço de destino
+	public static final int JUMP = 24;
+	public static final int JUMP_IF_FALSE = 25; // desempilha a condição
+	public static final int AND_JUMP = 26;      // 'e': se falso, desvia mantendo o valor; senão desempilha
+	public static final int OR_JUMP = 27;       // 'ou': se verdadeiro, desvia mantendo o valor; senão desempilha
+
+	// Funções e entrada/saída
+	public static final int CALL = 28;          // chama a função arg do programa
+	public static final int RETURN = 29;        // retorna o topo da pilha
+	public static final int RETURN_VOID = 30;
+	public static final int PRINT = 31;         // desempilha arg valores e mostra numa linha
+	public static final int READ = 32;         // lê uma linha e empilha convertida para o tipo arg
+	public static final int HALT = 33;
+	public static final int JUMP_IF_TRUE = 34;  // desempilha a condição (fim de laço testado embaixo)
+	public static final int FORMAT = 35;        // formatar(valor[, casas]): desempilha arg valores, empilha texto
+
+	// Listas
+	public static final int NEW_LIST = 36;      // desempilha arg elementos e empilha uma lista com eles
+	public static final int INDEX_GET = 37;     // lista, índice -> elemento
+	public static final int INDEX_SET = 38;     // lista, índice, valor ->
+	public static final int LENGTH = 39;        // tamanho(lista)
+	public static final int APPEND = 40;        // adicionar(lista, valor)
+	public static final int DUP2 = 41;          // duplica os dois valores do topo (l[i] += ...)
+	public static final int CONST_LIST = 42;    // empilha uma cópia da lista constante constants[arg]
+
+	public static final int COUNT = 43;
+
+	// Tipos usados por CAST e READ (TYPE_VOID só marca funções sem retorno)
+	public static final int TYPE_VOID = -1;
+	public static final int TYPE_INT = 0;
+	public static final int TYPE_LONG = 1;
+	public static final int TYPE_SHORT = 2;
+	public static final int TYPE_UNSIGNED = 3;
+	public static final int TYPE_DOUBLE = 4;
+	public static final int TYPE_TEXT = 5;
+	public static final int TYPE_BOOL = 6;
+	public static final int TYPE_LIST = 7;
+
+	public static final int MAX_ARG = (1 << 23) - 1;
+	public static final int MIN_ARG = -(1 << 23);
+
+	private static final String[] NAMES = {
+		"CONST", "INT", "TRUE", "FALSE", "LOAD_LOCAL", "STORE_LOCAL", "LOAD_GLOBAL", "STORE_GLOBAL",
+		"POP", "DUP", "ADD", "SUB", "MUL", "DIV", "MOD", "NEG", "EQ", "NE", "LT", "LE", "GT", "GE",
+		"NOT", "CAST", "JUMP", "JUMP_IF_FALSE", "AND_JUMP", "OR_JUMP", "CALL", "RETURN", "RETURN_VOID",
+		"PRINT", "READ", "HALT", "JUMP_IF_TRUE", "FORMAT",
+		"NEW_LIST", "INDEX_GET", "INDEX_SET", "LENGTH", "APPEND", "DUP2", "CONST_LIST"
+	};
+
+	// Variação da altura da pilha causada por cada instrução (PRINT, FORMAT, NEW_LIST e CALL dependem do argumento)
+	private static final int[] STACK_EFFECT = {
+		1, 1, 1, 1, 1, -1, 1, -1,
+		-1, 1, -1, -1, -1, -1, -1, 0, -1, -1, -1, -1, -1, -1,
+		0, 0, 0, -1, -1, -1, 0, -1, 0,
+		0, 1, 0, -1, 0,
+		1, -1, -3, 0, -2, 2, 1
+	};
+
+	private OpCode() {
+	}
+
+	public static int encode(int op, int arg) {
+		return op | arg << 8;
+	}
+
+	public static int op(int instruction) {
+		return instruction & 0xFF;
+	}
+
+	public static int arg(int instruction) {
+		return instruction >> 8;
+	}
+
+	public static String name(int op) {
+		return op >= 0 && op < NAMES.length ? NAMES[op] : "?" + op;
+	}
+
+	static int stackEffect(int op) {
+		return STACK_EFFECT[op];
+	}
+}
@@ -0,0 +1,34 @@
+package application.interpreter;
+
+// Programa pronto para executar: o código do nível superior, as funções e o número de globais
+public final class Program {
+	private final Function main;
+	private final Function[] functions;
+	private final String[] globalNames;
+
+	public Program(Function main, Function[] functions, String[] globalNames) {
+		this.main = main;
+		this.functions = functions;
+		this.globalNames = globalNames;
+	}
+
+	public Function main() {
+		return main;
+	}
+
+	public Function function(int index) {
+		return functions[index];
+	}
+
+	public int functionCount() {
+		return functions.length;
+	}
+
+	public int globalCount() {
+		return globalNames.length;
+	}
+
+	public String globalName(int index) {
+		return globalNames[index];
+	}
+}
@@ -0,0 +1,22 @@
+package application.interpreter;
+
+// Erro durante a execução de um programa Scribo, com a linha do código-fonte
+public class RuntimeError extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final int line;
+
+	public RuntimeError(String message, int line) {
+		super(message);
+		this.line = line;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	@Override
+	public String toString() {
+		return "Erro de execução na linha " + line + ": " + getMessage();
+	}
+}
@@ -0,0 +1,61 @@
+package application.interpreter;
+
+// Representação dos valores na máquina virtual sem objetos: cada valor é uma etiqueta (tag)
+// mais um payload long. Inteiros guardam o próprio número, doubles os bits IEEE 754 e lógicos
+// 0 ou 1. Só textos e listas precisam de uma referência, guardada num Object[] paralelo.
+public final class Value {
+	public static final byte VOID = 0;
+	public static final byte INT = 1;
+	public static final byte DOUBLE = 2;
+	public static final byte BOOL = 3;
+	public static final byte TEXT = 4;
+	public static final byte LIST = 5;
+
+	private Value() {
+	}
+
+	// Etiqueta de uma constante do pool
+	static byte tagOf(Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short) return INT;
+		if (value instanceof Double) return DOUBLE;
+		if (value instanceof Boolean) return BOOL;
+		if (value instanceof String) return TEXT;
+		if (value instanceof Lista) return LIST;
+		throw new IllegalArgumentException("Constante não suportada: " + value);
+	}
+
+	static long payloadOf(Object value) {
+		switch (tagOf(value)) {
+			case INT: return ((Number) value).longValue();
+			case DOUBLE: return Double.doubleToRawLongBits((Double) value);
+			case BOOL: return (Boolean) value ? 1 : 0;
+			default: return 0;
+		}
+	}
+
+	static double asDouble(byte tag, long payload) {
+		return tag == DOUBLE ? Double.longBitsToDouble(payload) : (double) payload;
+	}
+
+	static String format(byte tag, long payload, Object ref) {
+		switch (tag) {
+			case INT: return Long.toString(payload);
+			case DOUBLE: return Double.toString(Double.longBitsToDouble(payload));
+			case BOOL: return payload != 0 ? "verdadeiro" : "falso";
+			case TEXT: return (String) ref;
+			case LIST: return ref.toString();
+			default: return "null";
+		}
+	}
+
+	static String typeName(byte tag) {
+		switch (tag) {
+			case INT: return "inteiro";
+			case DOUBLE: return "double";
+			case TEXT: return "texto";
+			case BOOL: return "lógico";
+			case LIST: return "lista";
+			default: return "vazio";
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package application.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Descobre a codificação de um arquivo pelo começo dele (até SNIFF_BYTES bytes):
+//  - com BOM, vale o BOM (UTF-8, UTF-16LE ou UTF-16BE);
+//  - sem BOM, se os bytes formam UTF-8 válido, é UTF-8;
+//  - senão é ISO-8859-1, que aceita qualquer byte e volta igual ao salvar.
+// A verificação de UTF-8 lê 8 bytes por vez e só examina byte a byte os blocos que têm algum
+// byte acima de 0x7F; código-fonte é quase todo ASCII, então quase tudo passa pelo caminho rápido.
+public final class CharsetSniffer {
+	public static final int SNIFF_BYTES = 64 * 1024;
+
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	private CharsetSniffer() {
+	}
+
+	// Não altera a posição de 'head'
+	public static TextFormat sniff(ByteBuffer head) {
+		ByteBuffer bytes = head.slice(head.position(), Math.min(head.remaining(), SNIFF_BYTES));
+		if (startsWith(bytes, 0xEF, 0xBB, 0xBF)) {
+			return new TextFormat(StandardCharsets.UTF_8, true, "\n");
+		}
+		if (startsWith(bytes, 0xFF, 0xFE)) {
+			return new TextFormat(StandardCharsets.UTF_16LE, true, "\n");
+		}
+		if (startsWith(bytes, 0xFE, 0xFF)) {
+			return new TextFormat(StandardCharsets.UTF_16BE, true, "\n");
+		}
+		// Uma sequência cortada no fim só é erro se o arquivo termina ali
+		boolean wholeFile = bytes.limit() == head.remaining();
+		Charset charset = isUtf8(bytes, wholeFile) ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+		return new TextFormat(charset, false, "\n");
+	}
+
+	// Tamanho em bytes do BOM de uma codificação
+	public static int bomLength(TextFormat format) {
+		if (!format.hasBom()) return 0;
+		return format.getCharset().equals(StandardCharsets.UTF_8) ? 3 : 2;
+	}
+
+	public static String label(TextFormat format) {
+		String name = format.getCharset().name();
+		if (format.hasBom() && format.getCharset().equals(StandardCharsets.UTF_8)) name += " com BOM";
+		switch (format.getLineSeparator()) {
+			case "\r\n":
+				return name + " | CRLF";
+			case "\r":
+				return name + " | CR";
+			default:
+				return name + " | LF";
+		}
+	}
+
+	static boolean isUtf8(ByteBuffer bytes, boolean wholeFile) {
+		ByteBuffer words = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int limit = bytes.limit();
+		int i = 0;
+		while (i < limit) {
+			// Caminho rápido: 8 bytes ASCII de uma vez
+			if (i + 8 <= limit && (words.getLong(i) & HIGH_BITS) == 0) {
+				i += 8;
+				continue;
+			}
+			int b = bytes.get(i) & 0xff;
+			if (b < 0x80) {
+				i++;
+				continue;
+			}
+			int length;
+			int min;
+			if (b >= 0xC2 && b <= 0xDF) {
+				length = 2;
+				min = 0x80;
+			} else if (b >= 0xE0 && b <= 0xEF) {
+				length = 3;
+				min = 0x800;
+			} else if (b >= 0xF0 && b <= 0xF4) {
+				length = 4;
+				min = 0x10000;
+			} else {
+				return false;
+			}
+			if (i + length > limit) return !wholeFile;
+			int codePoint = b & (0xFF >> (length + 1));
+			for (int k = 1; k < length; k++) {
+				int next = bytes.get(i + k) & 0xff;
+				if ((next & 0xC0) != 0x80) return false;
+				codePoint = (codePoint << 6) | (next & 0x3F);
+			}
+			// Formas longas demais, surrogates e valores acima de U+10FFFF
+			if (codePoint < min || (codePoint >= 0xD800 && codePoint <= 0xDFFF) || codePoint > 0x10FFFF) {
+				return false;
+			}
+			i += length;
+		}
+		return true;
+	}
+
+	private static boolean startsWith(ByteBuffer bytes, int... prefix) {
+		if (bytes.limit() < prefix.length) return false;
+		for (int i = 0; i < prefix.length; i++) {
+			if ((bytes.get(i) & 0xff) != prefix[i]) return false;
+		}
+		return true;
+	}
+}
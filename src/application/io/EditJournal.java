@@ -0,0 +1,314 @@
+package application.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Diário de edições de um documento, para recuperar o que não foi salvo depois de uma queda.
+// O arquivo começa com um cabeçalho (caminho do documento e tamanho e data da versão salva) e
+// depois só recebe registros pequenos no fim: cada edição é posição, tamanho removido e texto
+// inserido, nunca o documento inteiro. Cada registro leva tamanho e CRC32; ao ler, um registro
+// cortado ou corrompido no fim (queda no meio da escrita) encerra a leitura.
+//
+// As edições chegam da thread do JavaFX e só vão para a memória; uma thread virtual as grava
+// em lote FLUSH_DELAY_MILLIS depois e força os dados no disco. Depois de um salvamento o diário
+// é reescrito só com o cabeçalho novo e as edições feitas desde a cópia que foi salva.
+public class EditJournal {
+	public static final String EXTENSION = ".journal";
+	static final long FLUSH_DELAY_MILLIS = 1000;
+	// Maior registro aceito na leitura; um tamanho maior só pode ser lixo
+	private static final int MAX_RECORD = 256 * 1024 * 1024;
+
+	private static final byte HEADER = 1;
+	private static final byte EDIT = 2;
+
+	// Uma edição: substitui 'removed' caracteres a partir de 'offset' por 'text'
+	public record Edit(int offset, int removed, String text) {
+	}
+
+	// Conteúdo lido de um diário: documento (null se nunca foi salvo) e edições desde a versão salva
+	public record Recovered(Path journal, Path document, String name, long size, long modified, List<Edit> edits) {
+		// A versão salva ainda é a mesma de quando o diário começou
+		public boolean matches(File file) {
+			return file.isFile() && file.length() == size && file.lastModified() == modified;
+		}
+	}
+
+	private final Path directory;
+	private final Object io = new Object();
+
+	// Estado na memória, protegido por 'this'
+	private Path file;
+	private Path retired;
+	private boolean started = false;
+	private boolean deleted = false;
+	private boolean flushScheduled = false;
+	private byte[] rewrite;
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	// Edições desde a cópia entregue ao salvamento em andamento
+	private ByteArrayOutputStream sinceMark;
+
+	public EditJournal(Path directory) {
+		this.directory = directory;
+	}
+
+	public synchronized Path file() {
+		return file;
+	}
+
+	public static Path defaultDirectory() {
+		String configured = System.getProperty("scribo.diario");
+		return configured != null ? Path.of(configured) : Path.of(System.getProperty("user.home"), ".scribo", "diario");
+	}
+
+	// Começa um diário novo para a versão salva do documento (document null: ainda sem arquivo)
+	public synchronized void start(Path document, String name, long size, long modified) {
+		retire(fileFor(document, name));
+		rewrite = header(document, name, size, modified);
+		pending.reset();
+		started = true;
+		scheduleFlush();
+	}
+
+	public synchronized void record(int offset, int removed, String text) {
+		if (!started || deleted) return;
+		byte[] bytes = edit(offset, removed, text);
+		pending.writeBytes(bytes);
+		if (sinceMark != null) sinceMark.writeBytes(bytes);
+		scheduleFlush();
+	}
+
+	// Thread do JavaFX, junto com a cópia do texto que vai ser salva
+	public synchronized void mark() {
+		sinceMark = new ByteArrayOutputStream();
+	}
+
+	// O salvamento da cópia marcada terminou: o diário passa a partir da versão nova
+	public synchronized void commit(Path document, String name, long size, long modified) {
+		if (!started || deleted) return;
+		retire(fileFor(document, name));
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.writeBytes(header(document, name, size, modified));
+		if (sinceMark != null) content.writeBytes(sinceMark.toByteArray());
+		rewrite = content.toByteArray();
+		pending.reset();
+		sinceMark = null;
+		scheduleFlush();
+	}
+
+	// O salvamento falhou; as edições continuam valendo a partir da versão anterior
+	public synchronized void abort() {
+		sinceMark = null;
+	}
+
+	// Documento fechado: o diário não é mais necessário
+	public synchronized void delete() {
+		deleted = true;
+		pending.reset();
+		rewrite = null;
+		scheduleFlush();
+	}
+
+	private void retire(Path next) {
+		if (file != null && !file.equals(next) && retired == null) retired = file;
+		file = next;
+	}
+
+	private Path fileFor(Path document, String name) {
+		String key = document != null ? document.toAbsolutePath().normalize().toString() : "novo:" + name + ":" + System.identityHashCode(this);
+		return directory.resolve(Integer.toHexString(key.hashCode()) + EXTENSION);
+	}
+
+	private void scheduleFlush() {
+		if (flushScheduled) return;
+		flushScheduled = true;
+		Thread.ofVirtual().name("scribo-diario").start(() -> {
+			try {
+				Thread.sleep(FLUSH_DELAY_MILLIS);
+			} catch (InterruptedException e) {
+				// Grava já
+			}
+			flush();
+		});
+	}
+
+	private void flush() {
+		Path target;
+		Path old;
+		byte[] full;
+		byte[] appended;
+		boolean remove;
+		synchronized (this) {
+			flushScheduled = false;
+			target = file;
+			old = retired;
+			retired = null;
+			full = rewrite;
+			rewrite = null;
+			appended = pending.toByteArray();
+			pending.reset();
+			remove = deleted;
+		}
+		synchronized (io) {
+			try {
+				if (remove) {
+					if (old != null) Files.deleteIfExists(old);
+					if (target != null) Files.deleteIfExists(target);
+					return;
+				}
+				Files.createDirectories(directory);
+				if (full != null) {
+					replace(target, full);
+				}
+				if (appended.length > 0) {
+					try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+						ByteBuffer buffer = ByteBuffer.wrap(appended);
+						while (buffer.hasRemaining()) channel.write(buffer);
+						channel.force(false);
+					}
+				}
+				// O diário antigo (documento salvo com outro nome) só sai depois do novo gravado
+				if (old != null) Files.deleteIfExists(old);
+			} catch (IOException e) {
+				System.err.println("Falha ao gravar o diário de edições: " + e.getMessage());
+			}
+		}
+	}
+
+	// Troca o diário inteiro de forma atômica, como no salvamento dos arquivos
+	private static void replace(Path target, byte[] content) throws IOException {
+		Path temporary = Files.createTempFile(target.getParent(), "diario", ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.wrap(content);
+				while (buffer.hasRemaining()) channel.write(buffer);
+				channel.force(true);
+			}
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static byte[] header(Path document, String name, long size, long modified) {
+		return frame(out -> {
+			out.writeByte(HEADER);
+			writeString(out, document != null ? document.toAbsolutePath().toString() : "");
+			writeString(out, name);
+			out.writeLong(size);
+			out.writeLong(modified);
+		});
+	}
+
+	private static byte[] edit(int offset, int removed, String text) {
+		return frame(out -> {
+			out.writeByte(EDIT);
+			out.writeInt(offset);
+			out.writeInt(removed);
+			writeString(out, text);
+		});
+	}
+
+	private interface Payload {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	// Registro: tamanho, CRC32 e conteúdo
+	private static byte[] frame(Payload payload) {
+		try {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			payload.write(new DataOutputStream(body));
+			byte[] bytes = body.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			ByteArrayOutputStream framed = new ByteArrayOutputStream(bytes.length + 8);
+			DataOutputStream out = new DataOutputStream(framed);
+			out.writeInt(bytes.length);
+			out.writeInt((int) crc.getValue());
+			out.write(bytes);
+			return framed.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// O texto pode passar dos 64 KB do writeUTF
+	private static void writeString(DataOutputStream out, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Diários deixados pela última sessão
+	public static List<Recovered> recover(Path directory) throws IOException {
+		List<Recovered> result = new ArrayList<>();
+		if (!Files.isDirectory(directory)) return result;
+		try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path journal : journals) {
+				Recovered recovered = read(journal);
+				if (recovered != null) result.add(recovered);
+			}
+		}
+		return result;
+	}
+
+	public static Recovered read(Path journal) throws IOException {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(journal))) {
+			DataInputStream header = nextRecord(in);
+			if (header == null || header.readByte() != HEADER) return null;
+			String document = readString(header);
+			String name = readString(header);
+			long size = header.readLong();
+			long modified = header.readLong();
+			List<Edit> edits = new ArrayList<>();
+			for (DataInputStream record = nextRecord(in); record != null; record = nextRecord(in)) {
+				if (record.readByte() != EDIT) break;
+				edits.add(new Edit(record.readInt(), record.readInt(), readString(record)));
+			}
+			return new Recovered(journal, document.isEmpty() ? null : Path.of(document), name, size, modified, edits);
+		}
+	}
+
+	// Próximo registro inteiro e com CRC certo, ou null
+	private static DataInputStream nextRecord(DataInputStream in) throws IOException {
+		try {
+			int length = in.readInt();
+			int expected = in.readInt();
+			if (length < 0 || length > MAX_RECORD) return null;
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			if ((int) crc.getValue() != expected) return null;
+			return new DataInputStream(new ByteArrayInputStream(bytes));
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+}
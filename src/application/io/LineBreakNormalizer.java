@@ -0,0 +1,45 @@
+package application.io;
+
+import java.nio.CharBuffer;
+
+// Troca "\r\n" e '\r' sozinho por '\n' em texto que chega em pedaços, lembrando um '\r' no fim
+// de um pedaço até ver o começo do seguinte. Também registra o primeiro separador encontrado.
+final class LineBreakNormalizer {
+	private boolean pendingReturn = false;
+	private String separator = null;
+
+	// Primeiro separador do texto, ou null se ainda não apareceu nenhum
+	String separator() {
+		return separator;
+	}
+
+	void append(CharBuffer chars, StringBuilder out) {
+		while (chars.hasRemaining()) {
+			char c = chars.get();
+			if (pendingReturn) {
+				pendingReturn = false;
+				out.append('\n');
+				if (c == '\n') {
+					if (separator == null) separator = "\r\n";
+					continue;
+				}
+				if (separator == null) separator = "\r";
+			}
+			if (c == '\r') {
+				pendingReturn = true;
+			} else {
+				if (c == '\n' && separator == null) separator = "\n";
+				out.append(c);
+			}
+		}
+	}
+
+	// Fim do texto: um '\r' final vira quebra de linha
+	void finish(StringBuilder out) {
+		if (pendingReturn) {
+			pendingReturn = false;
+			out.append('\n');
+			if (separator == null) separator = "\r";
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package application.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Arquivo grande aberto em páginas. index descobre a codificação pelo começo do arquivo e
+// percorre o arquivo mapeado uma vez só procurando as quebras de linha; guarda onde cada página
+// começa: logo depois da primeira quebra passados PAGE_BYTES bytes. Só a página mostrada é lida e decodificada; o texto inteiro nunca fica na memória.
+public final class PagedFile {
+	public static final int PAGE_BYTES = 1 << 20;
+
+	private final Path path;
+	private final TextFormat format;
+	private final long size;
+	// Posição em bytes do início de cada página, mais o tamanho do arquivo no fim
+	private final long[] pageStarts;
+
+	private PagedFile(Path path, TextFormat format, long size, long[] pageStarts) {
+		this.path = path;
+		this.format = format;
+		this.size = size;
+		this.pageStarts = pageStarts;
+	}
+
+	// Fora da thread do JavaFX; progress recebe quantos bytes já foram percorridos
+	public static PagedFile index(Path path, LongConsumer progress) throws IOException {
+		long[] starts = new long[16];
+		int count = 1;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			// A mesma janela do TextLoader: com o resto do arquivo depois dos bytes examinados, uma
+			// sequência UTF-8 cortada no limite não conta como erro
+			TextFormat format = CharsetSniffer.sniff(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(TextLoader.MAP_SIZE, size)));
+			Charset charset = format.getCharset();
+			starts[0] = CharsetSniffer.bomLength(format);
+			// Em UTF-16 o '\n' ocupa dois bytes; as janelas e as páginas começam em posição par
+			int unit = charset.equals(StandardCharsets.UTF_16LE) || charset.equals(StandardCharsets.UTF_16BE) ? 2 : 1;
+			int newlineByte = charset.equals(StandardCharsets.UTF_16BE) ? 1 : 0;
+			long next = PAGE_BYTES;
+			for (long mappedAt = 0; mappedAt < size; mappedAt += TextLoader.MAP_SIZE) {
+				MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, mappedAt, Math.min(TextLoader.MAP_SIZE, size - mappedAt));
+				while (next < mappedAt + bytes.limit()) {
+					int from = (int) Math.max(0, next - mappedAt);
+					int newline = indexOf(bytes, from - from % unit, unit, newlineByte);
+					if (newline < 0) {
+						// A quebra está numa janela seguinte
+						next = mappedAt + bytes.limit();
+						break;
+					}
+					long start = mappedAt + newline + unit;
+					if (start >= size) break;
+					if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+					starts[count++] = start;
+					next = start + PAGE_BYTES;
+				}
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException("Leitura interrompida");
+				}
+				progress.accept(Math.min(size, mappedAt + TextLoader.MAP_SIZE));
+			}
+			starts = Arrays.copyOf(starts, count + 1);
+			starts[count] = size;
+
+			// O separador de linha vem da primeira página
+			String separator = read(channel, charset, starts[0], starts[1], new StringBuilder());
+			return new PagedFile(path, separator == null ? format : format.withLineSeparator(separator), size, starts);
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public TextFormat getFormat() {
+		return format;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public int pageCount() {
+		return pageStarts.length - 1;
+	}
+
+	// Texto da página, com as quebras de linha trocadas por '\n'
+	public String page(int index) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			StringBuilder out = new StringBuilder();
+			read(channel, format.getCharset(), pageStarts[index], pageStarts[index + 1], out);
+			return out.toString();
+		}
+	}
+
+	// Decodifica os bytes [start, end) em out e devolve o primeiro separador de linha encontrado
+	private static String read(FileChannel channel, Charset charset, long start, long end, StringBuilder out) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+		while (bytes.hasRemaining()) {
+			if (channel.read(bytes, start + bytes.position()) < 0) break;
+		}
+		bytes.flip();
+		CharBuffer chars = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE)
+				.decode(bytes);
+		LineBreakNormalizer lines = new LineBreakNormalizer();
+		lines.append(chars, out);
+		lines.finish(out);
+		return lines.separator();
+	}
+
+	// Posição da próxima unidade de código '\n' a partir de from (múltiplo de unit)
+	private static int indexOf(ByteBuffer bytes, int from, int unit, int newlineByte) {
+		for (int i = from; i + unit <= bytes.limit(); i += unit) {
+			if (bytes.get(i + newlineByte) == '\n' && (unit == 1 || bytes.get(i + 1 - newlineByte) == 0)) return i;
+		}
+		return -1;
+	}
+}
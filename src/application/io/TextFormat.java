@@ -0,0 +1,36 @@
+package application.io;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Como o texto de um arquivo estava gravado: codificação, marca de ordem de bytes (BOM) e
+// separador de linha. O editor trabalha sempre com '\n'; ao salvar, o formato original volta.
+public class TextFormat {
+	public static final TextFormat DEFAULT = new TextFormat(StandardCharsets.UTF_8, false, "\n");
+
+	private final Charset charset;
+	private final boolean bom;
+	private final String lineSeparator;
+
+	public TextFormat(Charset charset, boolean bom, String lineSeparator) {
+		this.charset = charset;
+		this.bom = bom;
+		this.lineSeparator = lineSeparator;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public boolean hasBom() {
+		return bom;
+	}
+
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	public TextFormat withLineSeparator(String separator) {
+		return new TextFormat(charset, bom, separator);
+	}
+}
@@ -0,0 +1,80 @@
+package application.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Leitura de arquivos de texto para o editor, feita fora da thread do JavaFX. A codificação
+// sai do começo do arquivo (CharsetSniffer); depois o arquivo é mapeado em janelas de até
+// MAP_SIZE bytes e decodificado em pedaços de até CHUNK_CHARS caracteres; cada pedaço sai já
+// com as quebras de linha trocadas por '\n' e vai para o editor enquanto o resto ainda é lido.
+// A posição lida é informada depois de cada pedaço.
+public final class TextLoader {
+	public static final int CHUNK_CHARS = 1 << 20;
+	static final long MAP_SIZE = 64L * 1024 * 1024;
+
+	private TextLoader() {
+	}
+
+	// Devolve o formato do arquivo; chunks e progress são chamados na thread de leitura
+	public static TextFormat load(Path path, Consumer<String> chunks, LongConsumer progress) throws IOException {
+		LineBreakNormalizer lines = new LineBreakNormalizer();
+		CharBuffer decoded = CharBuffer.allocate(CHUNK_CHARS);
+		StringBuilder out = new StringBuilder(CHUNK_CHARS + 1);
+		TextFormat format;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long mappedAt = 0;
+			ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAP_SIZE, size));
+			format = CharsetSniffer.sniff(bytes);
+			bytes.position(CharsetSniffer.bomLength(format));
+			CharsetDecoder decoder = format.getCharset().newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			while (true) {
+				boolean last = mappedAt + bytes.limit() >= size;
+				CoderResult result = decoder.decode(bytes, decoded, last);
+				if (result.isOverflow() || last) {
+					if (last && !result.isOverflow()) {
+						decoder.flush(decoded);
+					}
+					decoded.flip();
+					lines.append(decoded, out);
+					decoded.clear();
+					if (last && !result.isOverflow()) break;
+					emit(out, chunks);
+					progress.accept(mappedAt + bytes.position());
+					continue;
+				}
+				// Remapeia a partir do primeiro byte ainda não decodificado
+				mappedAt += bytes.position();
+				bytes = channel.map(FileChannel.MapMode.READ_ONLY, mappedAt, Math.min(MAP_SIZE, size - mappedAt));
+			}
+			lines.finish(out);
+			emit(out, chunks);
+			progress.accept(size);
+		}
+		String separator = lines.separator();
+		return separator == null ? format : format.withLineSeparator(separator);
+	}
+
+	private static void emit(StringBuilder out, Consumer<String> chunks) throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("Leitura interrompida");
+		}
+		if (out.length() > 0) {
+			chunks.accept(out.toString());
+			out.setLength(0);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package application.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+// Grava o texto do editor no formato do arquivo: codificação, BOM e separador de linha. O texto
+// é codificado aos poucos por um Writer com buffer, linha por linha, sem montar uma segunda
+// cópia com os separadores trocados nem um array de bytes do arquivo inteiro.
+//
+// save grava num arquivo temporário na mesma pasta, força os dados no disco e só então troca o
+// arquivo de destino pelo temporário com uma movimentação atômica: uma queda no meio deixa o
+// arquivo antigo inteiro, nunca um arquivo cortado. Salvar por um link simbólico substitui o
+// arquivo apontado, e o temporário recebe antes as permissões e o dono do original.
+public final class TextSaver {
+	private static final int WRITE_BUFFER = 64 * 1024;
+
+	private TextSaver() {
+	}
+
+	// ISO-8859-1 só tem os primeiros 256 caracteres; as outras codificações detectadas têm todos
+	public static boolean canEncode(String text, TextFormat format) {
+		if (!format.getCharset().equals(StandardCharsets.ISO_8859_1)) return true;
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > 0xFF) return false;
+		}
+		return true;
+	}
+
+	// Pode rodar fora da thread do JavaFX; 'text' é uma cópia que ninguém mais altera
+	public static void save(Path path, String text, TextFormat format) throws IOException {
+		// Por um link simbólico grava-se o arquivo apontado; o link continua sendo link
+		boolean created = !Files.exists(path);
+		if (created) {
+			// Arquivo novo nasce vazio com as permissões padrão do sistema, que o temporário copia
+			Files.createFile(path);
+		}
+		Path target = path.toRealPath();
+		Path directory = target.getParent();
+		Path temporary = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+		boolean saved = false;
+		try {
+			copyAttributes(target, temporary);
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+						format.getCharset().newEncoder()), WRITE_BUFFER);
+				write(writer, text, format);
+				writer.flush();
+				channel.force(true);
+			}
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			saved = true;
+		} finally {
+			Files.deleteIfExists(temporary);
+			if (created && !saved) Files.deleteIfExists(target);
+		}
+	}
+
+	// O temporário nasce só com leitura e escrita para o dono; leva as permissões, o grupo e o
+	// dono do arquivo que vai substituir, onde o sistema de arquivos tiver esses atributos
+	private static void copyAttributes(Path source, Path temporary) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(temporary, PosixFileAttributeView.class);
+		if (view == null) return;
+		PosixFileAttributes attributes = Files.readAttributes(source, PosixFileAttributes.class);
+		try {
+			view.setGroup(attributes.group());
+		} catch (IOException e) {
+			// Só quem é do grupo pode passar o arquivo para ele
+		}
+		try {
+			view.setOwner(attributes.owner());
+		} catch (IOException e) {
+			// Trocar o dono exige administrador; o arquivo fica com o dono de quem salvou
+		}
+		// Por último: a troca de dono pode limpar bits de permissão
+		view.setPermissions(attributes.permissions());
+	}
+
+	public static void write(Writer writer, String text, TextFormat format) throws IOException {
+		if (format.hasBom()) writer.write('\uFEFF');
+		String separator = format.getLineSeparator();
+		int from = 0;
+		for (int newline = text.indexOf('\n'); newline >= 0; newline = text.indexOf('\n', from)) {
+			writer.write(text, from, newline - from);
+			writer.write(separator);
+			from = newline + 1;
+		}
+		writer.write(text, from, text.length() - from);
+	}
+}
@@ -0,0 +1,76 @@
+package application.lexer;
+
+// Texto editável com uma lacuna no ponto da última edição. Inserir ou apagar ali só mexe na
+// lacuna; editar em outro lugar move a lacuna, copiando só os caracteres entre as duas
+// posições. Digitar num arquivo grande custa o tamanho da edição, não o do arquivo, e acrescentar
+// no fim (a abertura em pedaços) nunca copia o que já estava lá, exceto ao crescer.
+final class GapBuffer implements CharSequence {
+	private char[] buffer;
+	private int gapStart;
+	private int gapEnd;
+
+	GapBuffer(String text) {
+		buffer = new char[text.length() + Math.max(16, text.length() / 4)];
+		text.getChars(0, text.length(), buffer, 0);
+		gapStart = text.length();
+		gapEnd = buffer.length;
+	}
+
+	@Override
+	public int length() {
+		return buffer.length - (gapEnd - gapStart);
+	}
+
+	@Override
+	public char charAt(int index) {
+		return index < gapStart ? buffer[index] : buffer[index + gapEnd - gapStart];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().substring(start, end);
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder(length())
+				.append(buffer, 0, gapStart)
+				.append(buffer, gapEnd, buffer.length - gapEnd)
+				.toString();
+	}
+
+	// Substitui removedLength caracteres a partir de offset por text
+	void replace(int offset, int removedLength, String text) {
+		moveGap(offset);
+		// Apagar é só aumentar a lacuna
+		gapEnd += removedLength;
+		reserve(text.length());
+		text.getChars(0, text.length(), buffer, gapStart);
+		gapStart += text.length();
+	}
+
+	private void moveGap(int position) {
+		if (position < gapStart) {
+			int count = gapStart - position;
+			System.arraycopy(buffer, position, buffer, gapEnd - count, count);
+			gapStart = position;
+			gapEnd -= count;
+		} else if (position > gapStart) {
+			int count = position - gapStart;
+			System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+			gapStart += count;
+			gapEnd += count;
+		}
+	}
+
+	private void reserve(int needed) {
+		if (gapEnd - gapStart >= needed) return;
+		int length = length();
+		char[] grown = new char[length + needed + Math.max(16, length / 4)];
+		int tail = buffer.length - gapEnd;
+		System.arraycopy(buffer, 0, grown, 0, gapStart);
+		System.arraycopy(buffer, gapEnd, grown, grown.length - tail, tail);
+		gapEnd = grown.length - tail;
+		buffer = grown;
+	}
+}
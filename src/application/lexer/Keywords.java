@@ -0,0 +1,71 @@
+package application.lexer;
+
+// Reconhece palavras-chave direto do trecho do código, sem substring nem HashMap:
+// primeiro pelo tamanho, depois pela primeira letra, e só então compara o texto.
+public final class Keywords {
+
+	private Keywords() {
+	}
+
+	public static TokenType lookup(String source, int start, int length) {
+		switch (length) {
+			case 1:
+				return source.charAt(start) == 'e' ? TokenType.E : null;
+			case 2:
+				if (source.charAt(start) == 's') return matches(source, start, "se", TokenType.SE);
+				return matches(source, start, "ou", TokenType.OU);
+			case 3:
+				switch (source.charAt(start)) {
+					case 'l': return matches(source, start, "ler", TokenType.LER);
+					case 'i': return matches(source, start, "int", TokenType.NUMERO);
+					case 'n': return matches(source, start, "nao", TokenType.NAO_LOGICO);
+					default: return null;
+				}
+			case 4:
+				switch (source.charAt(start)) {
+					case 'p': return matches(source, start, "para", TokenType.PARA);
+					case 'f': return matches(source, start, "func", TokenType.FUNC);
+					case 'c': return matches(source, start, "char", TokenType.TEXTO);
+					case 'b': return matches(source, start, "bool", TokenType.LOGICO);
+					case 'l': return matches(source, start, "long", TokenType.LONG);
+					case 'v': return matches(source, start, "void", TokenType.VOID);
+					default: return null;
+				}
+			case 5:
+				switch (source.charAt(start)) {
+					case 's':
+						if (source.charAt(start + 1) == 'e') return matches(source, start, "senao", TokenType.SENAO);
+						return matches(source, start, "short", TokenType.SHORT);
+					case 'f':
+						if (source.charAt(start + 1) == 'l') return matches(source, start, "float", TokenType.NUMERO);
+						return matches(source, start, "falso", TokenType.LITERAL_LOGICO);
+					case 'l': return matches(source, start, "lista", TokenType.LISTA);
+					default: return null;
+				}
+			case 6:
+				switch (source.charAt(start)) {
+					case 'd': return matches(source, start, "double", TokenType.DOUBLE);
+					case 's': return matches(source, start, "string", TokenType.TEXTO);
+					default: return null;
+				}
+			case 7:
+				return matches(source, start, "mostrar", TokenType.MOSTRAR);
+			case 8:
+				switch (source.charAt(start)) {
+					case 'f': return matches(source, start, "formatar", TokenType.FORMATAR);
+					case 'e': return matches(source, start, "enquanto", TokenType.ENQUANTO);
+					case 'r': return matches(source, start, "retornar", TokenType.RETORNAR);
+					case 'u': return matches(source, start, "unsigned", TokenType.UNSIGNED);
+					default: return null;
+				}
+			case 10:
+				return matches(source, start, "verdadeiro", TokenType.LITERAL_LOGICO);
+			default:
+				return null;
+		}
+	}
+
+	private static TokenType matches(String source, int start, String keyword, TokenType type) {
+		return source.startsWith(keyword, start) ? type : null;
+	}
+}
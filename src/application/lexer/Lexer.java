@@ -1,114 +1,370 @@
 package application.lexer;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+
+import application.diagnostics.Diagnostic;
+import application.diagnostics.Severity;
 
 public class Lexer {
-	private final String source;
-	private final List<Token> tokens = new ArrayList<>();
+	// Texto da última análise; tokens e diagnósticos apontam para ele
+	private String source;
+	// Texto com as edições do editor, criado na primeira edição; vira o novo 'source' só quando a
+	// próxima análise começa, para a edição não copiar o arquivo inteiro
+	private GapBuffer text;
+	private boolean sourceStale = false;
+	// Edições ainda não aplicadas a 'text'; protegida por ela mesma, não pela trava do lexer
+	private record Edit(int offset, int removedLength, String text) {
+	}
+	private final List<Edit> pendingEdits = new ArrayList<>();
+	private final TokenBuffer tokens;
 	private int start = 0;
 	private int current = 0;
 	private int line = 1;
-	private int column = 1;
-	private boolean hadError = false;
+	// Posição da janela atual no texto completo e número da sua primeira linha (só diferentes
+	// de 0 e 1 no modo janela)
+	private int windowBase = 0;
+	private int lineBase = 1;
+	// Inícios de linha de source, criado na primeira consulta e mantido pelas edições; dá a
+	// linha e a coluna dos diagnósticos
+	private LineIndex lineIndex;
 	private boolean inStatement = false;
 	private boolean expectingSemicolon = false;
 	private TokenType currentType = null;
-	private Object currentLiteral = null;
-	private final Set<String> declaredIdentifiers = new HashSet<>();
-
-	private static final Map<String, TokenType> keywords;
-
-	static {
-		keywords = new HashMap<>();
-		// Palavras-chave
-		keywords.put("mostrar", TokenType.MOSTRAR);
-		keywords.put("formatar", TokenType.FORMATAR);
-		keywords.put("ler", TokenType.LER);
-		keywords.put("se", TokenType.SE);
-		keywords.put("senao", TokenType.SENAO);
-		keywords.put("enquanto", TokenType.ENQUANTO);
-		keywords.put("para", TokenType.PARA);
-		keywords.put("func", TokenType.FUNC);
-		keywords.put("retornar", TokenType.RETORNAR);
-		
-		// Tipos primitivos
-		keywords.put("int", TokenType.NUMERO);
-		keywords.put("float", TokenType.NUMERO);
-		keywords.put("double", TokenType.DOUBLE);
-		keywords.put("char", TokenType.TEXTO);
-		keywords.put("string", TokenType.TEXTO);
-		keywords.put("bool", TokenType.LOGICO);
-		keywords.put("lista", TokenType.LISTA);
-		keywords.put("long", TokenType.LONG);
-		keywords.put("short", TokenType.SHORT);
-		keywords.put("unsigned", TokenType.UNSIGNED);
-		keywords.put("void", TokenType.VOID);
-		
-		// Valores booleanos
-		keywords.put("verdadeiro", TokenType.LITERAL_LOGICO);
-		keywords.put("falso", TokenType.LITERAL_LOGICO);
-		
-		// Operadores lógicos
-		keywords.put("e", TokenType.E);
-		keywords.put("ou", TokenType.OU);
-		keywords.put("nao", TokenType.NAO_LOGICO);
-	}
+	// Último token emitido: o contexto de um identificador depende dele
+	private TokenType lastType = null;
+	private int lastSymbol = -1;
+	// Tipo do último literal da declaração (LITERAL_NUMERO ou LITERAL_TEXTO), para checar tipos
+	private TokenType currentLiteral = null;
+	private final SymbolTable symbols = new SymbolTable();
+	// Ids dos símbolos declarados, e a ordem em que foram declarados
+	private final BitSet declaredIdentifiers = new BitSet();
+	private int[] declarationOrder = new int[16];
+	private int declarationCount = 0;
+	// Símbolos consultados sem declaração local (só no modo pedaço do ParallelLexer)
+	private BitSet externalLookups = null;
+
+	// Estado salvo no início de cada linha para a análise incremental
+	private final List<Checkpoint> checkpoints = new ArrayList<>();
+	// Diagnósticos da análise atual, em ordem de posição no código
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+	private boolean scanned = false;
+	private int dirtyStart = -1;
+	private int dirtyOldEnd = 0;
+	private int dirtyNewEnd = 0;
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
 
 	public Lexer(String source) {
 		this.source = source;
+		this.tokens = new TokenBuffer(source, symbols);
+	}
+
+	// Os objetos Token da lista só são criados quando acessados
+	public synchronized List<Token> scanTokens() {
+		return scanBuffer().asList();
 	}
 
-	public List<Token> scanTokens() {
+	// Resultado compacto da análise; continua sendo do lexer e muda na próxima análise
+	public synchronized TokenBuffer scanBuffer() {
+		refreshSource();
+		// Já analisado: basta reanalisar o trecho editado
+		if (scanned) {
+			if (dirtyStart >= 0) {
+				rescan();
+			}
+			return tokens;
+		}
+
 		reset();
-		while (!isAtEnd() && !hadError) {
+		checkpoints.add(createCheckpoint());
+		while (!isAtEnd()) {
 			start = current;
 			scanToken();
 		}
+		finish();
+		return tokens;
+	}
 
-		// Verifica se há uma declaração não finalizada
-		if (inStatement && !hadError) {
-			error("Declaração não finalizada");
+	// Buffer atual, sem disparar uma nova análise
+	TokenBuffer buffer() {
+		return tokens;
+	}
+
+	// Registra uma edição do editor: substitui removedLength caracteres a partir de offset por text.
+	// Não usa a trava da análise: a edição entra numa fila e a thread do JavaFX nunca espera uma
+	// análise ou uma cópia de tokens em andamento. A próxima análise aplica a fila ao texto.
+	public void edit(int offset, int removedLength, String text) {
+		synchronized (pendingEdits) {
+			pendingEdits.add(new Edit(offset, removedLength, text));
 		}
+	}
 
-		if (!hadError) {
-			tokens.add(new Token(TokenType.EOF, "", null, line));
+	private void applyEdits() {
+		List<Edit> edits;
+		synchronized (pendingEdits) {
+			if (pendingEdits.isEmpty()) return;
+			edits = new ArrayList<>(pendingEdits);
+			pendingEdits.clear();
 		}
-		return tokens;
+		if (text == null) {
+			text = new GapBuffer(source);
+		}
+		for (Edit edit : edits) {
+			text.replace(edit.offset(), edit.removedLength(), edit.text());
+			if (lineIndex != null) {
+				lineIndex.edit(edit.offset(), edit.removedLength(), edit.text());
+			}
+			if (scanned) markDirty(edit.offset(), edit.removedLength(), edit.text().length());
+		}
+		sourceStale = true;
+	}
+
+	private void markDirty(int offset, int removedLength, int insertedLength) {
+		int end = offset + removedLength;
+		if (dirtyStart < 0) {
+			dirtyStart = offset;
+			dirtyOldEnd = end;
+			dirtyNewEnd = offset + insertedLength;
+		} else {
+			// Une a edição à região pendente (dirtyOldEnd em coordenadas da última análise)
+			if (end > dirtyNewEnd) {
+				dirtyOldEnd += end - dirtyNewEnd;
+			}
+			dirtyNewEnd = Math.max(dirtyNewEnd, end) + insertedLength - removedLength;
+			dirtyStart = Math.min(dirtyStart, offset);
+		}
+	}
+
+	// Passa a analisar o texto com as edições acumuladas desde a última análise
+	private void refreshSource() {
+		applyEdits();
+		if (!sourceStale) return;
+		source = text.toString();
+		tokens.setSource(source);
+		sourceStale = false;
 	}
 
-	public void reset() {
+	public synchronized void reset() {
+		refreshSource();
 		tokens.clear();
+		tokens.setSource(source);
 		declaredIdentifiers.clear();
+		declarationCount = 0;
+		checkpoints.clear();
+		diagnostics.clear();
+		scanned = false;
+		dirtyStart = -1;
+		windowBase = 0;
+		lineBase = 1;
 		start = 0;
 		current = 0;
 		line = 1;
-		column = 1;
-		hadError = false;
 		inStatement = false;
 		expectingSemicolon = false;
 		currentType = null;
 		currentLiteral = null;
+		lastType = null;
+		lastSymbol = -1;
+	}
+
+	// Modo janela, usado pelo StreamingLexer: analisa um pedaço do código continuando o estado
+	// deixado pela janela anterior. Antes do fim da entrada só é definitivo o que vem antes do
+	// último checkpoint; o texto a partir dele deve abrir a próxima janela. Devolve quantos
+	// caracteres da janela foram consumidos.
+	synchronized int scanWindow(String window, int base, boolean endOfInput) {
+		source = window;
+		text = null;
+		sourceStale = false;
+		synchronized (pendingEdits) {
+			pendingEdits.clear();
+		}
+		windowBase = base;
+		lineBase = line;
+		lineIndex = null;
+		// Cada janela começa com tokens e literais novos; só a tabela de símbolos e os
+		// identificadores declarados passam de uma janela para a outra. É a única exceção
+		// deliberada à memória limitada: cresce com o número de nomes distintos do arquivo,
+		// não com o tamanho dele, e sem ela o uso de variáveis de janelas anteriores viraria erro
+		tokens.clearWindow();
+		tokens.setSource(window);
+		diagnostics.clear();
+		checkpoints.clear();
+		start = 0;
+		current = 0;
+		checkpoints.add(createCheckpoint());
+		while (!isAtEnd()) {
+			start = current;
+			scanToken();
+		}
+		if (endOfInput) {
+			finish();
+			return window.length();
+		}
+
+		// Descarta o que veio depois do último checkpoint e volta ao estado dele
+		Checkpoint last = checkpoints.get(checkpoints.size() - 1);
+		tokens.truncate(last.tokenIndex);
+		diagnostics.subList(last.diagnosticCount, diagnostics.size()).clear();
+		for (int i = last.declarationCount; i < declarationCount; i++) {
+			declaredIdentifiers.clear(declarationOrder[i]);
+		}
+		declarationCount = last.declarationCount;
+		restore(last);
+		return last.offset;
 	}
 
-	public boolean hadError() {
-		return hadError;
+	private void finish() {
+		// Verifica se há uma declaração não finalizada
+		if (inStatement) {
+			start = current;
+			error("LEX018", "Declaração não finalizada");
+		}
+
+		tokens.add(TokenType.EOF, current, 0, line, -1);
+		scanned = true;
+		dirtyStart = -1;
 	}
 
-	private void error(String message) {
-		hadError = true;
-		System.err.println("Erro na linha " + line + ", coluna " + column + ": " + message);
+	private void rescan() {
+		int delta = dirtyNewEnd - dirtyOldEnd;
+		int resumeIndex = findCheckpoint(dirtyStart);
+		Checkpoint resume = checkpoints.get(resumeIndex);
+
+		// Separa o que foi produzido a partir do checkpoint; pode ser reaproveitado mais adiante
+		List<Checkpoint> oldCheckpoints = new ArrayList<>(checkpoints.subList(resumeIndex + 1, checkpoints.size()));
+		checkpoints.subList(resumeIndex + 1, checkpoints.size()).clear();
+		TokenBuffer oldTokens = tokens.cut(resume.tokenIndex);
+		List<Diagnostic> oldDiagnostics = new ArrayList<>(diagnostics.subList(resume.diagnosticCount, diagnostics.size()));
+		diagnostics.subList(resume.diagnosticCount, diagnostics.size()).clear();
+		int[] oldDeclarations = Arrays.copyOfRange(declarationOrder, resume.declarationCount, declarationCount);
+		for (int symbol : oldDeclarations) {
+			declaredIdentifiers.clear(symbol);
+		}
+		declarationCount = resume.declarationCount;
+
+		restore(resume);
+		int oldIndex = 0;
+		while (!isAtEnd()) {
+			start = current;
+			int checkpointCount = checkpoints.size();
+			scanToken();
+			if (checkpoints.size() == checkpointCount || current < dirtyNewEnd) continue;
+
+			// Depois da edição: procura o checkpoint antigo na mesma posição do texto
+			Checkpoint now = checkpoints.get(checkpoints.size() - 1);
+			int oldOffset = now.offset - delta;
+			while (oldIndex < oldCheckpoints.size() && oldCheckpoints.get(oldIndex).offset < oldOffset) {
+				oldIndex++;
+			}
+			if (oldIndex == oldCheckpoints.size()) continue;
+			Checkpoint old = oldCheckpoints.get(oldIndex);
+			if (old.offset == oldOffset && converged(now, old, resume, oldDeclarations)) {
+				splice(now, old, resume, oldIndex, oldCheckpoints, oldTokens, oldDiagnostics, oldDeclarations, delta);
+				return;
+			}
+		}
+		finish();
 	}
 
-	private void scanToken() {
-		if (hadError) {
-			return; // Para de gerar tokens se houver erro
+	private boolean converged(Checkpoint now, Checkpoint old, Checkpoint resume, int[] oldDeclarations) {
+		if (!now.sameState(old)) return false;
+		int count = now.declarationCount - resume.declarationCount;
+		if (count != old.declarationCount - resume.declarationCount) return false;
+		return Arrays.equals(declarationOrder, resume.declarationCount, now.declarationCount,
+				oldDeclarations, 0, count);
+	}
+
+	private void splice(Checkpoint now, Checkpoint old, Checkpoint resume, int oldIndex,
+			List<Checkpoint> oldCheckpoints, TokenBuffer oldTokens, List<Diagnostic> oldDiagnostics,
+			int[] oldDeclarations, int delta) {
+		int lineShift = now.line - old.line;
+		int tokenShift = now.tokenIndex - old.tokenIndex;
+		int diagnosticShift = now.diagnosticCount - old.diagnosticCount;
+
+		tokens.appendShifted(oldTokens, old.tokenIndex - resume.tokenIndex, delta, lineShift);
+		for (Diagnostic diagnostic : oldDiagnostics.subList(old.diagnosticCount - resume.diagnosticCount, oldDiagnostics.size())) {
+			diagnostics.add(diagnostic.shifted(delta, lineShift));
 		}
-		
+		for (Checkpoint checkpoint : oldCheckpoints.subList(oldIndex + 1, oldCheckpoints.size())) {
+			checkpoint.offset += delta;
+			checkpoint.line += lineShift;
+			checkpoint.tokenIndex += tokenShift;
+			checkpoint.diagnosticCount += diagnosticShift;
+			checkpoints.add(checkpoint);
+		}
+		for (int i = old.declarationCount - resume.declarationCount; i < oldDeclarations.length; i++) {
+			declare(oldDeclarations[i]);
+		}
+		current = source.length();
+		scanned = true;
+		dirtyStart = -1;
+	}
+
+	private int findCheckpoint(int offset) {
+		// Último checkpoint em ou antes de offset (o primeiro está sempre na posição 0)
+		int low = 0;
+		int high = checkpoints.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (checkpoints.get(mid).offset <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private Checkpoint createCheckpoint() {
+		return new Checkpoint(current, line, tokens.size(), diagnostics.size(), declarationCount, lastType, lastSymbol,
+				inStatement, expectingSemicolon, currentType, currentLiteral);
+	}
+
+	private void restore(Checkpoint checkpoint) {
+		start = checkpoint.offset;
+		current = checkpoint.offset;
+		line = checkpoint.line;
+		inStatement = checkpoint.inStatement;
+		expectingSemicolon = checkpoint.expectingSemicolon;
+		currentType = checkpoint.currentType;
+		currentLiteral = checkpoint.currentLiteral;
+		lastType = checkpoint.lastType;
+		lastSymbol = checkpoint.lastSymbol;
+	}
+
+	public synchronized boolean hadError() {
+		return !diagnostics.isEmpty();
+	}
+
+	// Cópia dos diagnósticos da última análise, em ordem de posição
+	public synchronized List<Diagnostic> diagnostics() {
+		return new ArrayList<>(diagnostics);
+	}
+
+	// Índice de linhas do texto analisado, para a linha e a coluna dos diagnósticos; o editor
+	// mantém o seu próprio, já que este só acompanha as edições quando a análise roda
+	private LineIndex lineIndex() {
+		if (lineIndex == null) {
+			lineIndex = new LineIndex(sourceStale ? text : source);
+		}
+		return lineIndex;
+	}
+
+	private void error(String code, String message) {
+		// Só registra: a análise continua para reportar todos os erros de uma vez
+		LineIndex index = lineIndex();
+		int errorLine = index.lineOf(start);
+		diagnostics.add(new Diagnostic(Severity.ERRO, code, message, lineBase + errorLine,
+				start - index.lineStart(errorLine) + 1, windowBase + start, current - start));
+	}
+
+	private void scanToken() {
 		char c = advance();
 		switch (c) {
 			case '(': 
@@ -124,6 +380,8 @@ public class Lexer {
 				break;
 			case '}': 
 				addToken(TokenType.FECHA_CHAVE);
+				// Um bloco fechado termina a instrução, mesmo vazio
+				inStatement = false;
 				break;
 			case ',': 
 				addToken(TokenType.VIRGULA);
@@ -188,8 +446,12 @@ public class Lexer {
 				}
 				break;
 			case '=': 
-				error("Operador '=' não é válido. Use ':=' para atribuição.");
-				addToken(TokenType.ERRO);
+				if (match('=')) {
+					addToken(TokenType.IGUAL);
+				} else {
+					error("LEX001", "Operador '=' não é válido. Use ':=' para atribuição ou '==' para comparação.");
+					addToken(TokenType.ERRO);
+				}
 				break;
 			case '!': 
 				addToken(match('=') ? TokenType.DIFERENTE : TokenType.ERRO);
@@ -202,29 +464,26 @@ public class Lexer {
 				break;
 			case ':': 
 				if (match('=')) {
-					addToken(TokenType.ATRIBUICAO);
-					// Adiciona o identificador ao conjunto de identificadores declarados
-					if (!tokens.isEmpty()) {
-						Token lastToken = tokens.get(tokens.size() - 1);
-						if (lastToken.getType() == TokenType.IDENTIFICADOR) {
-							declaredIdentifiers.add(lastToken.getLexeme());
-						}
+					// Adiciona o identificador ao conjunto de identificadores declarados (antes de
+					// emitir o ':=', que passa a ser o último token)
+					if (lastType == TokenType.IDENTIFICADOR && !declaredIdentifiers.get(lastSymbol)) {
+						declare(lastSymbol);
 					}
+					addToken(TokenType.ATRIBUICAO);
 				} else {
-					error("Operador ':=' esperado");
+					error("LEX002", "Operador ':=' esperado");
 				}
 				break;
 			case ' ':
 			case '\r':
 			case '\t':
-				column++;
 				break;
 			case '\n':
 				line++;
-				column = 1;
 				if (inStatement && expectingSemicolon) {
-					error("Ponto e vírgula esperado no final da linha");
+					error("LEX003", "Ponto e vírgula esperado no final da linha");
 				}
+				checkpoints.add(createCheckpoint());
 				break;
 			case '"': 
 				string();
@@ -237,7 +496,7 @@ public class Lexer {
 						advance();
 					}
 					if (isAtEnd()) {
-						error("Comentário de bloco não fechado");
+						error("LEX004", "Comentário de bloco não fechado");
 						return;
 					}
 					advance(); // Consome o ]
@@ -248,49 +507,28 @@ public class Lexer {
 				}
 				break;
 			case '[':
-				if (currentType == TokenType.LISTA) {
+				if (lastType == TokenType.IDENTIFICADOR || lastType == TokenType.FECHA_COLCHETE
+						|| lastType == TokenType.FECHA_PAREN) {
+					// Acesso a um elemento: l[i]
+					addToken(TokenType.ABRE_COLCHETE);
+					inStatement = true;
+				} else if (isAfterOperator() || isComparison(lastType) || lastType == TokenType.ABRE_PAREN
+						|| lastType == TokenType.ABRE_COLCHETE || lastType == TokenType.VIRGULA
+						|| lastType == TokenType.RETORNAR || lastType == TokenType.E || lastType == TokenType.OU) {
+					// Lista literal: os elementos são analisados como qualquer expressão, então
+					// listas aninhadas, comentários e quebras de linha dentro dela seguem as
+					// regras normais
 					addToken(TokenType.ABRE_COLCHETE);
 					inStatement = true;
-					currentType = null;
-					// Inicia contagem de colchetes abertos
-					int colchetesAbertos = 1;
-					while (!isAtEnd() && colchetesAbertos > 0) {
-						if (peek() == '[') {
-							colchetesAbertos++;
-							advance();
-						} else if (peek() == ']') {
-							colchetesAbertos--;
-							advance();
-						} else if (peek() == '#' && peekNext() == '[') {
-							// Ignora comentários de bloco dentro de listas
-							advance(); // Consome o #
-							advance(); // Consome o [
-							while (!(peek() == ']' && peekNext() == '#') && !isAtEnd()) {
-								if (peek() == '\n') line++;
-								advance();
-							}
-							if (isAtEnd()) {
-								error("Comentário de bloco não fechado dentro de lista");
-								return;
-							}
-							advance(); // Consome o ]
-							advance(); // Consome o #
-						} else {
-							advance();
-						}
-					}
-					if (colchetesAbertos > 0) {
-						error("Lista não fechada corretamente");
-					}
 				} else {
-					error("Uso incorreto de colchetes");
+					error("LEX007", "Uso incorreto de colchetes");
 				}
 				break;
 			case ']':
 				if (inStatement) {
 					addToken(TokenType.FECHA_COLCHETE);
 				} else {
-					error("Uso incorreto de colchetes");
+					error("LEX007", "Uso incorreto de colchetes");
 				}
 				break;
 			case '\'': 
@@ -302,7 +540,7 @@ public class Lexer {
 				} else if (isAlpha(c)) {
 					identifier();
 				} else {
-					error("Caractere inesperado: '" + c + "'");
+					error("LEX008", "Caractere inesperado: '" + c + "'");
 					addToken(TokenType.ERRO);
 				}
 				break;
@@ -312,30 +550,26 @@ public class Lexer {
 	private void identifier() {
 		while (isAlphaNumeric(peek())) advance();
 
-		String text = source.substring(start, current);
-		TokenType type = keywords.get(text);
+		int length = current - start;
+		TokenType type = Keywords.lookup(source, start, length);
 		
 		if (type == null) {
-			// É um identificador
-			type = TokenType.IDENTIFICADOR;
-			
-			// Verifica se é uma palavra solta
+			// É um identificador; palavras-chave nunca chegam aqui, então toda palavra fora
+			// de contexto é uma palavra solta
 			if (!isValidIdentifierContext()) {
-				// Lista de palavras-chave que podem aparecer soltas
-				if (!text.equals("func") && !text.equals("se") && 
-					!text.equals("senao") && !text.equals("enquanto") && 
-					!text.equals("para") && !text.equals("retornar") &&
-					!text.equals("mostrar") && !text.equals("ler") &&
-					!text.equals("formatar")) {
-					error("Palavra solta encontrada: '" + text + "'");
-					return;
-				}
+				error("LEX009", "Palavra solta encontrada: '" + source.substring(start, current) + "'");
+				return;
+			}
+			int symbol = symbols.intern(source, start, length);
+			// O nome logo após um tipo também conta como declarado ('int x;')
+			if (isTypeKeyword(lastType) && !declaredIdentifiers.get(symbol)) {
+				declare(symbol);
 			}
-		} else if (type == TokenType.NUMERO || type == TokenType.TEXTO || 
-				   type == TokenType.LOGICO || type == TokenType.LISTA ||
-				   type == TokenType.LONG || type == TokenType.SHORT ||
-				   type == TokenType.UNSIGNED || type == TokenType.DOUBLE ||
-				   type == TokenType.VOID) {
+			addToken(TokenType.IDENTIFICADOR, symbol);
+			return;
+		} else if (type == TokenType.LITERAL_LOGICO) {
+			setLiteral(TokenType.LITERAL_LOGICO);
+		} else if (isTypeKeyword(type)) {
 			// É um tipo primitivo
 			inStatement = true;
 			currentType = type;
@@ -344,23 +578,47 @@ public class Lexer {
 		addToken(type);
 	}
 
+	private static boolean isTypeKeyword(TokenType type) {
+		return type == TokenType.NUMERO || type == TokenType.TEXTO || 
+			   type == TokenType.LOGICO || type == TokenType.LISTA ||
+			   type == TokenType.LONG || type == TokenType.SHORT ||
+			   type == TokenType.UNSIGNED || type == TokenType.DOUBLE ||
+			   type == TokenType.VOID;
+	}
+
+	private void declare(int symbol) {
+		declaredIdentifiers.set(symbol);
+		if (declarationCount == declarationOrder.length) {
+			declarationOrder = Arrays.copyOf(declarationOrder, declarationCount * 2);
+		}
+		declarationOrder[declarationCount++] = symbol;
+	}
+
 	private boolean isValidIdentifierContext() {
-		// Verifica se o identificador está em um contexto válido
-		if (tokens.isEmpty()) return false;
-		
-		Token lastToken = tokens.get(tokens.size() - 1);
-		TokenType lastType = lastToken.getType();
+		// Verifica se o identificador está em um contexto válido; no início do código
+		// começa uma instrução
+		if (lastType == null) return true;
 		
 		// Contextos válidos para um identificador:
-		// 1. Após um operador
+		// 1. Após um operador (aritmético ou de comparação)
 		// 2. Após uma atribuição
-		// 3. Após um ponto e vírgula
+		// 3. Após um ponto e vírgula ou no início/fim de um bloco
 		// 4. Após um tipo primitivo
 		// 5. Após um identificador declarado anteriormente
 		// 6. Após operadores lógicos
+		// 7. Dentro de parênteses, colchetes ou listas de argumentos
+		// 8. Após func e retornar
 		return isAfterOperator() || 
+			   isComparison(lastType) ||
 			   lastType == TokenType.ATRIBUICAO ||
 			   lastType == TokenType.PONTO_VIRGULA ||
+			   lastType == TokenType.ABRE_CHAVE ||
+			   lastType == TokenType.FECHA_CHAVE ||
+			   lastType == TokenType.ABRE_PAREN ||
+			   lastType == TokenType.ABRE_COLCHETE ||
+			   lastType == TokenType.VIRGULA ||
+			   lastType == TokenType.FUNC ||
+			   lastType == TokenType.RETORNAR ||
 			   lastType == TokenType.NUMERO ||
 			   lastType == TokenType.TEXTO ||
 			   lastType == TokenType.LOGICO ||
@@ -369,17 +627,32 @@ public class Lexer {
 			   lastType == TokenType.SHORT ||
 			   lastType == TokenType.UNSIGNED ||
 			   lastType == TokenType.DOUBLE ||
+			   lastType == TokenType.VOID ||
 			   lastType == TokenType.E ||
 			   lastType == TokenType.OU ||
 			   lastType == TokenType.NAO_LOGICO ||
-			   (lastType == TokenType.IDENTIFICADOR && declaredIdentifiers.contains(lastToken.getLexeme()));
+			   (lastType == TokenType.IDENTIFICADOR && isDeclared(lastSymbol));
+	}
+
+	private static boolean isComparison(TokenType type) {
+		return type == TokenType.IGUAL || type == TokenType.DIFERENTE ||
+			   type == TokenType.MAIOR || type == TokenType.MAIOR_IGUAL ||
+			   type == TokenType.MENOR || type == TokenType.MENOR_IGUAL;
+	}
+
+	private boolean isDeclared(int symbol) {
+		if (declaredIdentifiers.get(symbol)) return true;
+		// Num pedaço analisado em paralelo, a declaração pode estar num pedaço anterior
+		if (externalLookups != null) {
+			externalLookups.set(symbol);
+		}
+		return false;
 	}
 
 	private boolean isInExpression() {
 		// Verifica se estamos dentro de uma expressão (após um operador ou atribuição)
-		if (tokens.isEmpty()) return false;
-		Token lastToken = tokens.get(tokens.size() - 1);
-		TokenType lastTokenType = lastToken.getType();
+		if (lastType == null) return false;
+		TokenType lastTokenType = lastType;
 		return lastTokenType == TokenType.ATRIBUICAO ||
 			   lastTokenType == TokenType.SOMA ||
 			   lastTokenType == TokenType.SUBTRACAO ||
@@ -396,9 +669,8 @@ public class Lexer {
 	}
 
 	private boolean isAfterOperator() {
-		if (tokens.isEmpty()) return false;
-		Token lastToken = tokens.get(tokens.size() - 1);
-		TokenType lastTokenType = lastToken.getType();
+		if (lastType == null) return false;
+		TokenType lastTokenType = lastType;
 		return lastTokenType == TokenType.SOMA ||
 			   lastTokenType == TokenType.SUBTRACAO ||
 			   lastTokenType == TokenType.MULTIPLICACAO ||
@@ -415,9 +687,8 @@ public class Lexer {
 	}
 
 	private boolean isAfterIdentifier() {
-		if (tokens.isEmpty()) return false;
-		Token lastToken = tokens.get(tokens.size() - 1);
-		TokenType lastTokenType = lastToken.getType();
+		if (lastType == null) return false;
+		TokenType lastTokenType = lastType;
 		return lastTokenType == TokenType.IDENTIFICADOR;
 	}
 
@@ -431,55 +702,88 @@ public class Lexer {
 			while (isDigit(peek())) advance();
 		}
 
-		String numberStr = source.substring(start, current);
-		try {
-			if (isFloat) {
-				currentLiteral = Double.parseDouble(numberStr);
-			} else {
-				currentLiteral = Integer.parseInt(numberStr);
+		// Converte direto do texto, sem substring nem boxing
+		int literal;
+		if (isFloat) {
+			literal = tokens.addLiteral(TokenBuffer.LITERAL_DOUBLE, Double.doubleToRawLongBits(parseDouble()));
+		} else {
+			long value = 0;
+			for (int i = start; i < current; i++) {
+				value = value * 10 + (source.charAt(i) - '0');
+				if (value > Integer.MAX_VALUE) {
+					error("LEX010", "Número inválido: " + source.substring(start, current));
+					return;
+				}
 			}
-			addToken(TokenType.LITERAL_NUMERO, currentLiteral);
-		} catch (NumberFormatException e) {
-			error("Número inválido: " + numberStr);
+			literal = tokens.addLiteral(TokenBuffer.LITERAL_INT, value);
 		}
+		setLiteral(TokenType.LITERAL_NUMERO);
+		addToken(TokenType.LITERAL_NUMERO, literal);
+	}
+
+	private double parseDouble() {
+		// Caminho rápido exato: mantissa até 2^53 e divisor até 10^22 são representáveis
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean fraction = false;
+		for (int i = start; i < current; i++) {
+			char c = source.charAt(i);
+			if (c == '.') {
+				fraction = true;
+				continue;
+			}
+			if (mantissa == 0 && c == '0') {
+				if (fraction) fractionDigits++;
+				continue;
+			}
+			mantissa = mantissa * 10 + (c - '0');
+			if (fraction) fractionDigits++;
+			if (++digits > 15) {
+				return Double.parseDouble(source.substring(start, current));
+			}
+		}
+		if (fractionDigits > 22) {
+			return Double.parseDouble(source.substring(start, current));
+		}
+		return mantissa / POWERS_OF_TEN[fractionDigits];
 	}
 
 	private void string() {
 		while (peek() != '"' && !isAtEnd()) {
-			if (peek() == '\n') {
-				line++;
-				column = 1;
-			}
+			if (peek() == '\n') line++;
 			advance();
 		}
 
 		if (isAtEnd()) {
-			error("String não fechada");
+			error("LEX011", "String não fechada");
 			addToken(TokenType.ERRO);
 			return;
 		}
 
 		advance();
-		String value = source.substring(start + 1, current - 1);
-		currentLiteral = value;
-		addToken(TokenType.LITERAL_TEXTO, value);
+		// O valor é extraído do próprio lexema quando o Token for pedido
+		setLiteral(TokenType.LITERAL_TEXTO);
+		addToken(TokenType.LITERAL_TEXTO);
 	}
 
 	private void processChar() {
 		if (isAtEnd()) {
-			error("Caractere não fechado");
+			error("LEX012", "Caractere não fechado");
 			return;
 		}
 
 		char value = advance();
+		if (value == '\n') line++;
 		
 		// Verifica se é um caractere de escape
 		if (value == '\\') {
 			if (isAtEnd()) {
-				error("Sequência de escape incompleta");
+				error("LEX013", "Sequência de escape incompleta");
 				return;
 			}
 			value = advance();
+			if (value == '\n') line++;
 			switch (value) {
 				case 'n': value = '\n'; break;
 				case 't': value = '\t'; break;
@@ -487,19 +791,30 @@ public class Lexer {
 				case '\\': value = '\\'; break;
 				case '\'': value = '\''; break;
 				default:
-					error("Sequência de escape inválida: \\" + value);
+					error("LEX014", "Sequência de escape inválida: \\" + value);
 					return;
 			}
 		}
 
 		if (peek() != '\'') {
-			error("Caractere deve conter exatamente um caractere");
+			error("LEX015", "Caractere deve conter exatamente um caractere");
+			// Recupera pulando até a aspa de fechamento na mesma linha
+			while (peek() != '\'' && peek() != '\n' && !isAtEnd()) advance();
+			match('\'');
 			return;
 		}
 
 		advance(); // Consome a aspas simples de fechamento
-		currentLiteral = String.valueOf(value);
-		addToken(TokenType.LITERAL_TEXTO, currentLiteral);
+		setLiteral(TokenType.LITERAL_TEXTO);
+		addToken(TokenType.LITERAL_TEXTO, tokens.addLiteral(TokenBuffer.LITERAL_CHAR, value));
+	}
+
+	// O tipo só é conferido aqui quando o valor da declaração é um único literal logo após
+	// o ':='; expressões ficam para a análise semântica
+	private void setLiteral(TokenType literal) {
+		if (lastType == TokenType.ATRIBUICAO) {
+			currentLiteral = literal;
+		}
 	}
 
 	private void checkTypeCompatibility() {
@@ -510,32 +825,28 @@ public class Lexer {
 				case SHORT:
 				case UNSIGNED:
 				case DOUBLE:
-					if (!(currentLiteral instanceof Number)) {
-						error("Tipo incompatível: esperado número, encontrado " + 
-							(currentLiteral instanceof String ? "string" : "booleano"));
-						hadError = true;
+					if (currentLiteral != TokenType.LITERAL_NUMERO) {
+						error("LEX016", "Tipo incompatível: esperado número, encontrado " + 
+							(currentLiteral == TokenType.LITERAL_TEXTO ? "string" : "booleano"));
 					}
 					break;
 				case TEXTO:
-					if (!(currentLiteral instanceof String)) {
-						error("Tipo incompatível: esperado string, encontrado " + 
-							(currentLiteral instanceof Number ? "número" : "booleano"));
-						hadError = true;
+					if (currentLiteral != TokenType.LITERAL_TEXTO) {
+						error("LEX016", "Tipo incompatível: esperado string, encontrado " + 
+							(currentLiteral == TokenType.LITERAL_NUMERO ? "número" : "booleano"));
 					}
 					break;
 				case LOGICO:
-					if (!(currentLiteral instanceof Boolean)) {
-						error("Tipo incompatível: esperado booleano, encontrado " + 
-							(currentLiteral instanceof String ? "string" : "número"));
-						hadError = true;
+					if (currentLiteral != TokenType.LITERAL_LOGICO) {
+						error("LEX016", "Tipo incompatível: esperado booleano, encontrado " + 
+							(currentLiteral == TokenType.LITERAL_TEXTO ? "string" : "número"));
 					}
 					break;
 				case LISTA:
 					// Listas podem conter qualquer tipo, então não verificamos
 					break;
 				case VOID:
-					error("Tipo void não pode ser usado em declarações");
-					hadError = true;
+					error("LEX017", "Tipo void não pode ser usado em declarações");
 					break;
 				default:
 					break;
@@ -547,7 +858,6 @@ public class Lexer {
 		if (isAtEnd()) return false;
 		if (source.charAt(current) != expected) return false;
 		current++;
-		column++;
 		return true;
 	}
 
@@ -580,16 +890,110 @@ public class Lexer {
 	}
 
 	private char advance() {
-		column++;
 		return source.charAt(current++);
 	}
 
 	private void addToken(TokenType type) {
-		addToken(type, null);
+		addToken(type, -1);
+	}
+
+	private void addToken(TokenType type, int literal) {
+		if (currentLiteral != null && type != TokenType.PONTO_VIRGULA && lastType != TokenType.ATRIBUICAO) {
+			// Algo depois do literal: o valor é uma expressão
+			currentLiteral = null;
+		}
+		tokens.add(type, start, current - start, line, literal);
+		lastType = type;
+		lastSymbol = type == TokenType.IDENTIFICADOR ? literal : -1;
+	}
+
+	// Acesso ao estado para o ParallelLexer, que junta pedaços analisados separadamente
+	Checkpoint currentState() {
+		return createCheckpoint();
+	}
+
+	// Assume o estado de outro lexer (linha e símbolo já convertidos para este)
+	void adoptState(Checkpoint state, int line, int lastSymbol) {
+		this.line = line;
+		inStatement = state.inStatement;
+		expectingSemicolon = state.expectingSemicolon;
+		currentType = state.currentType;
+		currentLiteral = state.currentLiteral;
+		lastType = state.lastType;
+		this.lastSymbol = lastSymbol;
 	}
 
-	private void addToken(TokenType type, Object literal) {
-		String text = source.substring(start, current);
-		tokens.add(new Token(type, text, literal, line));
+	// Começa como se uma instrução tivesse acabado de terminar com ';'
+	void assumeStatementStart() {
+		lastType = TokenType.PONTO_VIRGULA;
+		lastSymbol = -1;
+		externalLookups = new BitSet();
+	}
+
+	BitSet externalLookups() {
+		return externalLookups;
+	}
+
+	int line() {
+		return line;
+	}
+
+	int declarationCount() {
+		return declarationCount;
+	}
+
+	int declaration(int index) {
+		return declarationOrder[index];
+	}
+
+	boolean declared(int symbol) {
+		return declaredIdentifiers.get(symbol);
+	}
+
+	void declareIfAbsent(int symbol) {
+		if (!declaredIdentifiers.get(symbol)) {
+			declare(symbol);
+		}
+	}
+
+	// Estado do lexer no início de uma linha fora de strings, comentários de bloco e listas.
+	// Linhas dentro dessas construções não recebem checkpoint, então a análise incremental
+	// sempre retoma antes delas.
+	static final class Checkpoint {
+		int offset;
+		int line;
+		int tokenIndex;
+		int diagnosticCount;
+		final int declarationCount;
+		final TokenType lastType;
+		final int lastSymbol;
+		final boolean inStatement;
+		final boolean expectingSemicolon;
+		final TokenType currentType;
+		final TokenType currentLiteral;
+
+		Checkpoint(int offset, int line, int tokenIndex, int diagnosticCount, int declarationCount, TokenType lastType, int lastSymbol,
+				boolean inStatement, boolean expectingSemicolon, TokenType currentType, TokenType currentLiteral) {
+			this.offset = offset;
+			this.line = line;
+			this.tokenIndex = tokenIndex;
+			this.diagnosticCount = diagnosticCount;
+			this.declarationCount = declarationCount;
+			this.lastType = lastType;
+			this.lastSymbol = lastSymbol;
+			this.inStatement = inStatement;
+			this.expectingSemicolon = expectingSemicolon;
+			this.currentType = currentType;
+			this.currentLiteral = currentLiteral;
+		}
+
+		boolean sameState(Checkpoint other) {
+			return lastType == other.lastType
+					&& lastSymbol == other.lastSymbol
+					&& inStatement == other.inStatement
+					&& expectingSemicolon == other.expectingSemicolon
+					&& currentType == other.currentType
+					&& currentLiteral == other.currentLiteral;
+		}
 	}
 }
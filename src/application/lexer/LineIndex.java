@@ -0,0 +1,105 @@
+package application.lexer;
+
+import java.util.Arrays;
+
+// Posição do início de cada linha do texto, para converter posição em linha e coluna com busca
+// binária. As edições atualizam o índice sem reler o texto: só as linhas dentro do trecho
+// editado são trocadas. O deslocamento das linhas seguintes é guardado à parte (shiftFrom,
+// shift) e aplicado aos poucos, só quando uma edição acontece em outra linha; digitar várias
+// vezes no mesmo lugar não percorre o resto do arquivo.
+// Não é sincronizado: deve ser alterado e lido pela mesma thread que edita o texto.
+public class LineIndex {
+	private int[] starts = new int[16];
+	private int count = 1;
+	// Entradas a partir de shiftFrom valem starts[i] + shift
+	private int shiftFrom = 1;
+	private int shift = 0;
+	private int length = 0;
+
+	public LineIndex() {
+	}
+
+	public LineIndex(CharSequence text) {
+		edit(0, 0, text);
+	}
+
+	public int lineCount() {
+		return count;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	// Início da linha (a partir de 0)
+	public int lineStart(int line) {
+		return line < shiftFrom ? starts[line] : starts[line] + shift;
+	}
+
+	// Linha (a partir de 0) que contém a posição
+	public int lineOf(int offset) {
+		int low = 0;
+		int high = count - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (lineStart(mid) <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	// Coluna (a partir de 0) da posição dentro da sua linha
+	public int columnOf(int offset) {
+		return offset - lineStart(lineOf(offset));
+	}
+
+	// Substitui removedLength caracteres a partir de offset por text
+	public void edit(int offset, int removedLength, CharSequence text) {
+		int first = lineOf(offset) + 1;
+		int end = offset + removedLength;
+		// Linhas que começavam dentro do trecho removido
+		int last = first;
+		while (last < count && lineStart(last) <= end) last++;
+
+		int added = 0;
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == '\n') added++;
+		}
+		int delta = text.length() - removedLength;
+
+		moveShift(last);
+		int removed = last - first;
+		if (added != removed) {
+			if (count + added - removed > starts.length) {
+				starts = Arrays.copyOf(starts, Math.max(count + added - removed, starts.length * 2));
+			}
+			System.arraycopy(starts, last, starts, first + added, count - last);
+			count += added - removed;
+			shiftFrom += added - removed;
+		}
+		// As novas linhas ficam fora do deslocamento pendente
+		int line = first;
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == '\n') starts[line++] = offset + i + 1;
+		}
+		shift += delta;
+		length += delta;
+	}
+
+	// Faz o deslocamento pendente começar em from, aplicando-o nas entradas entre os dois pontos
+	private void moveShift(int from) {
+		if (from > shiftFrom) {
+			for (int i = shiftFrom; i < from; i++) {
+				starts[i] += shift;
+			}
+		} else {
+			for (int i = from; i < shiftFrom; i++) {
+				starts[i] -= shift;
+			}
+		}
+		shiftFrom = from;
+	}
+}
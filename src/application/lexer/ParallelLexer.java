@@ -0,0 +1,204 @@
+package application.lexer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import application.diagnostics.Diagnostic;
+
+// Análise léxica de arquivos grandes em paralelo. O texto é dividido em pedaços que terminam
+// numa quebra de linha, de preferência logo após um ';'. Cada pedaço é analisado num
+// ForkJoinPool supondo que começa logo depois de uma instrução terminada. Na junção, em ordem,
+// um pedaço só é aceito se essa suposição bate com o estado real deixado pelo anterior e se
+// não consultou identificadores declarados antes dele; caso contrário é reanalisado em
+// sequência a partir do estado correto. Linhas, símbolos e identificadores declarados são
+// ajustados durante a junção.
+public class ParallelLexer {
+	public static final int PARALLEL_THRESHOLD = 1 << 20;
+	private static final int MIN_CHUNK = 256 * 1024;
+	// Até onde procurar uma linha terminada em ';' depois do ponto de corte
+	private static final int SPLIT_SEARCH = 4096;
+
+	private final String source;
+	private final ForkJoinPool pool;
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+	private TokenBuffer tokens;
+
+	public ParallelLexer(String source) {
+		this(source, ForkJoinPool.commonPool());
+	}
+
+	public ParallelLexer(String source, ForkJoinPool pool) {
+		this.source = source;
+		this.pool = pool;
+	}
+
+	public List<Token> scanTokens() {
+		return scanBuffer().asList();
+	}
+
+	public TokenBuffer scanBuffer() {
+		if (tokens != null) return tokens;
+
+		// Textos pequenos não compensam a divisão
+		if (source.length() < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+			Lexer lexer = new Lexer(source);
+			tokens = lexer.scanBuffer();
+			diagnostics.addAll(lexer.diagnostics());
+			return tokens;
+		}
+
+		int[] bounds = split();
+		List<ChunkTask> tasks = new ArrayList<>();
+		for (int i = 0; i + 1 < bounds.length; i++) {
+			ChunkTask task = new ChunkTask(bounds[i], bounds[i + 1], i == 0, i + 2 == bounds.length);
+			tasks.add(task);
+			pool.execute(task);
+		}
+		merge(tasks);
+		return tokens;
+	}
+
+	public List<Diagnostic> diagnostics() {
+		scanBuffer();
+		return new ArrayList<>(diagnostics);
+	}
+
+	public boolean hadError() {
+		return !diagnostics().isEmpty();
+	}
+
+	private int[] split() {
+		int length = source.length();
+		int chunkSize = Math.max(MIN_CHUNK, length / (pool.getParallelism() * 4));
+		List<Integer> bounds = new ArrayList<>();
+		bounds.add(0);
+		int position = chunkSize;
+		while (position < length) {
+			int cut = findSplit(position);
+			if (cut < 0 || cut >= length) break;
+			bounds.add(cut);
+			position = cut + chunkSize;
+		}
+		bounds.add(length);
+
+		int[] result = new int[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	// Início de linha depois de from, preferindo uma linha anterior terminada em ';'
+	private int findSplit(int from) {
+		int firstNewline = -1;
+		int limit = Math.min(source.length(), from + SPLIT_SEARCH);
+		for (int i = from; i < limit; i++) {
+			if (source.charAt(i) != '\n') continue;
+			if (firstNewline < 0) firstNewline = i;
+			int j = i - 1;
+			while (j >= 0 && (source.charAt(j) == ' ' || source.charAt(j) == '\t' || source.charAt(j) == '\r')) j--;
+			if (j >= 0 && source.charAt(j) == ';') return i + 1;
+		}
+		if (firstNewline >= 0) return firstNewline + 1;
+		int next = source.indexOf('\n', limit);
+		return next < 0 ? -1 : next + 1;
+	}
+
+	private void merge(List<ChunkTask> tasks) {
+		// O lexer principal carrega o estado real entre os pedaços e analisa os rejeitados
+		Lexer main = new Lexer("");
+		SymbolTable symbols = main.buffer().symbols();
+		tokens = new TokenBuffer(source, symbols);
+		int position = 0;
+
+		for (ChunkTask task : tasks) {
+			Lexer chunk = task.join();
+			int[] symbolMap = null;
+			if (position == task.start && task.complete()) {
+				symbolMap = mapSymbols(chunk, symbols);
+				if (!accepts(main, task, chunk, symbolMap)) {
+					symbolMap = null;
+				}
+			}
+
+			if (symbolMap != null) {
+				int lineShift = main.line() - 1;
+				tokens.appendRemapped(chunk.buffer(), task.start, lineShift, symbolMap);
+				for (Diagnostic diagnostic : chunk.diagnostics()) {
+					diagnostics.add(diagnostic.shifted(0, lineShift));
+				}
+				Lexer.Checkpoint exit = chunk.currentState();
+				int lastSymbol = exit.lastSymbol < 0 ? -1 : symbolMap[exit.lastSymbol];
+				main.adoptState(exit, chunk.line() + lineShift, lastSymbol);
+				for (int i = 0; i < chunk.declarationCount(); i++) {
+					main.declareIfAbsent(symbolMap[chunk.declaration(i)]);
+				}
+				position = task.end;
+			} else {
+				// Reanalisa em sequência desde onde o texto ainda não foi coberto
+				int consumed = main.scanWindow(source.substring(position, task.end), position, task.last);
+				tokens.appendRemapped(main.buffer(), position, 0, null);
+				diagnostics.addAll(main.diagnostics());
+				position += consumed;
+			}
+		}
+	}
+
+	private static int[] mapSymbols(Lexer chunk, SymbolTable symbols) {
+		SymbolTable local = chunk.buffer().symbols();
+		int[] map = new int[local.size()];
+		for (int id = 0; id < map.length; id++) {
+			map[id] = symbols.intern(local.name(id));
+		}
+		return map;
+	}
+
+	// O pedaço vale se começou no mesmo estado em que o anterior terminou e se nenhum
+	// identificador que ele tratou como não declarado foi declarado antes dele
+	private static boolean accepts(Lexer main, ChunkTask task, Lexer chunk, int[] symbolMap) {
+		if (!main.currentState().sameState(task.entryState)) return false;
+		BitSet external = chunk.externalLookups();
+		if (external == null) return true;
+		for (int id = external.nextSetBit(0); id >= 0; id = external.nextSetBit(id + 1)) {
+			if (main.declared(symbolMap[id])) return false;
+		}
+		return true;
+	}
+
+	private final class ChunkTask extends RecursiveTask<Lexer> {
+		private static final long serialVersionUID = 1L;
+
+		final int start;
+		final int end;
+		final boolean first;
+		final boolean last;
+		transient Lexer.Checkpoint entryState;
+		private int consumed;
+
+		ChunkTask(int start, int end, boolean first, boolean last) {
+			this.start = start;
+			this.end = end;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected Lexer compute() {
+			Lexer lexer = new Lexer("");
+			if (!first) {
+				lexer.assumeStatementStart();
+			}
+			entryState = lexer.currentState();
+			consumed = lexer.scanWindow(source.substring(start, end), start, last);
+			return lexer;
+		}
+
+		// O corte só é seguro se a última linha do pedaço terminou fora de strings e comentários
+		boolean complete() {
+			return consumed == end - start;
+		}
+	}
+}
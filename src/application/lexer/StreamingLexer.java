@@ -0,0 +1,170 @@
+package application.lexer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import application.diagnostics.DiagnosticCollector;
+
+// Lexer de leitura contínua: lê o código em janelas de tamanho limitado e entrega os tokens
+// um a um, sem manter o texto inteiro nem a lista completa de tokens na memória. Cada janela
+// termina no último início de linha seguro (fora de strings, comentários e listas); o resto
+// é reaproveitado no começo da janela seguinte.
+public class StreamingLexer implements Iterator<Token>, Closeable {
+	public static final int DEFAULT_WINDOW = 64 * 1024;
+
+	private final Readable input;
+	private final CharBuffer chunk;
+	private final Lexer lexer = new Lexer("");
+	private final DiagnosticCollector diagnostics;
+	private String pending = "";
+	private int base = 0;
+	private boolean endOfInput = false;
+	private boolean finished = false;
+	private TokenBuffer batch;
+	private int batchIndex = 0;
+
+	public StreamingLexer(Reader reader) {
+		this(reader, DEFAULT_WINDOW, new DiagnosticCollector());
+	}
+
+	public StreamingLexer(CharBuffer buffer) {
+		this(buffer, DEFAULT_WINDOW, new DiagnosticCollector());
+	}
+
+	public StreamingLexer(Readable input, int windowSize, DiagnosticCollector diagnostics) {
+		this.input = input;
+		this.chunk = CharBuffer.allocate(windowSize);
+		this.diagnostics = diagnostics;
+	}
+
+	// Arquivo .scr mapeado em memória e decodificado aos poucos
+	public static StreamingLexer open(Path path) throws IOException {
+		return open(path, StandardCharsets.UTF_8, new DiagnosticCollector());
+	}
+
+	public static StreamingLexer open(Path path, Charset charset, DiagnosticCollector diagnostics) throws IOException {
+		return new StreamingLexer(new MappedSource(path, charset), DEFAULT_WINDOW, diagnostics);
+	}
+
+	// Diagnósticos das janelas já analisadas; o resto chega conforme os tokens são lidos
+	public DiagnosticCollector getDiagnostics() {
+		return diagnostics;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (batch == null || batchIndex >= batch.size()) {
+			if (finished) return false;
+			fill();
+		}
+		return true;
+	}
+
+	@Override
+	public Token next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return batch.get(batchIndex++);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (input instanceof Closeable) {
+			((Closeable) input).close();
+		}
+	}
+
+	private void fill() {
+		try {
+			chunk.clear();
+			while (chunk.hasRemaining()) {
+				if (input.read(chunk) < 0) {
+					endOfInput = true;
+					break;
+				}
+			}
+			chunk.flip();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		String window = pending.isEmpty() ? chunk.toString() : pending + chunk;
+		int consumed = lexer.scanWindow(window, base, endOfInput);
+		diagnostics.reportAll(lexer.diagnostics());
+		batch = lexer.buffer();
+		batchIndex = 0;
+
+		// Sem nenhuma linha completa, a próxima janela só cresce com o texto pendente
+		pending = window.substring(consumed);
+		base += consumed;
+		finished = endOfInput;
+	}
+
+	// Lê um arquivo mapeado em trechos de até MAP_SIZE bytes, sem carregar tudo de uma vez
+	private static final class MappedSource implements Readable, Closeable {
+		private static final long MAP_SIZE = 64L * 1024 * 1024;
+
+		private final FileChannel channel;
+		private final CharsetDecoder decoder;
+		private final long size;
+		private long mappedAt = 0;
+		private ByteBuffer bytes;
+		private boolean flushed = false;
+
+		MappedSource(Path path, Charset charset) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			size = channel.size();
+			bytes = map(0);
+		}
+
+		private MappedByteBuffer map(long position) throws IOException {
+			mappedAt = position;
+			return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, size - position));
+		}
+
+		@Override
+		public int read(CharBuffer target) throws IOException {
+			if (flushed) return -1;
+			int before = target.position();
+			while (target.hasRemaining()) {
+				boolean last = mappedAt + bytes.limit() >= size;
+				CoderResult result = decoder.decode(bytes, target, last);
+				if (result.isOverflow()) break;
+				if (!last) {
+					// Remapeia a partir do primeiro byte ainda não decodificado
+					bytes = map(mappedAt + bytes.position());
+					continue;
+				}
+				decoder.flush(target);
+				flushed = true;
+				break;
+			}
+			int read = target.position() - before;
+			return read == 0 && flushed ? -1 : read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
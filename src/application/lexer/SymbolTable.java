@@ -0,0 +1,101 @@
+package application.lexer;
+
+import java.util.Arrays;
+
+// Tabela de identificadores: cada nome distinto recebe um id inteiro estável, para que
+// as etapas seguintes comparem ints em vez de strings.
+public class SymbolTable {
+	private String[] names = new String[64];
+	private int[] hashes = new int[64];
+	private int[] table = new int[128];
+	private int count = 0;
+
+	public SymbolTable() {
+		Arrays.fill(table, -1);
+	}
+
+	private SymbolTable(SymbolTable other) {
+		names = other.names.clone();
+		hashes = other.hashes.clone();
+		table = other.table.clone();
+		count = other.count;
+	}
+
+	public SymbolTable copy() {
+		return new SymbolTable(this);
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public String name(int id) {
+		return names[id];
+	}
+
+	public int intern(String name) {
+		return intern(name, 0, name.length());
+	}
+
+	// Só aloca a String do nome na primeira vez que ele aparece
+	public int intern(String source, int start, int length) {
+		int hash = 0;
+		for (int i = start, end = start + length; i < end; i++) {
+			hash = 31 * hash + source.charAt(i);
+		}
+
+		int mask = table.length - 1;
+		int slot = mix(hash) & mask;
+		while (table[slot] >= 0) {
+			int id = table[slot];
+			if (hashes[id] == hash && names[id].length() == length && source.startsWith(names[id], start)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (count == names.length) {
+			names = Arrays.copyOf(names, count * 2);
+			hashes = Arrays.copyOf(hashes, count * 2);
+		}
+		names[count] = source.substring(start, start + length);
+		hashes[count] = hash;
+		table[slot] = count;
+		if (++count * 2 > table.length) {
+			rehash();
+		}
+		return count - 1;
+	}
+
+	// Procura sem inserir; -1 quando o nome nunca foi visto
+	public int find(String name) {
+		int hash = name.hashCode();
+		int mask = table.length - 1;
+		int slot = mix(hash) & mask;
+		while (table[slot] >= 0) {
+			int id = table[slot];
+			if (hashes[id] == hash && names[id].equals(name)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		Arrays.fill(table, -1);
+		int mask = table.length - 1;
+		for (int id = 0; id < count; id++) {
+			int slot = mix(hashes[id]) & mask;
+			while (table[slot] >= 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id;
+		}
+	}
+
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,305 @@
+package application.lexer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sequência de tokens em arrays paralelos de primitivos. Objetos Token só são criados
+// quando alguém os pede (get/asList), e literais numéricos ficam num pool sem boxing.
+// Para identificadores, a coluna de literal guarda o id do símbolo na SymbolTable.
+public class TokenBuffer {
+	private static final TokenType[] TYPES = TokenType.values();
+	private static final int INITIAL_CAPACITY = 256;
+
+	// Tipos de entrada no pool de literais
+	public static final byte LITERAL_INT = 0;
+	public static final byte LITERAL_DOUBLE = 1;
+	public static final byte LITERAL_CHAR = 2;
+
+	private String source;
+	private final SymbolTable symbols;
+	private int size = 0;
+	private int[] types = new int[INITIAL_CAPACITY];
+	private int[] starts = new int[INITIAL_CAPACITY];
+	private int[] lengths = new int[INITIAL_CAPACITY];
+	private int[] lines = new int[INITIAL_CAPACITY];
+	private int[] literals = new int[INITIAL_CAPACITY];
+
+	// Pool de literais sem repetição: valores iguais compartilham a mesma entrada
+	private int literalCount = 0;
+	private long[] literalBits = new long[16];
+	private byte[] literalKinds = new byte[16];
+	private int[] literalTable = new int[32];
+
+	public TokenBuffer(String source, SymbolTable symbols) {
+		this.source = source;
+		this.symbols = symbols;
+		Arrays.fill(literalTable, -1);
+	}
+
+	private TokenBuffer(TokenBuffer other) {
+		source = other.source;
+		symbols = other.symbols.copy();
+		size = other.size;
+		types = Arrays.copyOf(other.types, size);
+		starts = Arrays.copyOf(other.starts, size);
+		lengths = Arrays.copyOf(other.lengths, size);
+		lines = Arrays.copyOf(other.lines, size);
+		literals = Arrays.copyOf(other.literals, size);
+		literalCount = other.literalCount;
+		literalBits = other.literalBits.clone();
+		literalKinds = other.literalKinds.clone();
+		literalTable = other.literalTable.clone();
+	}
+
+	// Cópia independente, para ser lida fora da thread que continua editando o lexer
+	public TokenBuffer copy() {
+		return new TokenBuffer(this);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public String source() {
+		return source;
+	}
+
+	void setSource(String source) {
+		this.source = source;
+	}
+
+	public SymbolTable symbols() {
+		return symbols;
+	}
+
+	public TokenType type(int index) {
+		return TYPES[types[index]];
+	}
+
+	public int typeOrdinal(int index) {
+		return types[index];
+	}
+
+	public int start(int index) {
+		return starts[index];
+	}
+
+	public int length(int index) {
+		return lengths[index];
+	}
+
+	public int line(int index) {
+		return lines[index];
+	}
+
+	// Índice no pool de literais, ou -1 quando o valor sai do próprio texto do token
+	public int literalIndex(int index) {
+		return literals[index];
+	}
+
+	// Id do símbolo de um IDENTIFICADOR
+	public int symbol(int index) {
+		return literals[index];
+	}
+
+	public String lexeme(int index) {
+		return source.substring(starts[index], starts[index] + lengths[index]);
+	}
+
+	public boolean lexemeEquals(int index, String text) {
+		return lengths[index] == text.length() && source.startsWith(text, starts[index]);
+	}
+
+	public Object literal(int index) {
+		int type = types[index];
+		if (type != TokenType.LITERAL_NUMERO.ordinal() && type != TokenType.LITERAL_TEXTO.ordinal()) {
+			return null;
+		}
+		int literal = literals[index];
+		if (literal >= 0) {
+			long bits = literalBits[literal];
+			switch (literalKinds[literal]) {
+				case LITERAL_INT: return (int) bits;
+				case LITERAL_DOUBLE: return Double.longBitsToDouble(bits);
+				default: return String.valueOf((char) bits);
+			}
+		}
+		// Strings: o valor é o lexema sem as aspas
+		return source.substring(starts[index] + 1, starts[index] + lengths[index] - 1);
+	}
+
+	public Token get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return new Token(type(index), lexeme(index), literal(index), lines[index]);
+	}
+
+	// Visão como List<Token>; cada acesso cria o Token correspondente
+	public List<Token> asList() {
+		return new AbstractList<Token>() {
+			@Override
+			public Token get(int index) {
+				return TokenBuffer.this.get(index);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	public int literalCount() {
+		return literalCount;
+	}
+
+	public byte literalKind(int literal) {
+		return literalKinds[literal];
+	}
+
+	public long literalBits(int literal) {
+		return literalBits[literal];
+	}
+
+	void add(TokenType type, int start, int length, int line, int literal) {
+		if (size == types.length) {
+			grow(size + 1);
+		}
+		types[size] = type.ordinal();
+		starts[size] = start;
+		lengths[size] = length;
+		lines[size] = line;
+		literals[size] = literal;
+		size++;
+	}
+
+	int addLiteral(byte kind, long bits) {
+		int mask = literalTable.length - 1;
+		int slot = Long.hashCode(bits * 31 + kind) * 0x9E3779B9 >>> 1 & mask;
+		while (literalTable[slot] >= 0) {
+			int literal = literalTable[slot];
+			if (literalKinds[literal] == kind && literalBits[literal] == bits) {
+				return literal;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (literalCount == literalBits.length) {
+			literalBits = Arrays.copyOf(literalBits, literalCount * 2);
+			literalKinds = Arrays.copyOf(literalKinds, literalCount * 2);
+		}
+		literalBits[literalCount] = bits;
+		literalKinds[literalCount] = kind;
+		literalTable[slot] = literalCount;
+		if (++literalCount * 2 > literalTable.length) {
+			rehashLiterals();
+		}
+		return literalCount - 1;
+	}
+
+	private void rehashLiterals() {
+		literalTable = new int[literalTable.length * 2];
+		Arrays.fill(literalTable, -1);
+		int mask = literalTable.length - 1;
+		for (int literal = 0; literal < literalCount; literal++) {
+			int slot = Long.hashCode(literalBits[literal] * 31 + literalKinds[literal]) * 0x9E3779B9 >>> 1 & mask;
+			while (literalTable[slot] >= 0) {
+				slot = (slot + 1) & mask;
+			}
+			literalTable[slot] = literal;
+		}
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	// Esvazia também o pool de literais, que de outra forma acumula os valores de todas as janelas
+	void clearWindow() {
+		size = 0;
+		literalCount = 0;
+		Arrays.fill(literalTable, -1);
+	}
+
+	void truncate(int newSize) {
+		size = Math.min(size, newSize);
+	}
+
+	// Remove os tokens a partir de from e devolve-os num buffer separado (mesmo pool de literais)
+	TokenBuffer cut(int from) {
+		TokenBuffer tail = new TokenBuffer(source, symbols);
+		int count = size - from;
+		tail.grow(count);
+		System.arraycopy(types, from, tail.types, 0, count);
+		System.arraycopy(starts, from, tail.starts, 0, count);
+		System.arraycopy(lengths, from, tail.lengths, 0, count);
+		System.arraycopy(lines, from, tail.lines, 0, count);
+		System.arraycopy(literals, from, tail.literals, 0, count);
+		tail.size = count;
+		size = from;
+		return tail;
+	}
+
+	// Acrescenta os tokens de other a partir de from, deslocando posições e linhas
+	void appendShifted(TokenBuffer other, int from, int offsetShift, int lineShift) {
+		int count = other.size - from;
+		if (size + count > types.length) {
+			grow(size + count);
+		}
+		System.arraycopy(other.types, from, types, size, count);
+		System.arraycopy(other.starts, from, starts, size, count);
+		System.arraycopy(other.lengths, from, lengths, size, count);
+		System.arraycopy(other.lines, from, lines, size, count);
+		System.arraycopy(other.literals, from, literals, size, count);
+		if (offsetShift != 0 || lineShift != 0) {
+			for (int i = size, end = size + count; i < end; i++) {
+				starts[i] += offsetShift;
+				lines[i] += lineShift;
+			}
+		}
+		size += count;
+	}
+
+	// Acrescenta todos os tokens de other, que tem seu próprio pool e tabela de símbolos.
+	// symbolMap converte os ids de símbolo de other para os deste buffer (null: mesma tabela).
+	void appendRemapped(TokenBuffer other, int offsetShift, int lineShift, int[] symbolMap) {
+		int[] literalMap = new int[other.literalCount];
+		for (int literal = 0; literal < other.literalCount; literal++) {
+			literalMap[literal] = addLiteral(other.literalKinds[literal], other.literalBits[literal]);
+		}
+
+		int identifier = TokenType.IDENTIFICADOR.ordinal();
+		int count = other.size;
+		if (size + count > types.length) {
+			grow(size + count);
+		}
+		for (int i = 0; i < count; i++) {
+			int type = other.types[i];
+			int literal = other.literals[i];
+			if (literal >= 0) {
+				if (type == identifier) {
+					literal = symbolMap == null ? literal : symbolMap[literal];
+				} else {
+					literal = literalMap[literal];
+				}
+			}
+			types[size] = type;
+			starts[size] = other.starts[i] + offsetShift;
+			lengths[size] = other.lengths[i];
+			lines[size] = other.lines[i] + lineShift;
+			literals[size] = literal;
+			size++;
+		}
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = Math.max(minCapacity, types.length + (types.length >> 1));
+		types = Arrays.copyOf(types, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		lines = Arrays.copyOf(lines, capacity);
+		literals = Arrays.copyOf(literals, capacity);
+	}
+}
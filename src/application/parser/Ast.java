@@ -0,0 +1,174 @@
+package application.parser;
+
+import java.util.Arrays;
+
+import application.lexer.TokenBuffer;
+
+// Árvore sintática em arrays paralelos de int: um nó é só um índice, sem objeto por nó.
+// Listas de filhos ficam em extra como [quantidade, item0, item1, ...].
+public final class Ast {
+	private final TokenBuffer tokens;
+	private int size = 0;
+	private int[] kinds;
+	private int[] nodeTokens;
+	private int[] firsts;
+	private int[] seconds;
+	private int[] thirds;
+	private int[] extra = new int[64];
+	private int extraSize = 0;
+	private int root = -1;
+
+	Ast(TokenBuffer tokens) {
+		this.tokens = tokens;
+		// Em média há menos nós que tokens
+		int capacity = Math.max(16, tokens.size());
+		kinds = new int[capacity];
+		nodeTokens = new int[capacity];
+		firsts = new int[capacity];
+		seconds = new int[capacity];
+		thirds = new int[capacity];
+	}
+
+	public TokenBuffer tokens() {
+		return tokens;
+	}
+
+	public int root() {
+		return root;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int kind(int node) {
+		return kinds[node];
+	}
+
+	public int token(int node) {
+		return nodeTokens[node];
+	}
+
+	public int first(int node) {
+		return firsts[node];
+	}
+
+	public int second(int node) {
+		return seconds[node];
+	}
+
+	public int third(int node) {
+		return thirds[node];
+	}
+
+	public int line(int node) {
+		return tokens.line(nodeTokens[node]);
+	}
+
+	public int listSize(int list) {
+		return extra[list];
+	}
+
+	public int listItem(int list, int index) {
+		return extra[list + 1 + index];
+	}
+
+	int add(int kind, int token, int first, int second, int third) {
+		if (size == kinds.length) {
+			int capacity = size + (size >> 1);
+			kinds = Arrays.copyOf(kinds, capacity);
+			nodeTokens = Arrays.copyOf(nodeTokens, capacity);
+			firsts = Arrays.copyOf(firsts, capacity);
+			seconds = Arrays.copyOf(seconds, capacity);
+			thirds = Arrays.copyOf(thirds, capacity);
+		}
+		kinds[size] = kind;
+		nodeTokens[size] = token;
+		firsts[size] = first;
+		seconds[size] = second;
+		thirds[size] = third;
+		return size++;
+	}
+
+	int addList(int[] items, int from, int count) {
+		if (extraSize + count + 1 > extra.length) {
+			extra = Arrays.copyOf(extra, Math.max(extra.length * 2, extraSize + count + 1));
+		}
+		int list = extraSize;
+		extra[extraSize++] = count;
+		System.arraycopy(items, from, extra, extraSize, count);
+		extraSize += count;
+		return list;
+	}
+
+	void setRoot(int root) {
+		this.root = root;
+	}
+
+	// Representação em S-expressions, para depuração
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		if (root >= 0) {
+			append(out, root, 0);
+		}
+		return out.toString();
+	}
+
+	private void append(StringBuilder out, int node, int indent) {
+		out.append("  ".repeat(indent)).append('(').append(NodeKind.name(kinds[node]));
+		out.append(' ').append(tokens.lexeme(nodeTokens[node]));
+		switch (kinds[node]) {
+			case NodeKind.PROGRAM:
+			case NodeKind.BLOCK:
+			case NodeKind.PRINT:
+			case NodeKind.CALL:
+			case NodeKind.LIST:
+				appendList(out, firsts[node], indent);
+				break;
+			case NodeKind.FUNCTION:
+				appendList(out, firsts[node], indent);
+				appendChild(out, seconds[node], indent);
+				break;
+			case NodeKind.FOR:
+				appendList(out, firsts[node], indent);
+				break;
+			case NodeKind.VAR_DECL:
+				out.append(' ').append(tokens.lexeme(seconds[node]));
+				appendChild(out, firsts[node], indent);
+				break;
+			case NodeKind.PARAM:
+				out.append(' ').append(tokens.lexeme(firsts[node]));
+				break;
+			case NodeKind.INT_LITERAL:
+			case NodeKind.DOUBLE_LITERAL:
+			case NodeKind.TEXT_LITERAL:
+			case NodeKind.BOOL_LITERAL:
+			case NodeKind.NAME:
+				break;
+			default:
+				appendChild(out, firsts[node], indent);
+				appendChild(out, seconds[node], indent);
+				appendChild(out, thirds[node], indent);
+				break;
+		}
+		out.append(')');
+	}
+
+	private void appendChild(StringBuilder out, int node, int indent) {
+		if (node < 0) return;
+		out.append('\n');
+		append(out, node, indent + 1);
+	}
+
+	private void appendList(StringBuilder out, int list, int indent) {
+		for (int i = 0; i < extra[list]; i++) {
+			int item = extra[list + 1 + i];
+			if (item < 0) {
+				out.append('\n').append("  ".repeat(indent + 1)).append("-");
+			} else {
+				appendChild(out, item, indent);
+			}
+		}
+	}
+}
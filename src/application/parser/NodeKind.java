@@ -0,0 +1,51 @@
+package application.parser;
+
+// Tipos de nó da AST. Cada nó tem um token e até três campos inteiros (first, second, third)
+// cujo significado depende do tipo; listas de filhos ficam no array extra da Ast.
+public final class NodeKind {
+	// Programa e blocos: first = lista de instruções
+	public static final int PROGRAM = 0;
+	public static final int BLOCK = 1;
+
+	// Declarações
+	public static final int VAR_DECL = 2;    // token = nome, first = valor inicial (-1 se não há), second = token do tipo
+	public static final int FUNCTION = 3;    // token = nome, first = lista de PARAM, second = corpo, third = token do tipo de retorno (-1: sem retorno)
+	public static final int PARAM = 4;       // token = nome, first = token do tipo
+
+	// Instruções
+	public static final int ASSIGN = 5;      // token = operador (:=, +=, ++...), first = alvo, second = valor (-1 para ++ e --)
+	public static final int EXPR_STMT = 6;   // first = expressão (chamada)
+	public static final int IF = 7;          // first = condição, second = bloco, third = senao (-1 se não há)
+	public static final int WHILE = 8;       // first = condição, second = corpo
+	public static final int FOR = 9;         // first = lista fixa [início, condição, passo, corpo]; partes ausentes são -1
+	public static final int RETURN = 10;     // first = valor (-1 se não há)
+	public static final int PRINT = 11;      // first = lista de argumentos
+	public static final int READ = 12;       // first = alvo
+
+	// Expressões
+	public static final int INT_LITERAL = 13;
+	public static final int DOUBLE_LITERAL = 14;
+	public static final int TEXT_LITERAL = 15;
+	public static final int BOOL_LITERAL = 16;
+	public static final int NAME = 17;
+	public static final int UNARY = 18;      // token = operador, first = operando
+	public static final int BINARY = 19;     // token = operador, first = esquerda, second = direita
+	public static final int CALL = 20;       // token = nome da função, first = lista de argumentos
+	public static final int LIST = 21;       // first = lista de elementos
+	public static final int INDEX = 22;      // first = lista, second = índice
+
+	public static final int COUNT = 23;
+
+	private static final String[] NAMES = {
+		"PROGRAM", "BLOCK", "VAR_DECL", "FUNCTION", "PARAM", "ASSIGN", "EXPR_STMT", "IF", "WHILE", "FOR",
+		"RETURN", "PRINT", "READ", "INT_LITERAL", "DOUBLE_LITERAL", "TEXT_LITERAL", "BOOL_LITERAL", "NAME",
+		"UNARY", "BINARY", "CALL", "LIST", "INDEX"
+	};
+
+	private NodeKind() {
+	}
+
+	public static String name(int kind) {
+		return kind >= 0 && kind < NAMES.length ? NAMES[kind] : "?" + kind;
+	}
+}
@@ -1,5 +1,538 @@
 package application.parser;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import application.diagnostics.Diagnostic;
+import application.diagnostics.Severity;
+import application.lexer.TokenBuffer;
+import application.lexer.TokenType;
+
+// Parser descendente com precedência de operadores (Pratt) sobre o TokenBuffer do lexer.
+// Produz uma Ast em arrays; erros viram diagnósticos e o parser se recupera no próximo
+// ';' ou '}' para continuar reportando.
 public class Parser {
-	
-}
\ No newline at end of file
+	private static final int MAX_DEPTH = 512;
+	// Cada nível de bloco usa mais pilha que um de expressão (instrução, se/enquanto, corpo)
+	private static final int MAX_BLOCK_DEPTH = 256;
+
+	// Precedências dos operadores binários (maior liga mais forte)
+	private static final int PREC_NONE = 0;
+	private static final int PREC_OU = 1;
+	private static final int PREC_E = 2;
+	private static final int PREC_IGUALDADE = 3;
+	private static final int PREC_COMPARACAO = 4;
+	private static final int PREC_SOMA = 5;
+	private static final int PREC_PRODUTO = 6;
+	private static final int PREC_UNARIO = 7;
+
+	private final TokenBuffer tokens;
+	private final Ast ast;
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+	private int current = 0;
+	private int depth = 0;
+	private int blockDepth = 0;
+
+	// Pilha de itens das listas em construção (blocos, argumentos), sem uma lista por nó
+	private int[] scratch = new int[64];
+	private int scratchSize = 0;
+
+	public Parser(TokenBuffer tokens) {
+		this.tokens = tokens;
+		this.ast = new Ast(tokens);
+	}
+
+	public Ast parse() {
+		if (ast.root() >= 0) return ast;
+
+		skipErrors();
+		int mark = scratchSize;
+		while (!check(TokenType.EOF)) {
+			int statement = topLevel();
+			if (statement >= 0) {
+				push(statement);
+			}
+		}
+		ast.setRoot(ast.add(NodeKind.PROGRAM, current, popList(mark), -1, -1));
+		return ast;
+	}
+
+	public List<Diagnostic> diagnostics() {
+		return new ArrayList<>(diagnostics);
+	}
+
+	public boolean hadError() {
+		return !diagnostics.isEmpty();
+	}
+
+	private int topLevel() {
+		int start = current;
+		try {
+			if (check(TokenType.FUNC)) {
+				return function();
+			}
+			return statement();
+		} catch (ParseError e) {
+			synchronize(start);
+			return -1;
+		}
+	}
+
+	private int function() {
+		advance();
+		int returnType = -1;
+		if (isType(peekType())) {
+			returnType = advance();
+			// 'func void nome' é o mesmo que sem tipo
+			if (tokens.type(returnType) == TokenType.VOID) {
+				returnType = -1;
+			}
+		}
+		int name = consume(TokenType.IDENTIFICADOR, "PAR003", "Nome da função esperado após 'func'");
+		consume(TokenType.ABRE_PAREN, "PAR004", "'(' esperado após o nome da função");
+
+		int mark = scratchSize;
+		if (!check(TokenType.FECHA_PAREN)) {
+			do {
+				if (!isType(peekType()) || check(TokenType.VOID)) {
+					throw error(current, "PAR005", "Tipo do parâmetro esperado");
+				}
+				int type = advance();
+				int parameter = consume(TokenType.IDENTIFICADOR, "PAR006", "Nome do parâmetro esperado");
+				push(ast.add(NodeKind.PARAM, parameter, type, -1, -1));
+			} while (match(TokenType.VIRGULA));
+		}
+		int parameters = popList(mark);
+		consume(TokenType.FECHA_PAREN, "PAR007", "')' esperado após os parâmetros");
+		if (!check(TokenType.ABRE_CHAVE)) {
+			throw error(current, "PAR008", "'{' esperado antes do corpo da função");
+		}
+		int body = block();
+		return ast.add(NodeKind.FUNCTION, name, parameters, body, returnType);
+	}
+
+	private int statement() {
+		switch (peekType()) {
+			case FUNC:
+				// Analisa a função inteira para não gerar erros em cascata, mas a descarta
+				error(current, "PAR009", "Funções só podem ser declaradas fora de blocos");
+				function();
+				return -1;
+			case SE:
+				return ifStatement();
+			case ENQUANTO: {
+				int keyword = advance();
+				int condition = condition();
+				return ast.add(NodeKind.WHILE, keyword, condition, body(), -1);
+			}
+			case PARA:
+				return forStatement();
+			case RETORNAR: {
+				int keyword = advance();
+				int value = check(TokenType.PONTO_VIRGULA) ? -1 : expression(PREC_NONE);
+				endStatement();
+				return ast.add(NodeKind.RETURN, keyword, value, -1, -1);
+			}
+			case MOSTRAR: {
+				int keyword = advance();
+				consume(TokenType.ABRE_PAREN, "PAR010", "'(' esperado após 'mostrar'");
+				int arguments = arguments();
+				endStatement();
+				return ast.add(NodeKind.PRINT, keyword, arguments, -1, -1);
+			}
+			case LER: {
+				int keyword = advance();
+				consume(TokenType.ABRE_PAREN, "PAR011", "'(' esperado após 'ler'");
+				int target = assignable(expression(PREC_NONE));
+				consume(TokenType.FECHA_PAREN, "PAR012", "')' esperado");
+				endStatement();
+				return ast.add(NodeKind.READ, keyword, target, -1, -1);
+			}
+			case ABRE_CHAVE:
+				return block();
+			case PONTO_VIRGULA:
+				// Instrução vazia
+				advance();
+				return -1;
+			default: {
+				int statement = simpleStatement();
+				endStatement();
+				return statement;
+			}
+		}
+	}
+
+	// Declaração, atribuição ou chamada, sem o ';' (também usada no cabeçalho do 'para')
+	private int simpleStatement() {
+		if (isType(peekType())) {
+			return declaration();
+		}
+
+		int start = current;
+		int target = expression(PREC_NONE);
+		switch (peekType()) {
+			case ATRIBUICAO:
+			case SOMA_ATRIBUICAO:
+			case SUBTRACAO_ATRIBUICAO:
+			case MULTIPLICACAO_ATRIBUICAO:
+			case DIVISAO_ATRIBUICAO:
+			case MODULO_ATRIBUICAO: {
+				int operator = advance();
+				int value = expression(PREC_NONE);
+				return ast.add(NodeKind.ASSIGN, operator, assignable(target), value, -1);
+			}
+			case INCREMENTO:
+			case DECREMENTO: {
+				int operator = advance();
+				return ast.add(NodeKind.ASSIGN, operator, assignable(target), -1, -1);
+			}
+			default:
+				if (ast.kind(target) != NodeKind.CALL) {
+					throw error(start, "PAR013", "Instrução inválida: esperada declaração, atribuição ou chamada de função");
+				}
+				return ast.add(NodeKind.EXPR_STMT, ast.token(target), target, -1, -1);
+		}
+	}
+
+	private int declaration() {
+		int type = advance();
+		if (tokens.type(type) == TokenType.VOID) {
+			throw error(type, "PAR014", "Tipo void só pode ser usado como retorno de função");
+		}
+		int name = consume(TokenType.IDENTIFICADOR, "PAR015", "Nome da variável esperado após o tipo");
+		int value = match(TokenType.ATRIBUICAO) ? expression(PREC_NONE) : -1;
+		return ast.add(NodeKind.VAR_DECL, name, value, type, -1);
+	}
+
+	private int ifStatement() {
+		int keyword = advance();
+		int condition = condition();
+		int then = body();
+		int otherwise = -1;
+		if (match(TokenType.SENAO)) {
+			otherwise = check(TokenType.SE) ? ifStatement() : body();
+		}
+		return ast.add(NodeKind.IF, keyword, condition, then, otherwise);
+	}
+
+	private int forStatement() {
+		int keyword = advance();
+		consume(TokenType.ABRE_PAREN, "PAR016", "'(' esperado após 'para'");
+		int init = check(TokenType.PONTO_VIRGULA) ? -1 : simpleStatement();
+		consume(TokenType.PONTO_VIRGULA, "PAR017", "';' esperado após o início do 'para'");
+		int condition = check(TokenType.PONTO_VIRGULA) ? -1 : expression(PREC_NONE);
+		consume(TokenType.PONTO_VIRGULA, "PAR018", "';' esperado após a condição do 'para'");
+		int step = check(TokenType.FECHA_PAREN) ? -1 : simpleStatement();
+		consume(TokenType.FECHA_PAREN, "PAR019", "')' esperado após o passo do 'para'");
+		int body = body();
+
+		int mark = scratchSize;
+		push(init);
+		push(condition);
+		push(step);
+		push(body);
+		return ast.add(NodeKind.FOR, keyword, popList(mark), -1, -1);
+	}
+
+	private int condition() {
+		consume(TokenType.ABRE_PAREN, "PAR020", "'(' esperado antes da condição");
+		int condition = expression(PREC_NONE);
+		consume(TokenType.FECHA_PAREN, "PAR021", "')' esperado após a condição");
+		return condition;
+	}
+
+	private int body() {
+		if (!check(TokenType.ABRE_CHAVE)) {
+			throw error(current, "PAR022", "'{' esperado");
+		}
+		return block();
+	}
+
+	private int block() {
+		int open = advance();
+		int mark = scratchSize;
+		// Acima do limite o bloco é pulado sem recursão, com um erro só, em vez de estourar a pilha
+		if (blockDepth >= MAX_BLOCK_DEPTH) {
+			error(open, "PAR031", "Blocos aninhados demais");
+			skipBlock();
+			return ast.add(NodeKind.BLOCK, open, popList(mark), -1, -1);
+		}
+		blockDepth++;
+		try {
+			while (!check(TokenType.FECHA_CHAVE) && !check(TokenType.EOF)) {
+				int start = current;
+				try {
+					int statement = statement();
+					if (statement >= 0) {
+						push(statement);
+					}
+				} catch (ParseError e) {
+					synchronize(start);
+				}
+			}
+		} finally {
+			blockDepth--;
+		}
+		int statements = popList(mark);
+		consume(TokenType.FECHA_CHAVE, "PAR023", "'}' esperado para fechar o bloco");
+		return ast.add(NodeKind.BLOCK, open, statements, -1, -1);
+	}
+
+	// Avança até depois do '}' que fecha o bloco já aberto
+	private void skipBlock() {
+		int open = 1;
+		while (open > 0 && !check(TokenType.EOF)) {
+			TokenType type = tokens.type(advance());
+			if (type == TokenType.ABRE_CHAVE) {
+				open++;
+			} else if (type == TokenType.FECHA_CHAVE) {
+				open--;
+			}
+		}
+	}
+
+	private void endStatement() {
+		if (!match(TokenType.PONTO_VIRGULA)) {
+			throw error(previousOrCurrent(), "PAR024", "';' esperado no final da instrução");
+		}
+	}
+
+	private int assignable(int target) {
+		int kind = ast.kind(target);
+		if (kind != NodeKind.NAME && kind != NodeKind.INDEX) {
+			throw error(ast.token(target), "PAR025", "Só é possível atribuir a uma variável ou posição de lista");
+		}
+		return target;
+	}
+
+	// Expressão com operadores de precedência maior que minPrecedence
+	private int expression(int minPrecedence) {
+		if (++depth > MAX_DEPTH) {
+			throw error(current, "PAR026", "Expressão aninhada demais");
+		}
+		try {
+			int left = prefix();
+			while (true) {
+				TokenType type = peekType();
+				if (type == TokenType.ABRE_COLCHETE) {
+					int open = advance();
+					int index = expression(PREC_NONE);
+					consume(TokenType.FECHA_COLCHETE, "PAR027", "']' esperado após o índice");
+					left = ast.add(NodeKind.INDEX, open, left, index, -1);
+					continue;
+				}
+				int precedence = precedence(type);
+				if (precedence <= minPrecedence) break;
+				int operator = advance();
+				// Associativo à esquerda: o lado direito só aceita operadores mais fortes
+				int right = expression(precedence);
+				left = ast.add(NodeKind.BINARY, operator, left, right, -1);
+			}
+			return left;
+		} finally {
+			depth--;
+		}
+	}
+
+	private int prefix() {
+		int token = current;
+		switch (peekType()) {
+			case LITERAL_NUMERO: {
+				advance();
+				int literal = tokens.literalIndex(token);
+				boolean isDouble = tokens.literalKind(literal) == TokenBuffer.LITERAL_DOUBLE;
+				return ast.add(isDouble ? NodeKind.DOUBLE_LITERAL : NodeKind.INT_LITERAL, token, -1, -1, -1);
+			}
+			case LITERAL_TEXTO:
+				advance();
+				return ast.add(NodeKind.TEXT_LITERAL, token, -1, -1, -1);
+			case LITERAL_LOGICO:
+				advance();
+				return ast.add(NodeKind.BOOL_LITERAL, token, -1, -1, -1);
+			case IDENTIFICADOR:
+			case FORMATAR:
+				advance();
+				if (match(TokenType.ABRE_PAREN)) {
+					return ast.add(NodeKind.CALL, token, arguments(), -1, -1);
+				}
+				if (tokens.type(token) == TokenType.FORMATAR) {
+					throw error(current, "PAR028", "'(' esperado após 'formatar'");
+				}
+				return ast.add(NodeKind.NAME, token, -1, -1, -1);
+			case ABRE_PAREN: {
+				advance();
+				int inner = expression(PREC_NONE);
+				consume(TokenType.FECHA_PAREN, "PAR029", "')' esperado");
+				return inner;
+			}
+			case SUBTRACAO:
+			case NAO_LOGICO: {
+				advance();
+				int operand = expression(PREC_UNARIO);
+				return ast.add(NodeKind.UNARY, token, operand, -1, -1);
+			}
+			case ABRE_COLCHETE: {
+				advance();
+				int mark = scratchSize;
+				if (!check(TokenType.FECHA_COLCHETE)) {
+					do {
+						push(expression(PREC_NONE));
+					} while (match(TokenType.VIRGULA));
+				}
+				int elements = popList(mark);
+				consume(TokenType.FECHA_COLCHETE, "PAR030", "']' esperado para fechar a lista");
+				return ast.add(NodeKind.LIST, token, elements, -1, -1);
+			}
+			default:
+				throw error(token, "PAR001", "Expressão esperada");
+		}
+	}
+
+	// Argumentos até o ')' (o '(' já foi consumido)
+	private int arguments() {
+		int mark = scratchSize;
+		if (!check(TokenType.FECHA_PAREN)) {
+			do {
+				push(expression(PREC_NONE));
+			} while (match(TokenType.VIRGULA));
+		}
+		int list = popList(mark);
+		consume(TokenType.FECHA_PAREN, "PAR002", "')' esperado após os argumentos");
+		return list;
+	}
+
+	private static int precedence(TokenType type) {
+		switch (type) {
+			case OU: return PREC_OU;
+			case E: return PREC_E;
+			case IGUAL:
+			case DIFERENTE: return PREC_IGUALDADE;
+			case MAIOR:
+			case MAIOR_IGUAL:
+			case MENOR:
+			case MENOR_IGUAL: return PREC_COMPARACAO;
+			case SOMA:
+			case SUBTRACAO: return PREC_SOMA;
+			case MULTIPLICACAO:
+			case DIVISAO:
+			case MODULO: return PREC_PRODUTO;
+			default: return PREC_NONE;
+		}
+	}
+
+	private static boolean isType(TokenType type) {
+		switch (type) {
+			case NUMERO:
+			case TEXTO:
+			case LOGICO:
+			case LISTA:
+			case LONG:
+			case SHORT:
+			case UNSIGNED:
+			case DOUBLE:
+			case VOID:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	// Pula tokens até o início provável da próxima instrução. Se o erro foi no primeiro
+	// token da instrução, ele é descartado para garantir que a análise avance.
+	private void synchronize(int start) {
+		if (current == start) {
+			advance();
+		}
+		while (!check(TokenType.EOF)) {
+			if (isType(peekType())) return;
+			switch (peekType()) {
+				case PONTO_VIRGULA:
+					advance();
+					return;
+				case FECHA_CHAVE:
+				case SE:
+				case ENQUANTO:
+				case PARA:
+				case FUNC:
+				case RETORNAR:
+				case MOSTRAR:
+				case LER:
+					return;
+				default:
+					advance();
+					break;
+			}
+		}
+	}
+
+	private void push(int item) {
+		if (scratchSize == scratch.length) {
+			scratch = Arrays.copyOf(scratch, scratchSize * 2);
+		}
+		scratch[scratchSize++] = item;
+	}
+
+	private int popList(int mark) {
+		int list = ast.addList(scratch, mark, scratchSize - mark);
+		scratchSize = mark;
+		return list;
+	}
+
+	private TokenType peekType() {
+		return tokens.type(current);
+	}
+
+	private boolean check(TokenType type) {
+		return tokens.type(current) == type;
+	}
+
+	private boolean match(TokenType type) {
+		if (!check(type)) return false;
+		advance();
+		return true;
+	}
+
+	private int advance() {
+		int token = current;
+		if (tokens.type(current) != TokenType.EOF) {
+			current++;
+			skipErrors();
+		}
+		return token;
+	}
+
+	// Tokens de erro já foram reportados pelo lexer
+	private void skipErrors() {
+		while (tokens.type(current) == TokenType.ERRO) {
+			current++;
+		}
+	}
+
+	private int consume(TokenType type, String code, String message) {
+		if (check(type)) return advance();
+		throw error(current, code, message);
+	}
+
+	// O ';' que falta pertence ao fim do token anterior
+	private int previousOrCurrent() {
+		return current > 0 ? current - 1 : current;
+	}
+
+	private ParseError error(int token, String code, String message) {
+		int offset = tokens.start(token);
+		String source = tokens.source();
+		int column = offset - source.lastIndexOf('\n', offset - 1);
+		diagnostics.add(new Diagnostic(Severity.ERRO, code, message, tokens.line(token), column, offset, tokens.length(token)));
+		return new ParseError();
+	}
+
+	// Interrompe a instrução atual; a recuperação acontece em synchronize
+	private static final class ParseError extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		ParseError() {
+			super(null, null, false, false);
+		}
+	}
+}
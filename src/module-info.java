@@ -5,4 +5,5 @@ module Scribo {
 	requires java.prefs;
 	
 	opens application to javafx.graphics, javafx.fxml;
+	exports application.editor to javafx.fxml;
 }